@@ -0,0 +1,126 @@
+package fr.n7.stl.minic;
+
+/**
+ * Valid MiniC programs whose size grows along one axis, used as inputs of the benchmarks.
+ */
+public class BenchmarkPrograms {
+
+    /**
+     * Axes along which the programs grow.
+     */
+    public enum Axis {
+        /** Number of function declarations and calls. */
+        FUNCTIONS,
+        /** Nesting depth of conditionals and loops. */
+        DEPTH,
+        /** Number of operands of an arithmetic expression. */
+        EXPRESSION,
+        /** Number of fields of a record. */
+        RECORD
+    }
+
+    /**
+     * Builds a program.
+     * @param _axis Axis along which the program grows.
+     * @param _size Size of the program along the axis, at least 1.
+     * @return Source of the program.
+     */
+    public static String generate(Axis _axis, int _size) {
+        if (_size < 1) {
+            throw new IllegalArgumentException("Invalid program size : " + _size);
+        }
+        StringBuilder _program = new StringBuilder("bench {\n  int x = 1;\n");
+        switch (_axis) {
+            case FUNCTIONS:
+                functions(_program, _size);
+                break;
+            case DEPTH:
+                depth(_program, _size);
+                break;
+            case EXPRESSION:
+                expression(_program, _size);
+                break;
+            case RECORD:
+                record(_program, _size);
+                break;
+        }
+        return _program.append("  print x;\n}\n").toString();
+    }
+
+    private static void functions(StringBuilder _program, int _size) {
+        for (int _index = 0; _index < _size; _index++) {
+            _program.append("  int f").append(_index).append("(int a) {\n")
+                    .append("    if (a > ").append(_index).append(") { return a - 1; } else { return a + ")
+                    .append(_index).append("; }\n  }\n");
+        }
+        for (int _index = 0; _index < _size; _index++) {
+            _program.append("  x = f").append(_index).append("(x);\n");
+        }
+    }
+
+    private static void depth(StringBuilder _program, int _size) {
+        for (int _level = 0; _level < _size; _level++) {
+            indent(_program, _level);
+            if (_level % 2 == 0) {
+                _program.append("if (x > ").append(_level).append(") {\n");
+            } else {
+                _program.append("while (x < ").append(_level).append(") {\n");
+            }
+            indent(_program, _level + 1);
+            _program.append("int v").append(_level).append(" = x + ").append(_level).append(";\n");
+            indent(_program, _level + 1);
+            _program.append("x = v").append(_level).append(";\n");
+        }
+        for (int _level = _size - 1; _level >= 0; _level--) {
+            indent(_program, _level);
+            _program.append((_level % 2 == 0) ? "} else {\n" : "}\n");
+            if (_level % 2 == 0) {
+                indent(_program, _level + 1);
+                _program.append("x = ").append(_level).append(";\n");
+                indent(_program, _level);
+                _program.append("}\n");
+            }
+        }
+    }
+
+    private static void expression(StringBuilder _program, int _size) {
+        _program.append("  int e = x");
+        for (int _index = 1; _index < _size; _index++) {
+            switch (_index % 3) {
+                case 0:
+                    _program.append(" + x * ").append(_index);
+                    break;
+                case 1:
+                    _program.append(" - (x + ").append(_index).append(")");
+                    break;
+                default:
+                    _program.append(" + ").append(_index).append(" % (x + 1)");
+                    break;
+            }
+        }
+        _program.append(";\n  x = e;\n");
+    }
+
+    private static void record(StringBuilder _program, int _size) {
+        _program.append("  typedef struct Wide {");
+        for (int _index = 0; _index < _size; _index++) {
+            _program.append(" int f").append(_index).append(";");
+        }
+        _program.append(" } Wide;\n  Wide r = {");
+        for (int _index = 0; _index < _size; _index++) {
+            _program.append((_index > 0) ? ", " : " ").append(_index);
+        }
+        _program.append(" };\n  x = r.f0");
+        for (int _index = 1; _index < _size; _index++) {
+            _program.append(" + r.f").append(_index);
+        }
+        _program.append(";\n");
+    }
+
+    private static void indent(StringBuilder _program, int _level) {
+        for (int _index = 0; _index <= _level; _index++) {
+            _program.append("  ");
+        }
+    }
+
+}
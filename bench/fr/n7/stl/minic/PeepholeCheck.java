@@ -0,0 +1,157 @@
+package fr.n7.stl.minic;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import fr.n7.stl.minic.CompilationStatistics.Counter;
+import fr.n7.stl.tam.ast.impl.PeepholeRule;
+
+/**
+ * Compiles the reference programs without and with the peephole optimizer and compares the size of
+ * the generated code. With --run, the programs are also executed and their outputs compared.
+ *
+ * The reference programs are generated: 40 small programs of the uniform mix (size 2s, depth s mod
+ * 5, seed s) and 20 larger ones that favour functions, loops and conditionals (size 300, depth s mod
+ * 8, seed s). The same programs are written by ProgramGenerator with these options, so the other
+ * phases can be compared on them as well.
+ */
+public class PeepholeCheck {
+
+    private static final String USAGE = "Usage : PeepholeCheck [--run] [--keep=DIR]";
+
+    private static final int UNIFORM_PROGRAMS = 40;
+
+    private static final int MIXED_PROGRAMS = 20;
+
+    private static final String MIX = "functions:3,loops:2,conditionals:2,records:1,arrays:1";
+
+    public static void main(String[] args) throws IOException {
+        boolean run = false;
+        Path keep = null;
+        for (String arg : args) {
+            if (arg.equals("--run")) {
+                run = true;
+            } else if (arg.startsWith("--keep=")) {
+                keep = Paths.get(arg.substring("--keep=".length()));
+            } else {
+                System.err.println("Unknown option : " + arg);
+                System.err.println(USAGE);
+                System.exit(2);
+            }
+        }
+        Path directory = (keep == null) ? Files.createTempDirectory("peephole") : Files.createDirectories(keep);
+        List<String> files = generate(directory);
+        // The executed programs must not wait for an input
+        System.setIn(new ByteArrayInputStream(new byte[0]));
+        Driver.installRouting();
+        long[] generated = new long[2];
+        long[] optimized = new long[2];
+        long rewrites = 0;
+        List<String> different = new ArrayList<String>();
+        for (String file : files) {
+            Result before = compile(file, EnumSet.noneOf(PeepholeRule.class), run);
+            Result after = compile(file, EnumSet.allOf(PeepholeRule.class), run);
+            generated[0] += before.statistics.getCount(Counter.INSTRUCTIONS);
+            generated[1] += before.lines;
+            optimized[0] += after.statistics.getCount(Counter.INSTRUCTIONS);
+            optimized[1] += after.lines;
+            rewrites += after.statistics.getCount(Counter.PEEPHOLE_REWRITES);
+            if (!before.output.equals(after.output)) {
+                different.add(file);
+            }
+        }
+        if (keep == null) {
+            try (Stream<Path> entries = Files.list(directory)) {
+                for (Path entry : (Iterable<Path>) entries::iterator) {
+                    Files.delete(entry);
+                }
+            }
+            Files.delete(directory);
+        }
+        System.out.println(String.format("%-24s%16s%16s", "", "instructions", "TAM lines"));
+        System.out.println(String.format("%-24s%16d%16d", "without peephole", generated[0], generated[1]));
+        System.out.println(String.format("%-24s%16d%16d", "with peephole", optimized[0], optimized[1]));
+        System.out.println(String.format("%-24s%16.1f%16.1f", "reduction (%)", percent(generated[0], optimized[0]),
+                percent(generated[1], optimized[1])));
+        System.out.println(rewrites + " rewrites in " + files.size() + " programs");
+        if (run) {
+            for (String file : different) {
+                System.out.println("Different output : " + file);
+            }
+            System.out.println((files.size() - different.size()) + " of " + files.size() + " programs have the same output");
+        }
+        System.exit(different.isEmpty() ? 0 : 1);
+    }
+
+    /**
+     * Writes the reference programs.
+     * @return Names of the written files.
+     */
+    static List<String> generate(Path directory) throws IOException {
+        List<String> files = new ArrayList<String>();
+        for (int seed = 1; seed <= UNIFORM_PROGRAMS + MIXED_PROGRAMS; seed++) {
+            ProgramGenerator generator = (seed <= UNIFORM_PROGRAMS)
+                    ? new ProgramGenerator(seed, seed % 5, ProgramGenerator.uniformMix())
+                    : new ProgramGenerator(seed, seed % 8, ProgramGenerator.parseMix(MIX));
+            Path file = directory.resolve("g" + seed + ".txt");
+            try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                writer.write(generator.generate((seed <= UNIFORM_PROGRAMS) ? 2 * seed : 300));
+            }
+            files.add(file.toString());
+        }
+        return files;
+    }
+
+    private static class Result {
+
+        private CompilationStatistics statistics;
+
+        private long lines;
+
+        /**
+         * Success and output of the execution, without the code addresses of the machine errors.
+         */
+        private String output;
+
+    }
+
+    private static Result compile(String file, Set<PeepholeRule> rules, boolean run) throws IOException {
+        Result result = new Result();
+        result.statistics = new CompilationStatistics(file);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        boolean success;
+        Driver.route(output, OutputStream.nullOutputStream());
+        try {
+            success = Driver.compile(file, Emission.TEXT, run, result.statistics, null, null, 1, rules);
+        } finally {
+            Driver.route(null, null);
+        }
+        // A program that is run may fail in the machine, the failure is part of its output
+        if (!success && !run) {
+            throw new IllegalStateException("The reference program " + file + " was not compiled.");
+        }
+        Path tam = Paths.get(file.replaceFirst("\\.txt$", ".tam"));
+        try (Stream<String> lines = Files.lines(tam, StandardCharsets.UTF_8)) {
+            result.lines = lines.count();
+        }
+        result.output = run ? success + "\n" + output.toString("UTF-8").replaceAll("(?m) at [0-9]+$", "") : "";
+        return result;
+    }
+
+    private static double percent(long before, long after) {
+        return (before == 0) ? 0 : 100.0 * (before - after) / before;
+    }
+
+}
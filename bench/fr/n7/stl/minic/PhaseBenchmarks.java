@@ -0,0 +1,246 @@
+package fr.n7.stl.minic;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.ListTokenSource;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.tree.ParseTreeWalker;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import fr.n7.stl.minic.ast.Block;
+import fr.n7.stl.minic.ast.scope.SymbolTable;
+import fr.n7.stl.minic.parser.MiniCLexer;
+import fr.n7.stl.minic.parser.MiniCParser.ProgrammeContext;
+import fr.n7.stl.tam.ast.Fragment;
+import fr.n7.stl.tam.ast.Register;
+import fr.n7.stl.tam.ast.TAMFactory;
+import fr.n7.stl.tam.ast.impl.TAMFactoryImpl;
+
+/**
+ * Benchmarks of each phase of the compiler, on programs that grow along the axes of BenchmarkPrograms.
+ *
+ * The semantic passes and the code generation modify the AST, each of their invocations is done on
+ * a fresh AST prepared by the previous phases outside of the measure. The fused analysis used by the
+ * compiler is measured against the three separate passes it replaces.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class PhaseBenchmarks {
+
+    /**
+     * Source, tokens and parse tree of the benchmarked program.
+     */
+    @State(Scope.Thread)
+    public static class Program {
+
+        @Param({ "FUNCTIONS", "DEPTH", "EXPRESSION", "RECORD" })
+        public BenchmarkPrograms.Axis axis;
+
+        @Param({ "1", "10", "100" })
+        public int size;
+
+        String source;
+
+        List<? extends Token> tokens;
+
+        ProgrammeContext tree;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            this.source = BenchmarkPrograms.generate(this.axis, this.size);
+            CommonTokenStream stream = lex(this.source);
+            this.tokens = stream.getTokens();
+            this.tree = (ProgrammeContext) Driver.parse(stream, new ParsingErrorListener(), null);
+        }
+
+        /**
+         * @return A fresh AST of the program.
+         */
+        Block walk() {
+            new ParseTreeWalker().walk(new ASTBuilder("bench.tam"), this.tree);
+            return this.tree.main.b;
+        }
+
+    }
+
+    /**
+     * Fresh AST of the program on which the first passes are done.
+     */
+    public static class Prepared {
+
+        Block block;
+
+        SymbolTable scope;
+
+        /**
+         * @param _passes Number of passes done on the AST, in compilation order.
+         */
+        void prepare(Program _program, int _passes) {
+            this.block = _program.walk();
+            this.scope = new SymbolTable();
+            if (_passes > 0) {
+                this.block.collectAndPartialResolve(this.scope);
+            }
+            if (_passes > 1) {
+                this.block.completeResolve(this.scope);
+            }
+            if (_passes > 2) {
+                this.block.checkType();
+            }
+            if (_passes > 3) {
+                this.block.allocateMemory(Register.SB, 0);
+            }
+        }
+
+    }
+
+    @State(Scope.Thread)
+    public static class Walked extends Prepared {
+
+        @Setup(Level.Invocation)
+        public void setUp(Program _program) {
+            this.prepare(_program, 0);
+        }
+
+    }
+
+    @State(Scope.Thread)
+    public static class Collected extends Prepared {
+
+        @Setup(Level.Invocation)
+        public void setUp(Program _program) {
+            this.prepare(_program, 1);
+        }
+
+    }
+
+    @State(Scope.Thread)
+    public static class Resolved extends Prepared {
+
+        @Setup(Level.Invocation)
+        public void setUp(Program _program) {
+            this.prepare(_program, 2);
+        }
+
+    }
+
+    @State(Scope.Thread)
+    public static class Typed extends Prepared {
+
+        @Setup(Level.Invocation)
+        public void setUp(Program _program) {
+            this.prepare(_program, 3);
+        }
+
+    }
+
+    @State(Scope.Thread)
+    public static class Allocated extends Prepared {
+
+        @Setup(Level.Invocation)
+        public void setUp(Program _program) {
+            this.prepare(_program, 4);
+        }
+
+    }
+
+    /**
+     * Fragment of the program, emission does not modify it.
+     */
+    @State(Scope.Thread)
+    public static class Generated {
+
+        Fragment fragment;
+
+        @Setup(Level.Trial)
+        public void setUp(Program _program) {
+            Prepared allocated = new Prepared();
+            allocated.prepare(_program, 4);
+            TAMFactory factory = new TAMFactoryImpl();
+            this.fragment = allocated.block.getCode(factory);
+            this.fragment.add(factory.createHalt());
+        }
+
+    }
+
+    private static CommonTokenStream lex(String _source) {
+        MiniCLexer lexer = new MiniCLexer(CharStreams.fromString(_source));
+        lexer.removeErrorListeners();
+        CommonTokenStream tokens = new CommonTokenStream(lexer);
+        tokens.fill();
+        return tokens;
+    }
+
+    @Benchmark
+    public int lexing(Program _program) {
+        return lex(_program.source).size();
+    }
+
+    @Benchmark
+    public Object parsing(Program _program) {
+        return Driver.parse(new CommonTokenStream(new ListTokenSource(_program.tokens)), new ParsingErrorListener(),
+                null);
+    }
+
+    @Benchmark
+    public Block walk(Program _program) {
+        return _program.walk();
+    }
+
+    @Benchmark
+    public boolean analyse(Walked _state) {
+        return _state.block.analyse(_state.scope, null);
+    }
+
+    @Benchmark
+    public boolean collectAndPartialResolve(Walked _state) {
+        return _state.block.collectAndPartialResolve(_state.scope);
+    }
+
+    @Benchmark
+    public boolean completeResolve(Collected _state) {
+        return _state.block.completeResolve(_state.scope);
+    }
+
+    @Benchmark
+    public boolean checkType(Resolved _state) {
+        return _state.block.checkType();
+    }
+
+    @Benchmark
+    public Block allocateMemory(Typed _state) {
+        _state.block.allocateMemory(Register.SB, 0);
+        return _state.block;
+    }
+
+    @Benchmark
+    public Fragment getCode(Allocated _state) {
+        return _state.block.getCode(new TAMFactoryImpl());
+    }
+
+    @Benchmark
+    public int emission(Generated _state) throws IOException {
+        StringBuilder output = new StringBuilder();
+        _state.fragment.writeTo(output);
+        return output.length();
+    }
+
+}
@@ -0,0 +1,151 @@
+package fr.n7.stl.minic;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.stream.Stream;
+
+import fr.n7.stl.tam.ast.impl.ObjectProgram;
+import fr.n7.stl.tam.ast.impl.PeepholeRule;
+
+/**
+ * Compiles the regression programs of tests/programs, which must all be accepted, on one thread
+ * and with the functions compiled in parallel.
+ *
+ * Each program is then executed from its TAM text and from its object programs, without and with
+ * the symbol table, which must give the same output. The object programs are run from the written
+ * .tamx files (Machine.load) and must be written back identically once read.
+ *
+ * The programs are copied in a temporary directory, the generated files are not written next to
+ * them.
+ */
+public class ProgramCheck {
+
+    private static final String USAGE = "Usage : ProgramCheck [--programs=DIR]";
+
+    /**
+     * Message of the compiler printed before the execution of the program.
+     */
+    private static final String GENERATED = "Code generation finished";
+
+    public static void main(String[] args) throws IOException {
+        Path programs = Paths.get("tests", "programs");
+        for (String arg : args) {
+            if (arg.startsWith("--programs=")) {
+                programs = Paths.get(arg.substring("--programs=".length()));
+            } else {
+                System.err.println("Unknown option : " + arg);
+                System.err.println(USAGE);
+                System.exit(2);
+            }
+        }
+        List<Path> sources = new ArrayList<Path>();
+        try (Stream<Path> entries = Files.list(programs)) {
+            entries.filter(entry -> entry.toString().endsWith(".txt")).sorted().forEach(sources::add);
+        }
+        Path directory = Files.createTempDirectory("programs");
+        // The executed programs must not wait for an input
+        System.setIn(new ByteArrayInputStream(new byte[0]));
+        Driver.installRouting();
+        List<String> failures = new ArrayList<String>();
+        int rejected = 0;
+        for (Path source : sources) {
+            int count = failures.size();
+            Path file = Files.copy(source, directory.resolve(source.getFileName()));
+            for (int parallelism : new int[] { 1, 4 }) {
+                ByteArrayOutputStream errors = new ByteArrayOutputStream();
+                boolean compiled;
+                Driver.route(OutputStream.nullOutputStream(), errors);
+                try {
+                    compiled = Driver.compile(file.toString(), Emission.TEXT, false, null, null, null, parallelism,
+                            EnumSet.allOf(PeepholeRule.class));
+                } finally {
+                    Driver.route(null, null);
+                }
+                if (!compiled) {
+                    failures.add(source.getFileName() + " (" + parallelism + " threads)\n" + errors.toString("UTF-8"));
+                }
+            }
+            if (failures.size() == count) {
+                String failure = execute(file);
+                if (failure != null) {
+                    failures.add(source.getFileName() + " (execution)\n" + failure);
+                }
+            }
+            if (failures.size() > count) {
+                rejected++;
+            }
+        }
+        try (Stream<Path> entries = Files.list(directory)) {
+            for (Path entry : (Iterable<Path>) entries::iterator) {
+                Files.delete(entry);
+            }
+        }
+        Files.delete(directory);
+        for (String failure : failures) {
+            System.out.println("Rejected : " + failure);
+        }
+        System.out.println((sources.size() - rejected) + " of " + sources.size() + " programs compiled and executed");
+        System.exit(failures.isEmpty() ? 0 : 1);
+    }
+
+    /**
+     * Executes a program from its TAM text and from its object programs.
+     * @return Description of the difference, null if the outputs are the same.
+     */
+    private static String execute(Path file) throws IOException {
+        String text = run(file, Emission.TEXT);
+        for (Emission emission : new Emission[] { Emission.BINARY, Emission.BINARY_WITH_SYMBOLS }) {
+            String binary = run(file, emission);
+            if (!binary.equals(text)) {
+                return "Output of the TAM text :\n" + text + "\nOutput of the object program (" + emission + ") :\n"
+                        + binary;
+            }
+            Path object = Paths.get(file.toString().replaceFirst("\\.txt$", ".tamx"));
+            // The object program is not written when it cannot be assembled
+            if (!Files.exists(object)) {
+                continue;
+            }
+            byte[] written = Files.readAllBytes(object);
+            ObjectProgram program;
+            try (InputStream input = new ByteArrayInputStream(written)) {
+                program = ObjectProgram.readFrom(input);
+            }
+            ByteArrayOutputStream rewritten = new ByteArrayOutputStream();
+            program.writeTo(rewritten, emission == Emission.BINARY_WITH_SYMBOLS);
+            if (!Arrays.equals(written, rewritten.toByteArray())) {
+                return "The object program " + object.getFileName() + " (" + emission + ") is not written back identically.";
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return Success and output of the execution of the program. The messages of the compilation
+     * are left out, an object program that cannot be assembled is reported before its execution.
+     */
+    private static String run(Path file, Emission emission) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        boolean success;
+        Driver.route(output, output);
+        try {
+            success = Driver.compile(file.toString(), emission, true, null, null, null, 1,
+                    EnumSet.allOf(PeepholeRule.class));
+        } finally {
+            Driver.route(null, null);
+        }
+        String messages = output.toString("UTF-8");
+        int execution = messages.indexOf(GENERATED);
+        return success + "\n" + ((execution < 0) ? messages : messages.substring(execution + GENERATED.length()));
+    }
+
+}
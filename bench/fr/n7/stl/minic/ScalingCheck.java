@@ -0,0 +1,192 @@
+package fr.n7.stl.minic;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import fr.n7.stl.minic.CompilationStatistics.Counter;
+import fr.n7.stl.minic.CompilationStatistics.Phase;
+
+/**
+ * Compiles generated programs of growing sizes (1x to 1000x) and flags the phases whose time or
+ * allocated memory grows faster than n.log(n), n being the number of AST nodes of the program.
+ *
+ * Each size is compiled several times and the smallest measures are kept. The growth of a phase is
+ * compared from a reference size, to leave out the JIT and timer noise of the smallest programs.
+ */
+public class ScalingCheck {
+
+    private static final String USAGE = "Usage : ScalingCheck [--base=N] [--max=F] [--depth=D] [--seed=S] "
+            + "[--tolerance=T]";
+
+    private static final int[] FACTORS = { 1, 2, 5, 10, 20, 50, 100, 200, 500, 1000 };
+
+    private static final int REFERENCE = 10;
+
+    private static final int RUNS = 3;
+
+    /**
+     * Phases shorter than this time (in nanoseconds) at the largest size are not checked.
+     */
+    private static final long MINIMAL_NANOS = 5000000L;
+
+    /**
+     * Phases that allocate less than this number of bytes at the largest size are not checked.
+     */
+    private static final long MINIMAL_BYTES = 1 << 20;
+
+    public static void main(String[] args) throws IOException {
+        int base = 5;
+        int max = 1000;
+        int depth = 2;
+        long seed = 0;
+        double tolerance = 4.0;
+        try {
+            for (String arg : args) {
+                if (arg.startsWith("--base=")) {
+                    base = Integer.parseInt(arg.substring("--base=".length()));
+                } else if (arg.startsWith("--max=")) {
+                    max = Integer.parseInt(arg.substring("--max=".length()));
+                } else if (arg.startsWith("--depth=")) {
+                    depth = Integer.parseInt(arg.substring("--depth=".length()));
+                } else if (arg.startsWith("--seed=")) {
+                    seed = Long.parseLong(arg.substring("--seed=".length()));
+                } else if (arg.startsWith("--tolerance=")) {
+                    tolerance = Double.parseDouble(arg.substring("--tolerance=".length()));
+                } else {
+                    throw new IllegalArgumentException("Unknown option : " + arg);
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+        List<Integer> factors = new ArrayList<Integer>();
+        for (int factor : FACTORS) {
+            if (factor <= max) {
+                factors.add(factor);
+            }
+        }
+        Path directory = Files.createTempDirectory("scaling");
+        List<String> files = new ArrayList<String>();
+        for (int factor : factors) {
+            Path file = directory.resolve("x" + factor + ".txt");
+            try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                writer.write(new ProgramGenerator(seed, depth, ProgramGenerator.uniformMix()).generate(base * factor));
+            }
+            files.add(file.toString());
+        }
+        Driver.installRouting();
+        // Warm up the JIT on a middle size program
+        for (int run = 0; run < RUNS; run++) {
+            measure(files.get(Math.min(files.size() - 1, 3)));
+        }
+        List<CompilationStatistics> results = new ArrayList<CompilationStatistics>();
+        for (String file : files) {
+            CompilationStatistics best = null;
+            for (int run = 0; run < RUNS; run++) {
+                CompilationStatistics statistics = measure(file);
+                if (best == null || total(statistics) < total(best)) {
+                    best = statistics;
+                }
+            }
+            results.add(best);
+        }
+        for (String file : files) {
+            Files.delete(Paths.get(file));
+            Files.deleteIfExists(Paths.get(file.replaceFirst("\\.txt$", ".tam")));
+        }
+        Files.delete(directory);
+        print(factors, results);
+        boolean superlinear = false;
+        int reference = Math.max(0, factors.indexOf(REFERENCE));
+        for (Phase phase : Phase.values()) {
+            superlinear |= check(phase.getKey() + " time", factors, results, reference, tolerance, MINIMAL_NANOS,
+                    phase, true);
+            superlinear |= check(phase.getKey() + " memory", factors, results, reference, tolerance, MINIMAL_BYTES,
+                    phase, false);
+        }
+        System.exit(superlinear ? 1 : 0);
+    }
+
+    private static CompilationStatistics measure(String file) {
+        CompilationStatistics statistics = new CompilationStatistics(file);
+        Driver.route(OutputStream.nullOutputStream(), OutputStream.nullOutputStream());
+        try {
+            if (!Driver.compile(file, Emission.TEXT, false, statistics)) {
+                throw new IllegalStateException("The generated program " + file + " was not compiled.");
+            }
+        } finally {
+            Driver.route(null, null);
+        }
+        return statistics;
+    }
+
+    private static long total(CompilationStatistics statistics) {
+        long nanos = 0;
+        for (Phase phase : Phase.values()) {
+            nanos += statistics.getNanos(phase);
+        }
+        return nanos;
+    }
+
+    private static void print(List<Integer> factors, List<CompilationStatistics> results) {
+        StringBuilder header = new StringBuilder(String.format("%-32s", "size (AST nodes)"));
+        for (int index = 0; index < factors.size(); index++) {
+            header.append(String.format("%16s", factors.get(index) + "x ("
+                    + results.get(index).getCount(Counter.AST_NODES) + ")"));
+        }
+        System.out.println(header);
+        for (Phase phase : Phase.values()) {
+            StringBuilder time = new StringBuilder(String.format("%-32s", phase.getKey() + " (ms)"));
+            StringBuilder memory = new StringBuilder(String.format("%-32s", phase.getKey() + " (KiB)"));
+            for (CompilationStatistics statistics : results) {
+                time.append(String.format("%16.2f", statistics.getNanos(phase) / 1e6));
+                memory.append(String.format("%16d", statistics.getAllocatedBytes(phase) / 1024));
+            }
+            System.out.println(time);
+            System.out.println(memory);
+        }
+    }
+
+    /**
+     * Compares the growth of a measure from the reference size with the growth of n.log(n).
+     * @return true if the measure grows faster than n.log(n) times the tolerance.
+     */
+    private static boolean check(String name, List<Integer> factors, List<CompilationStatistics> results,
+            int reference, double tolerance, long minimum, Phase phase, boolean time) {
+        double base = value(results.get(reference), phase, time);
+        double last = value(results.get(results.size() - 1), phase, time);
+        if (base <= 0 || last < minimum) {
+            return false;
+        }
+        double referenceSize = nlogn(results.get(reference).getCount(Counter.AST_NODES));
+        boolean superlinear = false;
+        for (int index = reference + 1; index < results.size(); index++) {
+            double growth = value(results.get(index), phase, time) / base;
+            double expected = nlogn(results.get(index).getCount(Counter.AST_NODES)) / referenceSize;
+            if (growth > tolerance * expected) {
+                System.out.println(String.format("Superlinear : %s grows %.1f times from %dx to %dx, n.log(n) grows %.1f times",
+                        name, growth, factors.get(reference), factors.get(index), expected));
+                superlinear = true;
+            }
+        }
+        return superlinear;
+    }
+
+    private static double value(CompilationStatistics statistics, Phase phase, boolean time) {
+        return time ? statistics.getNanos(phase) : statistics.getAllocatedBytes(phase);
+    }
+
+    private static double nlogn(long n) {
+        return n * Math.log(Math.max(2, n));
+    }
+
+}
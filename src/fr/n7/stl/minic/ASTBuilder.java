@@ -2,13 +2,30 @@ package fr.n7.stl.minic;
 
 import fr.n7.stl.minic.parser.MiniCParserBaseListener;
 
+import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
+import org.antlr.v4.runtime.ParserRuleContext;
 import org.antlr.v4.runtime.Token;
+import fr.n7.stl.minic.CompilationStatistics.Counter;
+import fr.n7.stl.minic.CompilationStatistics.Phase;
 import fr.n7.stl.minic.ast.Block;
+import fr.n7.stl.minic.ast.SemanticsUndefinedException;
 import fr.n7.stl.minic.ast.expression.*;
 import fr.n7.stl.minic.ast.expression.accessible.*;
 import fr.n7.stl.minic.ast.expression.allocation.*;
@@ -20,7 +37,15 @@ import fr.n7.stl.minic.ast.scope.SymbolTable;
 import fr.n7.stl.minic.ast.type.*;
 import fr.n7.stl.minic.ast.type.declaration.*;
 import fr.n7.stl.tam.ast.*;
+import fr.n7.stl.tam.ast.impl.ObjectProgram;
+import fr.n7.stl.tam.ast.impl.PackedFragmentImpl;
+import fr.n7.stl.tam.ast.impl.PeepholeOptimizer;
+import fr.n7.stl.tam.ast.impl.PeepholeRule;
 import fr.n7.stl.tam.ast.impl.TAMFactoryImpl;
+import fr.n7.stl.tam.vm.Machine;
+import fr.n7.stl.tam.vm.MachineError;
+import fr.n7.stl.util.Diagnostics;
+import fr.n7.stl.util.Logger;
 import fr.n7.stl.util.Pair;
 import fr.n7.stl.minic.parser.MiniCParser;
 import fr.n7.stl.minic.parser.MiniCParser.*;
@@ -28,50 +53,270 @@ import fr.n7.stl.minic.parser.MiniCParser.*;
 public class ASTBuilder extends MiniCParserBaseListener {
 
     private String output_path;
+    private Emission emission;
+    private boolean run;
     private Block mainBlock;
     private String name;
+    private CompilationStatistics statistics;
+    private FragmentCache fragmentCache;
+    private int parallelism = 1;
+    private Set<PeepholeRule> peepholeRules = EnumSet.allOf(PeepholeRule.class);
+    private ParallelCompilation parallel;
+    private final Diagnostics diagnostics = new Diagnostics();
+
+    /**
+     * Identifiers of the program: all the occurrences of a name share the same string, the symbol
+     * tables then compare the names of the declarations and of their uses by reference.
+     */
+    private final Map<String, String> identifiers = new HashMap<String, String>();
 
     public ASTBuilder(String _output) {
+        this(_output, Emission.TEXT);
+    }
+
+    public ASTBuilder(String _output, Emission _emission) {
+        this(_output, _emission, false);
+    }
+
+    public ASTBuilder(String _output, Emission _emission, boolean _run) {
         this.output_path = _output;
+        this.emission = _emission;
+        this.run = _run;
+        TypeComputations.reset();
+        TypeUniverse.reset();
+    }
+
+    /**
+     * Measure the walk and the compile phases.
+     * @param _statistics Statistics of the compiled file, null if the phases are not measured.
+     */
+    public void setStatistics(CompilationStatistics _statistics) {
+        this.statistics = _statistics;
+    }
+
+    /**
+     * Compile the program incrementally: the code of the unchanged functions is taken from the cache.
+     * @param _cache Cache of the code of the functions, null to compile all the functions.
+     */
+    public void setFragmentCache(FragmentCache _cache) {
+        this.fragmentCache = _cache;
+    }
+
+    /**
+     * Analyse and generate the top-level functions on several threads, the output is the same.
+     * @param _parallelism Number of threads, 1 to compile the program on the calling thread.
+     */
+    public void setParallelism(int _parallelism) {
+        this.parallelism = _parallelism;
+    }
+
+    /**
+     * Rewrite the generated code with a peephole optimizer.
+     * @param _rules Rules of the optimizer, none to emit the code as generated.
+     */
+    public void setPeepholeRules(Set<PeepholeRule> _rules) {
+        this.peepholeRules = _rules;
+    }
+
+    /**
+     * @return Warnings and errors reported by the semantic analysis of the program.
+     */
+    public Diagnostics getDiagnostics() {
+        return this.diagnostics;
+    }
+
+    private String intern(String _identifier) {
+        String shared = this.identifiers.putIfAbsent(_identifier, _identifier);
+        return (shared == null) ? _identifier : shared;
+    }
+
+    private void start() {
+        if (this.statistics != null) {
+            this.statistics.start();
+        }
+    }
+
+    private void stop(Phase _phase) {
+        if (this.statistics != null) {
+            this.statistics.stop(_phase);
+        }
     }
 
     /**
      * Start the compile phase : collect, resolve, memory allocation and
      * code generation.
+     * @return true if the program was compiled (and executed when requested) without error.
      */
-    public void startCompilation() {
+    public boolean startCompilation() {
+        if (this.parallelism == 1) {
+            return compile();
+        }
+        this.parallel = new ParallelCompilation(this.mainBlock, this.parallelism);
+        try {
+            return compile();
+        } finally {
+            this.parallel.close();
+            this.parallel = null;
+        }
+    }
+
+    private boolean compile() {
         System.out.println(this.name + " " + this.mainBlock);
         SymbolTable tds = new SymbolTable();
-        if (this.mainBlock.collectAndPartialResolve(tds)) {
+        start();
+        boolean analysed = analyse(tds);
+        stop(Phase.ANALYSIS);
+        if (this.statistics != null) {
+            this.statistics.count(Counter.SYMBOLS, tds.getRegistrations());
+            if (this.parallel != null) {
+                this.statistics.count(Counter.SYMBOLS, this.parallel.getRegistrations());
+            }
+            this.statistics.count(Counter.ERRORS, this.diagnostics.getErrorCount());
+            this.statistics.count(Counter.WARNINGS, this.diagnostics.getWarningCount());
+        }
+        if (analysed) {
             System.out.println("collect succeeded");
-            if (this.mainBlock.completeResolve(tds)) {
-                System.out.println("Resolve succeeded.");
-                if (this.mainBlock.checkType()) {
-                    System.out.println("Type verification succeeded.");
-
-                    System.out.println("Code generation ...");
-                    this.mainBlock.allocateMemory(Register.SB, 0);
-                    try {
-                        PrintWriter writer = new PrintWriter(output_path);
-                        TAMFactory factory = new TAMFactoryImpl();
-                        Fragment f = this.mainBlock.getCode(factory);
-                        f.add(factory.createHalt());
-                        // f.append(this.mainBlock.getFunctions(factory));
-                        writer.println(f);
-                        writer.close();
-                    } catch (IOException e) {
-                        e.printStackTrace();
-                    }
-                    System.out.println("Code generation finished");
-
-                } else {
-                    System.out.println("Type verification failed.");
+            System.out.println("Resolve succeeded.");
+            System.out.println("Type verification succeeded.");
+            System.out.println("Code generation ...");
+            start();
+            if (this.parallel == null) {
+                this.mainBlock.foldConstants();
+            } else {
+                this.parallel.foldConstants();
+            }
+            List<FunctionDeclaration> deadFunctions = (this.parallel == null) ? this.mainBlock.eliminateDeadCode()
+                    : this.parallel.eliminateDeadCode();
+            stop(Phase.OPTIMIZATION);
+            if (this.statistics != null) {
+                this.statistics.count(Counter.DEAD_FUNCTIONS, deadFunctions.size());
+            }
+            start();
+            if (this.parallel == null) {
+                this.mainBlock.allocateMemory(Register.SB, 0);
+            } else {
+                this.parallel.allocateMemory(Register.SB, 0);
+            }
+            stop(Phase.ALLOCATE_MEMORY);
+            boolean success = true;
+            start();
+            TAMFactory factory = new TAMFactoryImpl();
+            Fragment f = (this.parallel == null) ? this.mainBlock.getCode(factory) : this.parallel.getCode(factory);
+            f.add(factory.createHalt());
+            if (this.fragmentCache != null) {
+                // The removed functions are cached as well, the next compilations skip their analysis
+                for (FunctionDeclaration function : deadFunctions) {
+                    function.storeCode(new TAMFactoryImpl());
+                }
+            }
+            stop(Phase.CODE_GENERATION);
+            start();
+            PeepholeOptimizer optimizer = new PeepholeOptimizer(this.peepholeRules);
+            f = optimizer.optimize(f);
+            stop(Phase.OPTIMIZATION);
+            if (this.statistics != null) {
+                this.statistics.count(Counter.PEEPHOLE_REWRITES, optimizer.getRewrites());
+                PackedFragmentImpl packed = PackedFragmentImpl.pack(f);
+                this.statistics.count(Counter.INSTRUCTIONS, packed.getSize());
+                this.statistics.count(Counter.LABELS, packed.getLabelCount());
+            }
+            start();
+            // f.append(this.mainBlock.getFunctions(factory));
+            if (this.emission == Emission.TEXT) {
+                // The TAM text is encoded in the buffer of the writer and streamed to the file
+                try (Writer writer = Channels.newWriter(
+                        FileChannel.open(Paths.get(output_path), StandardOpenOption.CREATE,
+                                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE),
+                        StandardCharsets.UTF_8)) {
+                    f.writeTo(writer);
+                    writer.append(System.lineSeparator());
+                } catch (IOException e) {
+                    e.printStackTrace();
+                    success = false;
                 }
             } else {
-                System.out.println("Resolve failed." + tds);
+                // Labels are resolved here, the object program is loaded as is by Machine.load
+                try {
+                    ObjectProgram program = ObjectProgram.assemble(f);
+                    try (OutputStream output = Files.newOutputStream(Paths.get(output_path))) {
+                        program.writeTo(output, this.emission == Emission.BINARY_WITH_SYMBOLS);
+                    }
+                } catch (IllegalArgumentException e) {
+                    System.err.println("Assembly failed : " + e.getMessage());
+                    success = false;
+                } catch (IOException e) {
+                    e.printStackTrace();
+                    success = false;
+                }
+            }
+            stop(Phase.EMISSION);
+            System.out.println("Code generation finished");
+            if (this.run) {
+                // The program is executed in this process, without going through the TAM tools, an
+                // object program is loaded from the written file
+                try {
+                    Machine machine = new Machine(System.out,
+                            new BufferedReader(new InputStreamReader(System.in)));
+                    if (this.emission == Emission.TEXT || !success) {
+                        machine.execute(f);
+                    } else {
+                        machine.load(Paths.get(output_path));
+                        machine.run();
+                    }
+                    System.out.println();
+                } catch (IllegalArgumentException | MachineError | IOException e) {
+                    System.out.println();
+                    System.err.println("Execution failed : " + e.getMessage());
+                    success = false;
+                }
             }
+            countTypes();
+            return success;
         } else {
-            System.out.println("Collect failed : " + tds);
+            System.out.println("Semantic analysis failed : " + tds);
+            countTypes();
+            return false;
+        }
+    }
+
+    /**
+     * Analyse the whole program, the diagnostics are collected then printed on the standard error.
+     * @param tds Global table.
+     * @return true if the program is correct.
+     */
+    private boolean analyse(SymbolTable tds) {
+        Logger.collect(this.diagnostics);
+        try {
+            boolean analysed = (this.parallel == null) ? this.mainBlock.analyse(tds, null)
+                    : this.parallel.analyse(tds, this.diagnostics);
+            return analysed && !this.diagnostics.hasErrors();
+        } catch (SemanticsUndefinedException e) {
+            if (!this.diagnostics.hasErrors()) {
+                throw e;
+            }
+            // A node left unresolved by a reported error has no semantics for the rest of the analysis
+            return false;
+        } finally {
+            Logger.collect(null);
+            this.diagnostics.printTo(System.err);
+        }
+    }
+
+    /**
+     * Count the expressions built by the walk and the computations of their types, each type is
+     * computed once whatever the number of uses.
+     */
+    private void countTypes() {
+        if (this.statistics != null) {
+            this.statistics.count(Counter.EXPRESSIONS, TypeComputations.getNodes());
+            this.statistics.count(Counter.TYPE_COMPUTATIONS, TypeComputations.getComputations());
+        }
+    }
+
+    @Override
+    public void exitEveryRule(ParserRuleContext ctx) {
+        if (this.statistics != null) {
+            this.statistics.count(Counter.AST_NODES, 1);
         }
     }
 
@@ -79,6 +324,12 @@ public class ASTBuilder extends MiniCParserBaseListener {
     public void exitProgramme(ProgrammeContext ctx) {
         this.mainBlock = ctx.main.b;
         this.name = ctx.name.getText();
+        if (this.fragmentCache != null) {
+            int cached = this.fragmentCache.attach(ctx.main);
+            if (this.statistics != null) {
+                this.statistics.count(Counter.CACHED_FUNCTIONS, cached);
+            }
+        }
     }
 
     @Override
@@ -202,9 +453,9 @@ public class ASTBuilder extends MiniCParserBaseListener {
     @Override
     public void exitEtiquettes(EtiquettesContext ctx) {
         List<LabelDeclaration> listLabels = new LinkedList<>();
-        listLabels.add(new LabelDeclaration(ctx.premiere.getText()));
+        listLabels.add(new LabelDeclaration(this.intern(ctx.premiere.getText())));
         for (Token lCtx : ctx.suite) {
-            listLabels.add(new LabelDeclaration(lCtx.getText()));
+            listLabels.add(new LabelDeclaration(this.intern(lCtx.getText())));
         }
         ctx.l = listLabels;
     }
@@ -216,12 +467,12 @@ public class ASTBuilder extends MiniCParserBaseListener {
 
     @Override
     public void exitTypeNamed(TypeNamedContext ctx) {
-        ctx.t = new NamedType(ctx.Identificateur().getText());
+        ctx.t = TypeUniverse.named(this.intern(ctx.Identificateur().getText()));
     }
 
     @Override
     public void exitTypeCouple(TypeCoupleContext ctx) {
-        ctx.t = new CoupleType(ctx.gauche.t, ctx.droite.t);
+        ctx.t = TypeUniverse.couple(ctx.gauche.t, ctx.droite.t);
     }
 
     @Override
@@ -232,17 +483,17 @@ public class ASTBuilder extends MiniCParserBaseListener {
                 listDeclarations.add(cCtx.f);
             }
         }
-        ctx.t = new RecordType(ctx.Identificateur().getText(), listDeclarations);
+        ctx.t = new RecordType(this.intern(ctx.Identificateur().getText()), listDeclarations);
     }
 
     @Override
     public void exitTypeEnum(TypeEnumContext ctx) {
-        ctx.t = new EnumerationType(ctx.Identificateur().getText(), ctx.etiquettes().l);
+        ctx.t = new EnumerationType(this.intern(ctx.Identificateur().getText()), ctx.etiquettes().l);
     }
 
     @Override
     public void exitAffectableIdentifiant(AffectableIdentifiantContext ctx) {
-        ctx.a = new VariableAssignment(ctx.ident.getText());
+        ctx.a = new VariableAssignment(this.intern(ctx.ident.getText()));
     }
 
     @Override
@@ -250,7 +501,7 @@ public class ASTBuilder extends MiniCParserBaseListener {
         if (ctx.atomique() != null) {
             ctx.a = new AssignableConversion(ctx.affectable().a, ctx.atomique().t);
         } else if (ctx.Identificateur() != null) {
-            ctx.a = new AssignableConversion(ctx.affectable().a, ctx.Identificateur().getText());
+            ctx.a = new AssignableConversion(ctx.affectable().a, this.intern(ctx.Identificateur().getText()));
         } else {
             throw new RuntimeException("Both atomic and Identificateur are null in rule affectableConversion");
         }
@@ -258,7 +509,7 @@ public class ASTBuilder extends MiniCParserBaseListener {
 
     @Override
     public void exitAffectableField(AffectableFieldContext ctx) {
-        ctx.a = new FieldAssignment(ctx.affectable().a, ctx.Identificateur().getText());
+        ctx.a = new FieldAssignment(ctx.affectable().a, this.intern(ctx.Identificateur().getText()));
     }
 
     @Override
@@ -294,7 +545,7 @@ public class ASTBuilder extends MiniCParserBaseListener {
 
     @Override
     public void exitExpressionAccess(ExpressionAccessContext ctx) {
-        ctx.e = new IdentifierAccess(ctx.Identificateur().getText());
+        ctx.e = new IdentifierAccess(this.intern(ctx.Identificateur().getText()));
     }
 
     @Override
@@ -349,7 +600,7 @@ public class ASTBuilder extends MiniCParserBaseListener {
 
     @Override
     public void exitExpressionField(ExpressionFieldContext ctx) {
-        ctx.e = new FieldAccess(ctx.expression().e, ctx.Identificateur().getText());
+        ctx.e = new FieldAccess(ctx.expression().e, this.intern(ctx.Identificateur().getText()));
     }
 
     @Override
@@ -384,7 +635,7 @@ public class ASTBuilder extends MiniCParserBaseListener {
 
     @Override
     public void exitExpressionFunctionCall(ExpressionFunctionCallContext ctx) {
-        ctx.e = new FunctionCall(ctx.Identificateur().getText(), ctx.arguments().l);
+        ctx.e = new FunctionCall(this.intern(ctx.Identificateur().getText()), ctx.arguments().l);
     }
 
     @Override
@@ -475,7 +726,7 @@ public class ASTBuilder extends MiniCParserBaseListener {
         if (ctx.atomique() != null) {
             ctx.e = new AccessibleConversion(ctx.expression().e, ctx.atomique().t);
         } else if (ctx.Identificateur() != null) {
-            ctx.e = new AccessibleConversion(ctx.expression().e, ctx.Identificateur().getText());
+            ctx.e = new AccessibleConversion(ctx.expression().e, this.intern(ctx.Identificateur().getText()));
         } else {
             throw new RuntimeException("Both atomic and Identificateur are null in rule ExpressionConversion");
         }
@@ -504,7 +755,7 @@ public class ASTBuilder extends MiniCParserBaseListener {
     @Override
     public void exitIdentifiant(IdentifiantContext ctx) {
         if (ctx.Identificateur() != null) {
-            ctx.id = new Pair<String, PartialType>(ctx.Identificateur().getText(), null);
+            ctx.id = new Pair<String, PartialType>(this.intern(ctx.Identificateur().getText()), null);
         } else if (ctx.ParentheseOuvrante() != null) {
             ctx.id = ctx.identifiant().id;
         } else {
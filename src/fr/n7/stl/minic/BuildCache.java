@@ -0,0 +1,209 @@
+package fr.n7.stl.minic;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import fr.n7.stl.tam.ast.impl.PeepholeRule;
+import fr.n7.stl.util.Logger;
+
+/**
+ * Directory that keeps the output of the compiled files, indexed by a SHA-256 digest of the source,
+ * of the version of the compiler and of the options that change the output. A file whose digest is
+ * in the cache is not compiled, the cached output is copied in place.
+ *
+ * Entries and outputs are written in a temporary file that is then moved in place, so that several
+ * builds can share the directory. The last use of an entry is its modification time: when the
+ * entries exceed the size of the cache, the least recently used ones are deleted.
+ */
+class BuildCache {
+
+    /**
+     * Version of the compiler: the implementation version and the date of its jar or of its newest class.
+     */
+    private static final String COMPILER_VERSION = version();
+
+    private final Path directory;
+
+    private final long maximalSize;
+
+    /**
+     * @param directory Directory of the entries, created if needed.
+     * @param maximalSize Size in bytes over which the least recently used entries are deleted.
+     * @throws IOException if the directory cannot be created.
+     */
+    BuildCache(Path directory, long maximalSize) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.maximalSize = maximalSize;
+    }
+
+    /**
+     * @param source Content of the compiled file.
+     * @param emission Kind of output.
+     * @param peephole Rules of the peephole optimizer, with the emission the only options that change
+     * the output.
+     * @return Key of the output of the file in the cache.
+     */
+    static String key(byte[] source, Emission emission, Set<PeepholeRule> peephole) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update((COMPILER_VERSION + '\0' + emission.name() + '\0').getBytes(StandardCharsets.UTF_8));
+            for (PeepholeRule rule : peephole) {
+                digest.update((rule.getKey() + '\0').getBytes(StandardCharsets.UTF_8));
+            }
+            digest.update((byte) 0);
+            digest.update(source);
+            StringBuilder key = new StringBuilder();
+            for (byte value : digest.digest()) {
+                key.append(Character.forDigit((value >> 4) & 0xF, 16)).append(Character.forDigit(value & 0xF, 16));
+            }
+            return key.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available.", e);
+        }
+    }
+
+    /**
+     * Copies the cached output of a file.
+     * @param key Key of the file.
+     * @param output Output file of the compilation.
+     * @return true if the output was in the cache and was copied, false if the file must be compiled.
+     */
+    boolean restore(String key, Path output) {
+        Path entry = this.directory.resolve(key);
+        try {
+            Path temporary = copy(entry, output);
+            if (temporary == null) {
+                return false;
+            }
+            Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+            return true;
+        } catch (NoSuchFileException e) {
+            // Evicted by another build since the copy
+            return true;
+        } catch (IOException e) {
+            Logger.warning("Cached output " + entry + " cannot be restored : " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Keeps the output of a compiled file, then evicts the least recently used entries if needed.
+     * Failures are reported but the compilation is still successful.
+     * @param key Key of the file.
+     * @param output Output file of the compilation.
+     */
+    void store(String key, Path output) {
+        try {
+            if (copy(output, this.directory.resolve(key)) != null) {
+                this.evict();
+            }
+        } catch (IOException e) {
+            Logger.warning("Output " + output + " cannot be cached : " + e.getMessage());
+        }
+    }
+
+    /**
+     * Copies a file through a temporary file in the destination directory, moved at the end.
+     * @return The destination, null if the source does not exist.
+     */
+    private static Path copy(Path source, Path destination) throws IOException {
+        Path parent = destination.toAbsolutePath().getParent();
+        Path temporary = Files.createTempFile(parent, destination.getFileName().toString(), ".tmp");
+        try {
+            try {
+                Files.copy(source, temporary, StandardCopyOption.REPLACE_EXISTING);
+            } catch (NoSuchFileException e) {
+                return null;
+            }
+            try {
+                Files.move(temporary, destination, StandardCopyOption.ATOMIC_MOVE,
+                        StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, destination, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return destination;
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Deletes the least recently used entries until the entries fit in the size of the cache.
+     * Temporary files of the other builds are left alone.
+     */
+    private void evict() throws IOException {
+        List<Path> entries = new ArrayList<Path>();
+        List<BasicFileAttributes> attributes = new ArrayList<BasicFileAttributes>();
+        long size = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(this.directory)) {
+            for (Path file : files) {
+                if (!file.getFileName().toString().endsWith(".tmp")) {
+                    try {
+                        BasicFileAttributes attribute = Files.readAttributes(file, BasicFileAttributes.class);
+                        entries.add(file);
+                        attributes.add(attribute);
+                        size += attribute.size();
+                    } catch (NoSuchFileException e) {
+                        // Evicted by another build
+                    }
+                }
+            }
+        }
+        if (size <= this.maximalSize) {
+            return;
+        }
+        List<Integer> order = new ArrayList<Integer>();
+        for (int i = 0; i < entries.size(); i++) {
+            order.add(i);
+        }
+        order.sort(Comparator.comparing(i -> attributes.get(i).lastModifiedTime()));
+        for (int i : order) {
+            if (size <= this.maximalSize) {
+                break;
+            }
+            Files.deleteIfExists(entries.get(i));
+            size -= attributes.get(i).size();
+        }
+    }
+
+    private static String version() {
+        String version = Driver.class.getPackage().getImplementationVersion();
+        CodeSource source = Driver.class.getProtectionDomain().getCodeSource();
+        try {
+            if (source != null) {
+                Path location = Paths.get(source.getLocation().toURI());
+                long modified = Files.getLastModifiedTime(location).toMillis();
+                if (Files.isDirectory(location)) {
+                    // Classes are compiled again one by one: the newest one dates the compiler
+                    try (Stream<Path> files = Files.walk(location)) {
+                        modified = files.filter(file -> file.toString().endsWith(".class"))
+                                .mapToLong(file -> file.toFile().lastModified()).max().orElse(modified);
+                    }
+                }
+                version = version + " " + modified;
+            }
+        } catch (IOException | URISyntaxException | IllegalArgumentException e) {
+            // The implementation version alone identifies the compiler
+        }
+        return version;
+    }
+
+}
@@ -0,0 +1,24 @@
+package fr.n7.stl.minic;
+
+/**
+ * Observer of the compilation of a file, registered on its CompilationStatistics.
+ */
+public interface CompilationListener {
+
+    /**
+     * Called at the end of each measured phase.
+     * @param _statistics Statistics of the compiled file.
+     * @param _phase Finished phase.
+     * @param _nanos Wall time of the phase in nanoseconds.
+     * @param _bytes Bytes allocated by the compiling thread during the phase, -1 if the JVM does not measure it.
+     */
+    public void phaseFinished(CompilationStatistics _statistics, CompilationStatistics.Phase _phase, long _nanos,
+            long _bytes);
+
+    /**
+     * Called once the compilation of the file is finished, successfully or not.
+     * @param _statistics Statistics of the compiled file.
+     */
+    public void compilationFinished(CompilationStatistics _statistics);
+
+}
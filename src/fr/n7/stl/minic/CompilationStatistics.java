@@ -0,0 +1,204 @@
+package fr.n7.stl.minic;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.text.StringEscapeUtils;
+
+/**
+ * Wall time and allocated bytes of each phase of the compilation of one file, and counts of the
+ * compiled elements. The phases of a file are measured one after the other by the compiling thread.
+ */
+public class CompilationStatistics {
+
+    /**
+     * Measured phases, in compilation order.
+     */
+    public enum Phase {
+        LEXING("lexing"),
+        PARSING("parsing"),
+        WALK("walk"),
+        /** Fused collect, resolve and type checking of each instruction. */
+        ANALYSIS("analysis"),
+        /** Rewrites of the analysed program that keep its behaviour, such as constant folding. */
+        OPTIMIZATION("optimization"),
+        ALLOCATE_MEMORY("allocateMemory"),
+        CODE_GENERATION("getCode"),
+        EMISSION("emission");
+
+        private final String key;
+
+        private Phase(String _key) {
+            this.key = _key;
+        }
+
+        /**
+         * @return Name of the phase in the JSON report.
+         */
+        public String getKey() {
+            return this.key;
+        }
+    }
+
+    /**
+     * Counted elements.
+     */
+    public enum Counter {
+        /** Rule nodes of the parse tree reduced by the ASTBuilder, each one builds at most one AST node. */
+        AST_NODES("astNodes"),
+        /** Declarations registered in the symbol tables by the semantic analysis. */
+        SYMBOLS("symbols"),
+        /** Instructions of the generated fragment. */
+        INSTRUCTIONS("instructions"),
+        /** Labels defined in the generated fragment. */
+        LABELS("labels"),
+        /** Parses done again in full LL mode after a failure of the SLL mode. */
+        LL_FALLBACKS("llFallbacks"),
+        /** Functions whose analysis was skipped because their code was in the incremental cache. */
+        CACHED_FUNCTIONS("cachedFunctions"),
+        /** Expression nodes built by the walk and the resolution, literal values excepted. */
+        EXPRESSIONS("expressions"),
+        /** Types of expressions computed, at most one per expression node: the types are memoized. */
+        TYPE_COMPUTATIONS("typeComputations"),
+        /** Errors reported by the semantic analysis, which reports all of them. */
+        ERRORS("errors"),
+        /** Warnings reported by the semantic analysis. */
+        WARNINGS("warnings"),
+        /** Top-level functions removed because the program never calls them. */
+        DEAD_FUNCTIONS("deadFunctions"),
+        /** Windows of instructions rewritten by the peephole optimizer. */
+        PEEPHOLE_REWRITES("peepholeRewrites");
+
+        private final String key;
+
+        private Counter(String _key) {
+            this.key = _key;
+        }
+
+        /**
+         * @return Name of the counter in the JSON report.
+         */
+        public String getKey() {
+            return this.key;
+        }
+    }
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private final String file;
+
+    private final long[] nanos;
+
+    private final long[] bytes;
+
+    private final long[] counters;
+
+    private final List<CompilationListener> listeners;
+
+    private long startNanos;
+
+    private long startBytes;
+
+    public CompilationStatistics(String _file) {
+        this.file = _file;
+        this.nanos = new long[Phase.values().length];
+        this.bytes = new long[Phase.values().length];
+        this.counters = new long[Counter.values().length];
+        this.listeners = new ArrayList<CompilationListener>();
+    }
+
+    public String getFile() {
+        return this.file;
+    }
+
+    public void addListener(CompilationListener _listener) {
+        this.listeners.add(_listener);
+    }
+
+    /**
+     * Starts the measure of a phase, it is ended by stop.
+     */
+    public void start() {
+        this.startBytes = allocatedBytes();
+        this.startNanos = System.nanoTime();
+    }
+
+    /**
+     * Ends the measure of the phase started by the last call of start.
+     * @param _phase Measured phase, its time and bytes are added to the previous measures.
+     */
+    public void stop(Phase _phase) {
+        long _nanos = System.nanoTime() - this.startNanos;
+        long _bytes = allocatedBytes();
+        _bytes = (_bytes < 0) ? -1 : (_bytes - this.startBytes);
+        this.nanos[_phase.ordinal()] += _nanos;
+        this.bytes[_phase.ordinal()] = (_bytes < 0) ? -1 : (this.bytes[_phase.ordinal()] + _bytes);
+        for (CompilationListener _listener : this.listeners) {
+            _listener.phaseFinished(this, _phase, _nanos, _bytes);
+        }
+    }
+
+    public void count(Counter _counter, long _value) {
+        this.counters[_counter.ordinal()] += _value;
+    }
+
+    /**
+     * Notifies the listeners that the compilation of the file is finished.
+     */
+    public void finish() {
+        for (CompilationListener _listener : this.listeners) {
+            _listener.compilationFinished(this);
+        }
+    }
+
+    public long getNanos(Phase _phase) {
+        return this.nanos[_phase.ordinal()];
+    }
+
+    /**
+     * @return Bytes allocated by the compiling thread during the phase, -1 if the JVM does not measure it.
+     */
+    public long getAllocatedBytes(Phase _phase) {
+        return this.bytes[_phase.ordinal()];
+    }
+
+    public long getCount(Counter _counter) {
+        return this.counters[_counter.ordinal()];
+    }
+
+    /**
+     * @return JSON object with the measures of the phases and the counters.
+     */
+    public String toJson() {
+        StringBuilder _json = new StringBuilder();
+        _json.append("{\"file\":\"").append(StringEscapeUtils.escapeJson(this.file)).append("\",\"phases\":{");
+        for (Phase _phase : Phase.values()) {
+            if (_phase.ordinal() > 0) {
+                _json.append(',');
+            }
+            _json.append('"').append(_phase.getKey()).append("\":{\"nanos\":").append(this.getNanos(_phase))
+                    .append(",\"allocatedBytes\":").append(this.getAllocatedBytes(_phase)).append('}');
+        }
+        _json.append("},\"counters\":{");
+        for (Counter _counter : Counter.values()) {
+            if (_counter.ordinal() > 0) {
+                _json.append(',');
+            }
+            _json.append('"').append(_counter.getKey()).append("\":").append(this.getCount(_counter));
+        }
+        return _json.append("}}").toString();
+    }
+
+    private static long allocatedBytes() {
+        if (THREADS instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean _threads = (com.sun.management.ThreadMXBean) THREADS;
+            if (_threads.isThreadAllocatedMemorySupported() && _threads.isThreadAllocatedMemoryEnabled()) {
+                return _threads.getCurrentThreadAllocatedBytes();
+            }
+        }
+        return -1;
+    }
+
+}
@@ -0,0 +1,226 @@
+package fr.n7.stl.minic;
+
+import org.antlr.v4.runtime.*;
+import org.antlr.v4.runtime.tree.*;
+
+import fr.n7.stl.minic.parser.MiniCLexer;
+import fr.n7.stl.util.Logger;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Long lived compilation server: the JVM, the ANTLR lexer and parser (whose DFA cache is shared
+ * by all the parsers) and the compiler classes are loaded and warmed once for many compilations.
+ *
+ * The requests are read on the standard input or on a local socket, one request per line:
+ * the working directory of the client then the Driver arguments, separated by tabulations.
+ * The response is the output of the compilation, each line prefixed by "out " or "err ",
+ * followed by a line "exit " and the exit status of the compilation.
+ */
+class Daemon {
+
+    static final int DEFAULT_PORT = 4321;
+
+    private static final String SEPARATOR = "\t";
+
+    /**
+     * Small program that exercises the lexer and the parser when the daemon starts.
+     */
+    private static final String WARM_UP = "warmup {\n"
+            + "  const int n = 10;\n"
+            + "  typedef struct point { int x; int y; } Point;\n"
+            + "  int twice( int a ) { return a * 2; }\n"
+            + "  int i = 0;\n"
+            + "  int *p = new int();\n"
+            + "  int t[] = new int[3];\n"
+            + "  boolean b = (! false) || (i <= n);\n"
+            + "  while (i < n) {\n"
+            + "    if ((i % 2) == 0) { t[0] = twice(i); } else { i = i - 1; }\n"
+            + "    i = i + 1;\n"
+            + "  }\n"
+            + "  char c = 'a';\n"
+            + "  String s = \"warm\";\n"
+            + "  print s;\n"
+            + "}\n";
+
+    /**
+     * Runs the daemon: Driver --daemon [--port=P]. Without port, the requests are read on the
+     * standard input until its end.
+     * @return Exit status: 0 when the requests end, 2 for invalid options as Driver.execute.
+     */
+    static int main(String[] args) throws IOException {
+        Integer port = null;
+        try {
+            for (String arg : Arrays.asList(args).subList(1, args.length)) {
+                if (arg.startsWith("--port=")) {
+                    port = parsePort(arg);
+                } else {
+                    throw new IllegalArgumentException("Unknown option : " + arg);
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            return 2;
+        }
+        PrintWriter console = new PrintWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), true);
+        BufferedReader requests = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+        // The compiled programs executed with --run must not read the requests
+        System.setIn(new ByteArrayInputStream(new byte[0]));
+        Driver.installRouting();
+        warmUp();
+        if (port == null) {
+            serve(requests, console);
+        } else {
+            listen(port);
+        }
+        return 0;
+    }
+
+    private static int parsePort(String arg) {
+        try {
+            return Integer.parseInt(arg.substring("--port=".length()));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid port : " + arg);
+        }
+    }
+
+    private static void warmUp() {
+        ParsingErrorListener errorListener = new ParsingErrorListener();
+        MiniCLexer lexer = new MiniCLexer(CharStreams.fromString(WARM_UP));
+        lexer.removeErrorListeners();
+        lexer.addErrorListener(errorListener);
+        ParseTree tree = Driver.parse(new CommonTokenStream(lexer), errorListener, null);
+        new ParseTreeWalker().walk(new ASTBuilder("warmup.tam"), tree);
+    }
+
+    /**
+     * Handles the requests of a stream until its end.
+     */
+    private static void serve(BufferedReader requests, Writer responses) throws IOException {
+        String request;
+        while ((request = requests.readLine()) != null) {
+            if (!request.isEmpty()) {
+                responses.write(handle(request));
+                responses.flush();
+            }
+        }
+    }
+
+    /**
+     * Handles the connections on a local socket, each connection on its own thread.
+     */
+    private static void listen(int port) throws IOException {
+        ExecutorService executor = Executors.newCachedThreadPool();
+        try (ServerSocket server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress())) {
+            System.out.println("Compilation daemon listening on port " + server.getLocalPort());
+            while (true) {
+                Socket socket = server.accept();
+                executor.execute(() -> {
+                    try (Socket connection = socket) {
+                        serve(new BufferedReader(new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8)),
+                                new OutputStreamWriter(connection.getOutputStream(), StandardCharsets.UTF_8));
+                    } catch (IOException e) {
+                        e.printStackTrace();
+                    }
+                });
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Compiles the files of a request, the output of the compilation is captured in the response.
+     */
+    private static String handle(String request) {
+        String[] fields = request.split(SEPARATOR, -1);
+        String[] args = Arrays.copyOfRange(fields, 1, fields.length);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        int status;
+        Driver.route(out, err);
+        try {
+            status = Driver.execute(Paths.get(fields[0]), args);
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            status = 1;
+        } finally {
+            Driver.route(null, null);
+        }
+        StringBuilder response = new StringBuilder();
+        prefix(response, "out ", out.toString());
+        prefix(response, "err ", err.toString());
+        response.append("exit ").append(status).append('\n');
+        return response.toString();
+    }
+
+    private static void prefix(StringBuilder response, String prefix, String text) {
+        if (!text.isEmpty()) {
+            for (String line : text.split("\r?\n", -1)) {
+                response.append(prefix).append(line).append('\n');
+            }
+            // The last element is empty when the text ends with a new line
+            if (text.endsWith("\n")) {
+                response.setLength(response.length() - prefix.length() - 1);
+            }
+        }
+    }
+
+    /**
+     * Thin client: Driver --client [--port=P] arguments. Forwards the arguments and the working
+     * directory to the daemon and prints its response. The files are compiled locally when no
+     * daemon is listening.
+     * @return The exit status of the compilation.
+     */
+    static int forward(String[] args) throws IOException {
+        int port = DEFAULT_PORT;
+        int first = 1;
+        if (args.length > 1 && args[1].startsWith("--port=")) {
+            port = parsePort(args[1]);
+            first = 2;
+        }
+        String[] arguments = Arrays.copyOfRange(args, first, args.length);
+        StringBuilder request = new StringBuilder(Paths.get("").toAbsolutePath().toString());
+        for (String argument : arguments) {
+            request.append(SEPARATOR).append(argument);
+        }
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            Writer writer = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+            writer.write(request.append('\n').toString());
+            writer.flush();
+            BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith("out ")) {
+                    System.out.println(line.substring(4));
+                } else if (line.startsWith("err ")) {
+                    System.err.println(line.substring(4));
+                } else if (line.startsWith("exit ")) {
+                    return Integer.parseInt(line.substring(5));
+                }
+            }
+            System.err.println("Connection to the compilation daemon lost.");
+            return 1;
+        } catch (ConnectException e) {
+            Logger.warning("No compilation daemon on port " + port + ", compiling locally.");
+            return Driver.execute(Paths.get(""), arguments);
+        }
+    }
+
+}
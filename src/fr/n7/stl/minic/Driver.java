@@ -1,50 +1,480 @@
 package fr.n7.stl.minic;
 
 import org.antlr.v4.runtime.*;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
 import org.antlr.v4.runtime.tree.*;
 
 import fr.n7.stl.minic.parser.MiniCLexer;
 import fr.n7.stl.minic.parser.MiniCParser;
 
+import fr.n7.stl.minic.CompilationStatistics.Counter;
+import fr.n7.stl.minic.CompilationStatistics.Phase;
+import fr.n7.stl.tam.ast.impl.PeepholeRule;
+import fr.n7.stl.util.BlockSemanticsError;
+
+import java.io.ByteArrayOutputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 class Driver {
 
+    private static final String USAGE = "Usage : Driver [--emit=text|--emit=binary [--symbols]] [--run] [-j N] [--parallel[=N]]\n"
+            + "               [--stats[=report.json]] [--incremental=DIR] [--cache=DIR [--cache-size=MiB]]\n"
+            + "               [--peephole=none|rule,...] files...\n"
+            + "        Driver --watch [--debounce=MS] [options] files or directories...\n"
+            + "        Driver --daemon [--port=P]\n"
+            + "        Driver --client [--port=P] [options] files...";
+
+    /**
+     * Size of the build cache in bytes when it is not provided.
+     */
+    private static final long DEFAULT_CACHE_SIZE = 256L << 20;
+
+    private static RoutedOutputStream routedOut;
+    private static RoutedOutputStream routedErr;
+
+    /**
+     * Number of programs parsed again in full LL mode because the SLL mode failed.
+     */
+    private static final AtomicInteger fallbacks = new AtomicInteger();
+
     public static void main(String[] args) throws Exception {
-        String[] files;
-        if (args.length == 0) {
-            System.out.println("Using default file : input.txt");
-            files = new String[1];
-            files[0] = "input.txt";
+        if (args.length > 0 && args[0].equals("--daemon")) {
+            int status = Daemon.main(args);
+            if (status != 0) {
+                System.exit(status);
+            }
+        } else if (args.length > 0 && args[0].equals("--watch")) {
+            int status = Watcher.main(args);
+            if (status != 0) {
+                System.exit(status);
+            }
+        } else if (args.length > 0 && args[0].equals("--client")) {
+            System.exit(Daemon.forward(args));
         } else {
-            files = args;
+            int status = execute(Paths.get(""), args);
+            if (status != 0) {
+                System.exit(status);
+            }
         }
-        for (String name : files) {
-            String fname = name.split("\\.")[0];
-            try {
-                CharStream input = CharStreams.fromFileName(name);
-                ParsingErrorListener errorListener = new ParsingErrorListener();
-                MiniCLexer lexer = new MiniCLexer(input);
-                lexer.addErrorListener(errorListener);
-                CommonTokenStream tokens = new CommonTokenStream(lexer);
-                MiniCParser parser = new MiniCParser(tokens);
-                parser.addErrorListener(errorListener);
-                ParseTree tree = parser.programme();
-                ParseTreeWalker walker = new ParseTreeWalker();
-                ASTBuilder astBuilder = new ASTBuilder(fname + ".tam");
-                walker.walk(astBuilder, tree);
-                if (errorListener.hasError()) {
-                    System.err.println("Errors in parsing phase.");
+    }
+
+    /**
+     * Compiles the files according to the options.
+     * @param directory Directory used to resolve the relative file names.
+     * @param args Options and files.
+     * @return Exit status: 0 if all the files were compiled, 1 if some failed, 2 for invalid options.
+     */
+    static int execute(Path directory, String[] args) {
+        Emission emission = Emission.TEXT;
+        boolean symbols = false;
+        boolean run = false;
+        int jobs = 1;
+        int parallelism = 1;
+        boolean stats = false;
+        String report = null;
+        FragmentCache incremental = null;
+        Path cacheDirectory = null;
+        long cacheSize = DEFAULT_CACHE_SIZE;
+        Set<PeepholeRule> peephole = EnumSet.allOf(PeepholeRule.class);
+        List<String> files = new ArrayList<String>();
+        try {
+            for (int i = 0; i < args.length; i++) {
+                String arg = args[i];
+                if (arg.equals("--emit=text")) {
+                    emission = Emission.TEXT;
+                } else if (arg.equals("--emit=binary")) {
+                    emission = Emission.BINARY;
+                } else if (arg.equals("--symbols")) {
+                    symbols = true;
+                } else if (arg.equals("--run")) {
+                    run = true;
+                } else if (arg.equals("--stats")) {
+                    stats = true;
+                } else if (arg.startsWith("--stats=")) {
+                    stats = true;
+                    report = directory.resolve(arg.substring("--stats=".length())).toString();
+                } else if (arg.startsWith("--incremental=")) {
+                    Path cache = directory.resolve(arg.substring("--incremental=".length()));
+                    try {
+                        incremental = new FragmentCache(cache);
+                    } catch (IOException e) {
+                        throw new IllegalArgumentException("Invalid incremental cache directory : " + cache);
+                    }
+                } else if (arg.startsWith("--cache=")) {
+                    cacheDirectory = directory.resolve(arg.substring("--cache=".length()));
+                } else if (arg.startsWith("--cache-size=")) {
+                    cacheSize = parseCacheSize(arg.substring("--cache-size=".length()));
+                } else if (arg.equals("-j") && i + 1 < args.length) {
+                    jobs = parseJobs(args[++i]);
+                } else if (arg.startsWith("-j") && arg.length() > 2) {
+                    jobs = parseJobs(arg.substring(2));
+                } else if (arg.equals("--parallel")) {
+                    parallelism = Runtime.getRuntime().availableProcessors();
+                } else if (arg.startsWith("--parallel=")) {
+                    parallelism = parseJobs(arg.substring("--parallel=".length()));
+                } else if (arg.startsWith("--peephole=")) {
+                    peephole = parsePeephole(arg.substring("--peephole=".length()));
+                } else if (arg.startsWith("-")) {
+                    throw new IllegalArgumentException("Unknown option : " + arg);
                 } else {
-                    astBuilder.startCompilation();
+                    files.add(directory.resolve(arg).toString());
                 }
-            } catch (FileNotFoundException e) {
-                System.err.println("File : " + name + " not found");
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            return 2;
+        }
+        if (symbols && emission == Emission.BINARY) {
+            emission = Emission.BINARY_WITH_SYMBOLS;
+        }
+        BuildCache cache = null;
+        // A program that is run must be compiled, the cache only keeps its output
+        if (cacheDirectory != null && !run) {
+            try {
+                cache = new BuildCache(cacheDirectory, cacheSize);
             } catch (IOException e) {
-                e.printStackTrace();
+                System.err.println("Invalid build cache directory : " + cacheDirectory);
+                System.err.println(USAGE);
+                return 2;
+            }
+        }
+        if (files.isEmpty()) {
+            System.out.println("Using default file : input.txt");
+            files.add(directory.resolve("input.txt").toString());
+        }
+        List<CompilationStatistics> statistics = new ArrayList<CompilationStatistics>();
+        for (String name : files) {
+            statistics.add(stats ? new CompilationStatistics(name) : null);
+        }
+        boolean success;
+        if (jobs == 1 || files.size() == 1) {
+            success = true;
+            for (int i = 0; i < files.size(); i++) {
+                success &= compile(files.get(i), emission, run, statistics.get(i), incremental, cache, parallelism,
+                        peephole);
+            }
+        } else {
+            success = compile(files, emission, run, jobs, statistics, incremental, cache, parallelism, peephole);
+        }
+        if (stats && !report(statistics, report)) {
+            success = false;
+        }
+        return success ? 0 : 1;
+    }
+
+    /**
+     * Writes the statistics of the compiled files as a JSON array.
+     * @param report Name of the report file, null to write it on the standard error.
+     * @return true if the report was written.
+     */
+    private static boolean report(List<CompilationStatistics> statistics, String report) {
+        StringBuilder json = new StringBuilder("[");
+        for (CompilationStatistics file : statistics) {
+            json.append((json.length() > 1) ? ",\n" : "\n").append(file.toJson());
+        }
+        json.append("\n]");
+        if (report == null) {
+            System.err.println(json);
+            return true;
+        }
+        try (Writer writer = Files.newBufferedWriter(Paths.get(report), StandardCharsets.UTF_8)) {
+            writer.write(json.append(System.lineSeparator()).toString());
+            return true;
+        } catch (IOException e) {
+            System.err.println("Statistics report " + report + " cannot be written : " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * @return Name of the file without its last extension, the whole name if it has none.
+     */
+    private static String stripLastExtension(Path file) {
+        String name = file.toString();
+        int dot = name.lastIndexOf('.');
+        return (dot > 0) ? name.substring(0, dot) : name;
+    }
+
+    private static long parseCacheSize(String value) {
+        try {
+            long size = Long.parseLong(value);
+            if (size > 0) {
+                return size << 20;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new IllegalArgumentException("Invalid build cache size : " + value);
+    }
+
+    /**
+     * @param value "none" or the keys of the rules separated by commas.
+     * @return Rules of the peephole optimizer.
+     */
+    private static Set<PeepholeRule> parsePeephole(String value) {
+        Set<PeepholeRule> rules = EnumSet.noneOf(PeepholeRule.class);
+        if (value.equals("none")) {
+            return rules;
+        }
+        for (String key : value.split(",")) {
+            PeepholeRule rule = PeepholeRule.forKey(key);
+            if (rule == null) {
+                throw new IllegalArgumentException("Unknown peephole rule : " + key);
+            }
+            rules.add(rule);
+        }
+        return rules;
+    }
+
+    private static int parseJobs(String value) {
+        try {
+            int jobs = Integer.parseInt(value);
+            if (jobs > 0) {
+                return jobs;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new IllegalArgumentException("Invalid number of jobs : " + value);
+    }
+
+    /**
+     * Replaces System.out and System.err by streams that each thread can route to its own buffer.
+     */
+    static synchronized void installRouting() {
+        if (routedOut == null) {
+            routedOut = new RoutedOutputStream(System.out);
+            routedErr = new RoutedOutputStream(System.err);
+            System.setOut(new PrintStream(routedOut, true));
+            System.setErr(new PrintStream(routedErr, true));
+        }
+    }
+
+    /**
+     * Routes System.out and System.err for the current thread, installRouting must have been called.
+     * @param out Stream that receives System.out, null to restore the console.
+     * @param err Stream that receives System.err, null to restore the console.
+     */
+    static void route(OutputStream out, OutputStream err) {
+        if (out == null) {
+            System.out.flush();
+            System.err.flush();
+        }
+        routedOut.route(out);
+        routedErr.route(err);
+    }
+
+    /**
+     * Compiles the files on a pool of threads. Each file is compiled by its own lexer, parser and
+     * AST builder, its diagnostics are buffered and printed in the order of the files.
+     * @return true if all the files were compiled without error.
+     */
+    private static boolean compile(List<String> files, Emission emission, boolean run, int jobs,
+            List<CompilationStatistics> statistics, FragmentCache incremental, BuildCache cache, int parallelism,
+            Set<PeepholeRule> peephole) {
+        installRouting();
+        // Compilation is CPU bound: the pool is bounded by the requested number of jobs
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(jobs, files.size()));
+        try {
+            List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+            List<ByteArrayOutputStream> outputs = new ArrayList<ByteArrayOutputStream>();
+            List<ByteArrayOutputStream> errors = new ArrayList<ByteArrayOutputStream>();
+            for (int i = 0; i < files.size(); i++) {
+                String name = files.get(i);
+                CompilationStatistics file = statistics.get(i);
+                ByteArrayOutputStream output = new ByteArrayOutputStream();
+                ByteArrayOutputStream error = new ByteArrayOutputStream();
+                outputs.add(output);
+                errors.add(error);
+                results.add(executor.submit(() -> {
+                    route(output, error);
+                    try {
+                        return compile(name, emission, run, file, incremental, cache, parallelism, peephole);
+                    } finally {
+                        route(null, null);
+                    }
+                }));
+            }
+            boolean success = true;
+            for (int i = 0; i < files.size(); i++) {
+                boolean compiled;
+                try {
+                    compiled = results.get(i).get();
+                } catch (ExecutionException e) {
+                    e.getCause().printStackTrace(new PrintStream(errors.get(i), true));
+                    compiled = false;
+                }
+                // Written on the streams of the calling thread, which may be routed as well
+                System.out.write(outputs.get(i).toByteArray());
+                System.out.flush();
+                System.err.write(errors.get(i).toByteArray());
+                System.err.flush();
+                success &= compiled;
+            }
+            return success;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Parses a program in two stages: the faster SLL prediction is tried first and stops at the
+     * first error, the program is then parsed again with the full LL prediction only if SLL failed.
+     * SLL never accepts an invalid program, so the syntax errors are reported by the LL stage
+     * only, exactly as with a single LL parse.
+     * @param tokens Tokens of the program, the lexer errors are reported while they are read.
+     * @param errorListener Listener of the syntax errors, added to the default console listener.
+     * @param statistics Statistics of the parsed file, null if the parsing is not measured.
+     * @return The parse tree of the programme rule.
+     */
+    static ParseTree parse(CommonTokenStream tokens, ParsingErrorListener errorListener,
+            CompilationStatistics statistics) {
+        MiniCParser parser = new MiniCParser(tokens);
+        parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+        parser.removeErrorListeners();
+        parser.setErrorHandler(new BailErrorStrategy());
+        try {
+            return parser.programme();
+        } catch (ParseCancellationException e) {
+            fallbacks.incrementAndGet();
+            if (statistics != null) {
+                statistics.count(Counter.LL_FALLBACKS, 1);
+            }
+            tokens.seek(0);
+            parser.reset();
+            parser.getInterpreter().setPredictionMode(PredictionMode.LL);
+            parser.addErrorListener(ConsoleErrorListener.INSTANCE);
+            parser.addErrorListener(errorListener);
+            parser.setErrorHandler(new DefaultErrorStrategy());
+            return parser.programme();
+        }
+    }
+
+    /**
+     * @return Number of programs parsed again in full LL mode since the start of the JVM.
+     */
+    static int getFallbacks() {
+        return fallbacks.get();
+    }
+
+    /**
+     * Compiles one file.
+     * @param statistics Statistics of the file, null if the phases are not measured.
+     * @return true if the file was compiled without error.
+     */
+    static boolean compile(String name, Emission emission, boolean run, CompilationStatistics statistics) {
+        return compile(name, emission, run, statistics, null, null, 1, EnumSet.allOf(PeepholeRule.class));
+    }
+
+    /**
+     * Compiles one file.
+     * @param statistics Statistics of the file, null if the phases are not measured.
+     * @param incremental Cache of the code of the functions, null to compile all the functions.
+     * @param cache Cache of the outputs, null to compile the file even if it is unchanged.
+     * @param parallelism Number of threads that compile the functions of the file.
+     * @param peephole Rules of the peephole optimizer, none to emit the code as generated.
+     * @return true if the file was compiled without error.
+     */
+    static boolean compile(String name, Emission emission, boolean run, CompilationStatistics statistics,
+            FragmentCache incremental, BuildCache cache, int parallelism, Set<PeepholeRule> peephole) {
+        Path program = Paths.get(name);
+        // Only the file name is cut: the absolute names of the daemon and the watcher may have dots
+        Path output = program.resolveSibling(stripLastExtension(program.getFileName())
+                + ((emission == Emission.TEXT) ? ".tam" : ".tamx"));
+        try {
+            CharStream input;
+            String key = null;
+            if (cache == null) {
+                input = CharStreams.fromFileName(name);
+            } else {
+                byte[] source = Files.readAllBytes(program);
+                key = BuildCache.key(source, emission, peephole);
+                if (cache.restore(key, output)) {
+                    System.out.println(name + " is unchanged, " + output + " restored from the build cache.");
+                    return true;
+                }
+                input = CharStreams.fromString(new String(source, StandardCharsets.UTF_8), name);
+            }
+            ParsingErrorListener errorListener = new ParsingErrorListener();
+            MiniCLexer lexer = new MiniCLexer(input);
+            lexer.addErrorListener(errorListener);
+            CommonTokenStream tokens = new CommonTokenStream(lexer);
+            if (statistics != null) {
+                // The lexer is measured on its own, otherwise it runs on demand during the parsing
+                statistics.start();
+                tokens.fill();
+                statistics.stop(Phase.LEXING);
+                statistics.start();
+            }
+            ParseTree tree = parse(tokens, errorListener, statistics);
+            if (statistics != null) {
+                statistics.stop(Phase.PARSING);
+                statistics.start();
+            }
+            ParseTreeWalker walker = new ParseTreeWalker();
+            ASTBuilder astBuilder = new ASTBuilder(output.toString(), emission, run);
+            astBuilder.setStatistics(statistics);
+            astBuilder.setFragmentCache(incremental);
+            astBuilder.setParallelism(parallelism);
+            astBuilder.setPeepholeRules(peephole);
+            walker.walk(astBuilder, tree);
+            if (statistics != null) {
+                statistics.stop(Phase.WALK);
+            }
+            if (errorListener.hasError()) {
+                System.err.println("Errors in parsing phase.");
+                return false;
+            } else if (astBuilder.startCompilation()) {
+                if (cache != null) {
+                    cache.store(key, output);
+                }
+                return true;
+            } else {
+                if (astBuilder.getDiagnostics().hasErrors()) {
+                    // The errors have already been reported with the diagnostics
+                    System.err.println("Errors in semantic phase.");
+                }
+                return false;
+            }
+        } catch (BlockSemanticsError e) {
+            // Error detected after the analysis, already printed by the Logger
+            System.err.println("Errors in semantic phase.");
+        } catch (FileNotFoundException | NoSuchFileException e) {
+            System.err.println("File : " + name + " not found");
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            if (statistics != null) {
+                statistics.finish();
             }
         }
+        return false;
     }
 
-}
\ No newline at end of file
+}
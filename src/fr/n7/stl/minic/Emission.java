@@ -0,0 +1,20 @@
+package fr.n7.stl.minic;
+
+/**
+ * Kind of artifact produced by the code generation.
+ */
+public enum Emission {
+    /**
+     * TAM assembly text (.tam file) assembled by the TAM tools.
+     */
+    TEXT,
+    /**
+     * TAM object program (.tamx file) with labels resolved by the compiler. It is executed by the
+     * virtual machine of the compiler (Machine.load), the TAM tools only read the assembly text.
+     */
+    BINARY,
+    /**
+     * TAM object program (.tamx file) including the symbol table of the labels.
+     */
+    BINARY_WITH_SYMBOLS;
+}
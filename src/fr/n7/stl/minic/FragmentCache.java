@@ -0,0 +1,338 @@
+package fr.n7.stl.minic;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.tree.TerminalNode;
+
+import fr.n7.stl.minic.ast.instruction.declaration.FunctionCodeCache;
+import fr.n7.stl.minic.ast.instruction.declaration.FunctionDeclaration;
+import fr.n7.stl.minic.parser.MiniCLexer;
+import fr.n7.stl.minic.parser.MiniCParser.BlocContext;
+import fr.n7.stl.minic.parser.MiniCParser.InstructionContext;
+import fr.n7.stl.minic.parser.MiniCParser.InstructionDeclarationContext;
+import fr.n7.stl.minic.parser.MiniCParser.InstructionFunctionDeclarationContext;
+import fr.n7.stl.minic.parser.MiniCParser.InstructionTypeDeclarationContext;
+import fr.n7.stl.tam.ast.Fragment;
+import fr.n7.stl.tam.ast.TAMFactory;
+import fr.n7.stl.tam.ast.impl.PackedFragmentImpl;
+import fr.n7.stl.tam.ast.impl.TAMFactoryImpl;
+import fr.n7.stl.util.Logger;
+
+/**
+ * Directory that keeps the code generated for the functions of the compiled programs, so that a
+ * program is compiled again by analysing and generating only its modified functions.
+ *
+ * The code of a function is stored in a file named by the fingerprint of the function: a SHA-256
+ * digest of the tokens of the function and of the interface of each top-level declaration whose
+ * name appears in it. The interface of a function is its signature, the interface of a type is its
+ * definition (with the interfaces of the types it names), the interface of a variable or constant
+ * is the sequence of top-level declarations up to it, which determines its address. A function
+ * whose fingerprint is unchanged is therefore compiled to the same code.
+ *
+ * Entries are written in a temporary file that is then moved in place, several compilers can share
+ * the directory. Unreadable entries are ignored and compiled again.
+ */
+public class FragmentCache {
+
+    /**
+     * Changed each time the code generation or the format of the entries change.
+     */
+    private static final int VERSION = 6;
+
+    private static final int MAGIC = 0x4D434643;
+
+    private static final String EXTENSION = ".frag";
+
+    private final Path directory;
+
+    /**
+     * @param _directory Directory of the entries, created if needed.
+     * @throws IOException if the directory cannot be created.
+     */
+    public FragmentCache(Path _directory) throws IOException {
+        this.directory = Files.createDirectories(_directory);
+    }
+
+    public Path getDirectory() {
+        return this.directory;
+    }
+
+    /**
+     * Provides each top-level function of a program with its entry in the cache.
+     * @param _main Main block of the program, its AST must be built.
+     * @return Number of functions whose code is in the cache.
+     */
+    public int attach(BlocContext _main) {
+        Map<String, String> _interfaces = interfaces(_main.instructions);
+        int _cached = 0;
+        for (InstructionContext _instruction : _main.instructions) {
+            if (_instruction instanceof InstructionFunctionDeclarationContext
+                    && _instruction.i instanceof FunctionDeclaration) {
+                MessageDigest _digest = digest();
+                update(_digest, "version " + VERSION);
+                List<Token> _tokens = tokens(_instruction);
+                for (Token _token : _tokens) {
+                    update(_digest, _token.getText());
+                }
+                for (String _name : names(_tokens)) {
+                    String _interface = _interfaces.get(_name);
+                    if (_interface != null) {
+                        update(_digest, _name);
+                        update(_digest, _interface);
+                    }
+                }
+                Entry _entry = new Entry(this.directory.resolve(hex(_digest.digest()) + EXTENSION));
+                ((FunctionDeclaration) _instruction.i).setCache(_entry);
+                if (_entry.isCached()) {
+                    _cached++;
+                }
+            }
+        }
+        return _cached;
+    }
+
+    /**
+     * Computes the interface of the top-level declarations, in declaration order.
+     * @return Digest of the interfaces of the declarations indexed by the names they introduce.
+     */
+    private static Map<String, String> interfaces(List<InstructionContext> _instructions) {
+        Map<String, String> _interfaces = new HashMap<String, String>();
+        // Declarations up to the current one, function bodies excluded
+        MessageDigest _declarations = digest();
+        for (InstructionContext _instruction : _instructions) {
+            List<Token> _tokens;
+            if (_instruction instanceof InstructionFunctionDeclarationContext) {
+                InstructionFunctionDeclarationContext _function = (InstructionFunctionDeclarationContext) _instruction;
+                _tokens = tokens(_function);
+                _tokens = _tokens.subList(0, _tokens.size() - tokens(_function.bloc()).size());
+            } else {
+                _tokens = tokens(_instruction);
+            }
+            for (Token _token : _tokens) {
+                update(_declarations, _token.getText());
+            }
+            if (_instruction instanceof InstructionFunctionDeclarationContext
+                    || _instruction instanceof InstructionTypeDeclarationContext) {
+                MessageDigest _digest = digest();
+                for (Token _token : _tokens) {
+                    update(_digest, _token.getText());
+                }
+                Set<String> _names = names(_tokens);
+                for (String _name : _names) {
+                    String _interface = _interfaces.get(_name);
+                    if (_interface != null) {
+                        update(_digest, _name);
+                        update(_digest, _interface);
+                    }
+                }
+                String _interface = hex(_digest.digest());
+                if (_instruction instanceof InstructionFunctionDeclarationContext) {
+                    define(_interfaces,
+                            ((InstructionFunctionDeclarationContext) _instruction).identifiant().id.getLeft(),
+                            _interface);
+                } else {
+                    // The fields and the enumeration labels depend on the type as well
+                    for (String _name : _names) {
+                        define(_interfaces, _name, _interface);
+                    }
+                }
+            } else if (_instruction instanceof InstructionDeclarationContext) {
+                define(_interfaces, ((InstructionDeclarationContext) _instruction).identifiant().id.getLeft(),
+                        hex(copy(_declarations).digest()));
+            }
+        }
+        return _interfaces;
+    }
+
+    /**
+     * Adds the interface of a declaration to the ones of the previous declarations of the same name.
+     */
+    private static void define(Map<String, String> _interfaces, String _name, String _interface) {
+        _interfaces.merge(_name, _interface, (_previous, _next) -> _previous + _next);
+    }
+
+    private static List<Token> tokens(ParseTree _tree) {
+        List<Token> _tokens = new ArrayList<Token>();
+        collect(_tree, _tokens);
+        return _tokens;
+    }
+
+    private static void collect(ParseTree _tree, List<Token> _tokens) {
+        if (_tree instanceof TerminalNode) {
+            _tokens.add(((TerminalNode) _tree).getSymbol());
+        } else {
+            for (int _index = 0; _index < _tree.getChildCount(); _index++) {
+                collect(_tree.getChild(_index), _tokens);
+            }
+        }
+    }
+
+    /**
+     * @return Identifiers of the tokens, in order of first occurrence.
+     */
+    private static Set<String> names(List<Token> _tokens) {
+        Set<String> _names = new LinkedHashSet<String>();
+        for (Token _token : _tokens) {
+            if (_token.getType() == MiniCLexer.Identificateur) {
+                _names.add(_token.getText());
+            }
+        }
+        return _names;
+    }
+
+    private static MessageDigest digest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available.", e);
+        }
+    }
+
+    private static MessageDigest copy(MessageDigest _digest) {
+        try {
+            return (MessageDigest) _digest.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException("SHA-256 digests cannot be copied.", e);
+        }
+    }
+
+    /**
+     * Adds a text and a separator, so that the sequences of texts have different digests.
+     */
+    private static void update(MessageDigest _digest, String _text) {
+        _digest.update(_text.getBytes(StandardCharsets.UTF_8));
+        _digest.update((byte) 0);
+    }
+
+    private static String hex(byte[] _bytes) {
+        StringBuilder _hex = new StringBuilder(2 * _bytes.length);
+        for (byte _byte : _bytes) {
+            _hex.append(Character.forDigit((_byte >> 4) & 0xF, 16)).append(Character.forDigit(_byte & 0xF, 16));
+        }
+        return _hex.toString();
+    }
+
+    /**
+     * Entry of one function. Its file is read when the entry is created, so that whether the
+     * function must be analysed is known before the analysis starts.
+     *
+     * The file contains the encoded code. Its labels are named after the function, they are the
+     * same in every program where the function has the same fingerprint.
+     */
+    private static class Entry implements FunctionCodeCache {
+
+        private final Path file;
+
+        /**
+         * Content of the file after the header, null if the code is not in the cache.
+         */
+        private byte[] code;
+
+        private Entry(Path _file) {
+            this.file = _file;
+            this.code = null;
+            try {
+                this.read(Files.readAllBytes(_file));
+            } catch (NoSuchFileException e) {
+                // Not compiled yet
+            } catch (IOException e) {
+                Logger.warning("Cached code " + _file + " cannot be read, the function is compiled again : "
+                        + e.getMessage());
+                this.code = null;
+            }
+        }
+
+        private void read(byte[] _bytes) throws IOException {
+            DataInputStream _input = new DataInputStream(new ByteArrayInputStream(_bytes));
+            if (_input.readInt() != MAGIC || _input.readInt() != VERSION) {
+                throw new IOException("unknown format");
+            }
+            int _offset = _bytes.length - _input.available();
+            // Decoded once to check that the code is complete
+            PackedFragmentImpl.decode(_input, new TAMFactoryImpl());
+            if (_input.available() != 0) {
+                throw new IOException("unexpected data after the code");
+            }
+            this.code = Arrays.copyOfRange(_bytes, _offset, _bytes.length);
+        }
+
+        /* (non-Javadoc)
+         * @see fr.n7.stl.minic.ast.instruction.declaration.FunctionCodeCache#isCached()
+         */
+        @Override
+        public boolean isCached() {
+            return this.code != null;
+        }
+
+        /* (non-Javadoc)
+         * @see fr.n7.stl.minic.ast.instruction.declaration.FunctionCodeCache#load(fr.n7.stl.tam.ast.TAMFactory)
+         */
+        @Override
+        public Fragment load(TAMFactory _factory) {
+            try {
+                return PackedFragmentImpl.decode(new DataInputStream(new ByteArrayInputStream(this.code)), _factory);
+            } catch (IOException e) {
+                // The code was decoded when the entry was read
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /* (non-Javadoc)
+         * @see fr.n7.stl.minic.ast.instruction.declaration.FunctionCodeCache#store(fr.n7.stl.tam.ast.Fragment)
+         */
+        @Override
+        public void store(Fragment _code) {
+            PackedFragmentImpl _packed = PackedFragmentImpl.pack(_code);
+            Path _temporary = null;
+            try {
+                ByteArrayOutputStream _bytes = new ByteArrayOutputStream();
+                DataOutputStream _output = new DataOutputStream(_bytes);
+                _output.writeInt(MAGIC);
+                _output.writeInt(VERSION);
+                _packed.encode(_output);
+                _output.flush();
+                _temporary = Files.createTempFile(this.file.getParent(), "function", ".tmp");
+                Files.write(_temporary, _bytes.toByteArray());
+                try {
+                    Files.move(_temporary, this.file, StandardCopyOption.ATOMIC_MOVE,
+                            StandardCopyOption.REPLACE_EXISTING);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(_temporary, this.file, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } catch (IOException e) {
+                Logger.warning("Code of the function cannot be cached in " + this.file + " : " + e.getMessage());
+                if (_temporary != null) {
+                    try {
+                        Files.deleteIfExists(_temporary);
+                    } catch (IOException f) {
+                        // Left in the directory, it is never read
+                    }
+                }
+            }
+        }
+
+    }
+
+}
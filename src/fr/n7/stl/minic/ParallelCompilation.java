@@ -0,0 +1,303 @@
+package fr.n7.stl.minic;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import fr.n7.stl.minic.ast.Block;
+import fr.n7.stl.minic.ast.expression.TypeComputations;
+import fr.n7.stl.minic.ast.instruction.Instruction;
+import fr.n7.stl.minic.ast.instruction.declaration.FunctionDeclaration;
+import fr.n7.stl.minic.ast.scope.SymbolTable;
+import fr.n7.stl.tam.ast.Fragment;
+import fr.n7.stl.tam.ast.Register;
+import fr.n7.stl.tam.ast.TAMFactory;
+import fr.n7.stl.tam.ast.impl.TAMFactoryImpl;
+import fr.n7.stl.util.Diagnostics;
+import fr.n7.stl.util.Logger;
+
+/**
+ * Compiles the top-level functions of a program on a fork-join pool, with the same result as the
+ * sequential compilation of the main block.
+ *
+ * The top-level functions are first declared, then the other top-level instructions are analysed
+ * in order on the calling thread. The body of a function is analysed by a task in a snapshot of
+ * the global table, which holds all the functions and the declarations that precede the function
+ * whatever is declared after it. Each instruction reports in its own diagnostics, they are added
+ * to the ones of the program in the order of the program, after the ones of the declarations.
+ *
+ * The code of each function is then generated by a task. A function names its labels after
+ * itself (see TAMFactory.createFunctionFactory), its code does not depend on the code generated
+ * before it. The other instructions are generated in order with the factory of the main block,
+ * and the fragments are appended in the order of the program.
+ */
+class ParallelCompilation {
+
+    /**
+     * Analysis or code of one top-level instruction.
+     */
+    private static class Unit {
+
+        private Instruction instruction;
+
+        /**
+         * Diagnostics reported by the instruction, then by its task.
+         */
+        private final Diagnostics diagnostics = new Diagnostics();
+
+        /**
+         * Global table seen by the body of a function, null for the other instructions.
+         */
+        private SymbolTable scope;
+
+        private ForkJoinTask<?> task;
+
+        private boolean succeeded;
+
+        /**
+         * Exception raised by the instruction or by its task, null if none was raised.
+         */
+        private RuntimeException failure;
+
+        /**
+         * Expression nodes built and types computed by the task.
+         */
+        private long nodes;
+
+        private long computations;
+
+        private Fragment code;
+
+        private Unit(Instruction _instruction) {
+            this.instruction = _instruction;
+        }
+
+        /**
+         * Waits for the task of the instruction and rethrows its exception.
+         */
+        private void join() {
+            if (this.task != null) {
+                this.task.join();
+                this.task = null;
+            }
+            if (this.failure != null) {
+                throw this.failure;
+            }
+        }
+
+    }
+
+    private final List<Unit> units;
+
+    private final ForkJoinPool pool;
+
+    /**
+     * @param _main Main block of the program.
+     * @param _parallelism Number of threads of the pool.
+     */
+    ParallelCompilation(Block _main, int _parallelism) {
+        this.units = new ArrayList<Unit>();
+        for (Instruction instruction : _main.getInstructions()) {
+            this.units.add(new Unit(instruction));
+        }
+        this.pool = new ForkJoinPool(_parallelism);
+    }
+
+    /**
+     * Analyses the main block as Block.analyse.
+     * @param _scope Global table.
+     * @param _diagnostics Diagnostics of the program, which collect the errors of the current thread.
+     * @return true if all the instructions are correct.
+     */
+    boolean analyse(SymbolTable _scope, Diagnostics _diagnostics) {
+        // The functions are declared before the other instructions as in Block.analyse, their
+        // errors are reported in the diagnostics of the program, collected by the caller
+        for (Unit unit : this.units) {
+            if (unit.instruction instanceof FunctionDeclaration) {
+                unit.succeeded = ((FunctionDeclaration) unit.instruction).declare(_scope);
+            }
+        }
+        int analysed = 0;
+        for (Unit unit : this.units) {
+            analysed++;
+            Logger.collect(unit.diagnostics);
+            try {
+                if (unit.instruction instanceof FunctionDeclaration) {
+                    if (unit.succeeded) {
+                        unit.scope = _scope.snapshot();
+                    }
+                } else {
+                    unit.succeeded = unit.instruction.analyse(_scope, null);
+                }
+            } catch (RuntimeException e) {
+                unit.failure = e;
+                unit.succeeded = false;
+            } finally {
+                Logger.collect(null);
+            }
+            if (unit.failure != null) {
+                // Unexpected exception, the sequential analysis stops as well
+                break;
+            }
+        }
+        // The global table is no more modified, the snapshots can be read concurrently
+        for (Unit unit : this.units.subList(0, analysed)) {
+            if (unit.scope != null) {
+                FunctionDeclaration function = (FunctionDeclaration) unit.instruction;
+                unit.task = this.pool.submit(() -> analyseBody(unit, function));
+            }
+        }
+        boolean result = true;
+        for (Unit unit : this.units.subList(0, analysed)) {
+            if (unit.task != null) {
+                unit.task.join();
+                unit.task = null;
+                TypeComputations.merge(unit.nodes, unit.computations);
+            }
+            _diagnostics.addAll(unit.diagnostics);
+            unit.join();
+            result = unit.succeeded && result;
+        }
+        return result;
+    }
+
+    private static void analyseBody(Unit _unit, FunctionDeclaration _function) {
+        Logger.collect(_unit.diagnostics);
+        long nodes = TypeComputations.getNodes();
+        long computations = TypeComputations.getComputations();
+        try {
+            _unit.succeeded = _function.analyseBody(_unit.scope);
+        } catch (RuntimeException e) {
+            _unit.failure = e;
+            _unit.succeeded = false;
+        } finally {
+            _unit.nodes = TypeComputations.getNodes() - nodes;
+            _unit.computations = TypeComputations.getComputations() - computations;
+            Logger.collect(null);
+        }
+    }
+
+    /**
+     * @return Number of declarations registered in the scopes of the function bodies, which are
+     * not counted by the global table.
+     */
+    int getRegistrations() {
+        int registrations = 0;
+        for (Unit unit : this.units) {
+            if (unit.scope != null) {
+                registrations += unit.scope.getRegistrations();
+            }
+        }
+        return registrations;
+    }
+
+    /**
+     * Folds the constants as Block.foldConstants: the other instructions in order, then the
+     * bodies of the functions in their tasks, which only read the global constants.
+     */
+    void foldConstants() {
+        for (Unit unit : this.units) {
+            if (!(unit.instruction instanceof FunctionDeclaration)) {
+                unit.instruction = unit.instruction.foldConstants();
+            }
+        }
+        for (Unit unit : this.units) {
+            if (unit.instruction instanceof FunctionDeclaration) {
+                unit.task = this.pool.submit(() -> {
+                    try {
+                        unit.instruction.foldConstants();
+                    } catch (RuntimeException e) {
+                        unit.failure = e;
+                    }
+                });
+            }
+        }
+        for (Unit unit : this.units) {
+            unit.join();
+        }
+    }
+
+    /**
+     * Removes the dead code as Block.eliminateDeadCode, on the calling thread: the call graph links
+     * all the functions. The units of the removed instructions are removed.
+     * @return The removed functions.
+     */
+    List<FunctionDeclaration> eliminateDeadCode() {
+        List<Instruction> instructions = new LinkedList<Instruction>();
+        for (Unit unit : this.units) {
+            instructions.add(unit.instruction);
+        }
+        List<FunctionDeclaration> removed = new Block(instructions).eliminateDeadCode();
+        Set<Instruction> kept = Collections.newSetFromMap(new IdentityHashMap<Instruction, Boolean>());
+        kept.addAll(instructions);
+        this.units.removeIf(unit -> !kept.contains(unit.instruction));
+        return removed;
+    }
+
+    /**
+     * Allocates the memory as Block.allocateMemory: the global variables in order, the local
+     * variables of each function in its task.
+     */
+    void allocateMemory(Register _register, int _offset) {
+        int offset = _offset;
+        for (Unit unit : this.units) {
+            if (unit.instruction instanceof FunctionDeclaration) {
+                int start = offset;
+                unit.task = this.pool.submit(() -> {
+                    try {
+                        unit.instruction.allocateMemory(_register, start);
+                    } catch (RuntimeException e) {
+                        unit.failure = e;
+                    }
+                });
+            } else {
+                offset = unit.instruction.allocateMemory(_register, offset);
+            }
+        }
+        for (Unit unit : this.units) {
+            unit.join();
+        }
+    }
+
+    /**
+     * Generates the code as Block.getCode.
+     * @param _factory Factory of the main block, it numbers the labels of the other instructions.
+     * @return The code of the main block.
+     */
+    Fragment getCode(TAMFactory _factory) {
+        for (Unit unit : this.units) {
+            if (unit.instruction instanceof FunctionDeclaration) {
+                unit.task = this.pool.submit(() -> {
+                    try {
+                        unit.code = unit.instruction.getCode(new TAMFactoryImpl());
+                    } catch (RuntimeException e) {
+                        unit.failure = e;
+                    }
+                });
+            }
+        }
+        Fragment fragment = _factory.createFragment();
+        for (Unit unit : this.units) {
+            if (unit.instruction instanceof FunctionDeclaration) {
+                unit.join();
+                fragment.append(unit.code);
+            } else {
+                fragment.append(unit.instruction.getCode(_factory));
+            }
+        }
+        return fragment;
+    }
+
+    /**
+     * Stops the threads of the pool.
+     */
+    void close() {
+        this.pool.shutdownNow();
+    }
+
+}
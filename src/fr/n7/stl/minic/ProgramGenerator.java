@@ -0,0 +1,488 @@
+package fr.n7.stl.minic;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Generator of random MiniC programs that are syntactically and semantically valid, used to stress
+ * the compiler with large inputs. The same seed and knobs always produce the same program.
+ *
+ * The main block is a sequence of units, each unit is drawn according to the mix: a function
+ * (recursive or not) and its calls, a record, a couple, a pointer, an array, a loop or a conditional.
+ * Loops and conditionals contain nested units up to the maximal depth. Function bodies only use their
+ * parameters, their locals and recursive calls, as the compiler resolves them in a scope of their own.
+ */
+public class ProgramGenerator {
+
+    private static final String USAGE = "Usage : ProgramGenerator [--size=N] [--depth=D] [--seed=S] "
+            + "[--mix=feature:weight,...] [output]\n"
+            + "        features : functions, records, couples, pointers, arrays, loops, conditionals";
+
+    /**
+     * Features of the generated units.
+     */
+    public enum Feature {
+        FUNCTIONS, RECORDS, COUPLES, POINTERS, ARRAYS, LOOPS, CONDITIONALS
+    }
+
+    /**
+     * Function callable from the main block.
+     */
+    private static class Function {
+
+        private final String name;
+
+        private final int arity;
+
+        private Function(String _name, int _arity) {
+            this.name = _name;
+            this.arity = _arity;
+        }
+
+    }
+
+    private final Random random;
+
+    private final int depth;
+
+    private final Map<Feature, Integer> mix;
+
+    private final int total;
+
+    private StringBuilder program;
+
+    private int names;
+
+    /**
+     * Integer expressions that can be read in each open scope, the innermost scope is the last.
+     */
+    private List<List<String>> readable;
+
+    /**
+     * Integer variables that can be assigned in each open scope, loop counters are not assignable.
+     */
+    private List<List<String>> assignable;
+
+    private List<Function> functions;
+
+    /**
+     * @param _seed Seed of the random choices.
+     * @param _depth Maximal nesting depth of the loops and conditionals.
+     * @param _mix Relative weight of each feature, absent features are not generated.
+     */
+    public ProgramGenerator(long _seed, int _depth, Map<Feature, Integer> _mix) {
+        if (_depth < 0) {
+            throw new IllegalArgumentException("Invalid depth : " + _depth);
+        }
+        int _total = 0;
+        for (int _weight : _mix.values()) {
+            if (_weight < 0) {
+                throw new IllegalArgumentException("Invalid weight : " + _weight);
+            }
+            _total += _weight;
+        }
+        if (_total == 0) {
+            throw new IllegalArgumentException("The mix contains no feature.");
+        }
+        this.random = new Random(_seed);
+        this.depth = _depth;
+        this.mix = new EnumMap<Feature, Integer>(_mix);
+        this.total = _total;
+    }
+
+    /**
+     * @return Mix in which all the features have the same weight.
+     */
+    public static Map<Feature, Integer> uniformMix() {
+        Map<Feature, Integer> _mix = new EnumMap<Feature, Integer>(Feature.class);
+        for (Feature _feature : Feature.values()) {
+            _mix.put(_feature, 1);
+        }
+        return _mix;
+    }
+
+    /**
+     * Generates a program.
+     * @param _size Number of units in the main block.
+     * @return Source of the program.
+     */
+    public String generate(int _size) {
+        this.program = new StringBuilder("generated {\n");
+        this.names = 0;
+        this.readable = new ArrayList<List<String>>();
+        this.assignable = new ArrayList<List<String>>();
+        this.functions = new ArrayList<Function>();
+        this.open();
+        String _seed = this.declare(1, Integer.toString(this.random.nextInt(100)));
+        this.assignable().add(_seed);
+        for (int _unit = 0; _unit < _size; _unit++) {
+            this.unit(1, true);
+        }
+        this.line(1, "print " + this.integer(2) + ";");
+        return this.program.append("}\n").toString();
+    }
+
+    /**
+     * Generates one unit drawn according to the mix.
+     * @param _level Nesting level of the unit.
+     * @param _main Whether the unit is in the main block, where functions and records are declared.
+     */
+    private void unit(int _level, boolean _main) {
+        Feature _feature = this.draw();
+        if (! _main && (_feature == Feature.FUNCTIONS || _feature == Feature.RECORDS)) {
+            _feature = Feature.COUPLES;
+        }
+        if (_level > this.depth && (_feature == Feature.LOOPS || _feature == Feature.CONDITIONALS)) {
+            _feature = Feature.POINTERS;
+        }
+        switch (_feature) {
+            case FUNCTIONS:
+                this.function(_level);
+                break;
+            case RECORDS:
+                this.record(_level);
+                break;
+            case COUPLES:
+                this.couple(_level);
+                break;
+            case POINTERS:
+                this.pointer(_level);
+                break;
+            case ARRAYS:
+                this.array(_level);
+                break;
+            case LOOPS:
+                this.loop(_level);
+                break;
+            case CONDITIONALS:
+                this.conditional(_level);
+                break;
+        }
+    }
+
+    private Feature draw() {
+        int _choice = this.random.nextInt(this.total);
+        for (Map.Entry<Feature, Integer> _entry : this.mix.entrySet()) {
+            _choice -= _entry.getValue();
+            if (_choice < 0) {
+                return _entry.getKey();
+            }
+        }
+        throw new IllegalStateException();
+    }
+
+    /**
+     * Declares a function in the main block then assigns the result of a call to a variable.
+     */
+    private void function(int _level) {
+        String _name = this.fresh("f");
+        boolean _recursive = this.random.nextBoolean();
+        int _arity = _recursive ? 1 : (1 + this.random.nextInt(3));
+        List<String> _parameters = new ArrayList<String>();
+        for (int _index = 0; _index < _arity; _index++) {
+            _parameters.add(this.fresh("p"));
+        }
+        // The body of the function only sees its parameters and its locals
+        List<List<String>> _readable = this.readable;
+        List<List<String>> _assignable = this.assignable;
+        this.readable = new ArrayList<List<String>>();
+        this.assignable = new ArrayList<List<String>>();
+        this.open();
+        this.readable().addAll(_parameters);
+        this.line(_level, "int " + _name + "(int " + String.join(", int ", _parameters) + ") {");
+        if (_recursive) {
+            String _n = _parameters.get(0);
+            this.line(_level + 1, "if (" + _n + " <= 0) {");
+            this.line(_level + 2, "return " + this.integer(1) + ";");
+            this.line(_level + 1, "} else {");
+            // The recursive call is kept as a direct operand of the addition
+            this.line(_level + 2, "return " + _name + "(" + _n + " - 1) + (" + this.integer(1) + ");");
+            this.line(_level + 1, "}");
+        } else {
+            // The locals are initialised from the parameters only, they are read by the returns
+            int _locals = this.random.nextInt(3);
+            List<String> _declared = new ArrayList<String>();
+            for (int _index = 0; _index < _locals; _index++) {
+                _declared.add(this.declare(_level + 1, this.integer(2)));
+                this.readable().remove(this.readable().size() - 1);
+            }
+            this.readable().addAll(_declared);
+            if (this.depth > 0 && this.random.nextBoolean()) {
+                this.line(_level + 1, "if " + this.condition(1) + " {");
+                this.line(_level + 2, "return " + this.integer(2) + ";");
+                this.line(_level + 1, "} else {");
+                this.line(_level + 2, "return " + this.integer(2) + ";");
+                this.line(_level + 1, "}");
+            } else {
+                this.line(_level + 1, "return " + this.integer(2) + ";");
+            }
+        }
+        this.line(_level, "}");
+        this.readable = _readable;
+        this.assignable = _assignable;
+        this.functions.add(new Function(_name, _arity));
+        this.call(_level);
+    }
+
+    private void call(int _level) {
+        Function _function = this.functions.get(this.random.nextInt(this.functions.size()));
+        List<String> _arguments = new ArrayList<String>();
+        for (int _index = 0; _index < _function.arity; _index++) {
+            // Small arguments bound the depth of the recursive calls
+            _arguments.add(Integer.toString(this.random.nextInt(10)));
+        }
+        this.readable().add(this.declare(_level, _function.name + "(" + String.join(", ", _arguments) + ")"));
+    }
+
+    private void record(int _level) {
+        String _type = this.fresh("R");
+        int _width = 1 + this.random.nextInt(5);
+        StringBuilder _fields = new StringBuilder();
+        for (int _index = 0; _index < _width; _index++) {
+            _fields.append(" int a").append(_index).append(";");
+        }
+        this.line(_level, "typedef struct " + _type + " {" + _fields + " } " + _type + ";");
+        List<String> _values = new ArrayList<String>();
+        for (int _index = 0; _index < _width; _index++) {
+            _values.add(this.integer(1));
+        }
+        String _record = this.fresh("r");
+        this.line(_level, _type + " " + _record + " = { " + String.join(", ", _values) + " };");
+        String _field = _record + ".a" + this.random.nextInt(_width);
+        this.line(_level, _field + " = " + this.integer(2) + ";");
+        for (int _index = 0; _index < _width; _index++) {
+            this.readable().add(_record + ".a" + _index);
+        }
+    }
+
+    private void couple(int _level) {
+        String _couple = this.fresh("c");
+        this.line(_level, "<int, int> " + _couple + " = <" + this.integer(1) + ", " + this.integer(1) + ">;");
+        this.readable().add("(fst " + _couple + ")");
+        this.readable().add("(snd " + _couple + ")");
+    }
+
+    private void pointer(int _level) {
+        String _pointer = this.fresh("q");
+        this.line(_level, "int *" + _pointer + " = new int();");
+        this.line(_level, "*" + _pointer + " = " + this.integer(2) + ";");
+        // The dereference has a lower priority than the binary operators
+        this.readable().add("(*" + _pointer + ")");
+    }
+
+    private void array(int _level) {
+        String _array = this.fresh("t");
+        int _length = 1 + this.random.nextInt(8);
+        this.line(_level, "int " + _array + "[] = new int[" + _length + "];");
+        for (int _index = 0; _index < _length; _index++) {
+            this.line(_level, _array + "[" + _index + "] = " + this.integer(2) + ";");
+            this.readable().add(_array + "[" + _index + "]");
+        }
+    }
+
+    private void loop(int _level) {
+        String _counter = this.declare(_level, "0");
+        this.line(_level, "while (" + _counter + " < " + (1 + this.random.nextInt(5)) + ") {");
+        this.open();
+        this.readable().add(_counter);
+        this.body(_level + 1);
+        this.line(_level + 1, _counter + " = " + _counter + " + 1;");
+        this.close();
+        this.line(_level, "}");
+    }
+
+    private void conditional(int _level) {
+        this.line(_level, "if (" + this.condition(2) + ") {");
+        this.open();
+        this.body(_level + 1);
+        this.close();
+        if (this.random.nextBoolean()) {
+            this.line(_level, "} else {");
+            this.open();
+            this.body(_level + 1);
+            this.close();
+        }
+        this.line(_level, "}");
+    }
+
+    /**
+     * Generates the body of a loop or a conditional: units, an assignment and a print.
+     */
+    private void body(int _level) {
+        int _units = 1 + this.random.nextInt(2);
+        for (int _unit = 0; _unit < _units; _unit++) {
+            // Functions and records are only declared at the first level of the main block
+            this.unit(_level, false);
+        }
+        String _variable = this.any(this.assignable);
+        if (_variable != null) {
+            this.line(_level, _variable + " = " + this.integer(2) + ";");
+        }
+        this.line(_level, "print " + this.integer(1) + ";");
+    }
+
+    /**
+     * @param _depth Maximal depth of the expression.
+     * @return An integer expression.
+     */
+    private String integer(int _depth) {
+        int _choice = this.random.nextInt(_depth > 0 ? 6 : 3);
+        switch (_choice) {
+            case 0:
+                return Integer.toString(this.random.nextInt(100));
+            case 1:
+            case 2:
+                String _variable = this.any(this.readable);
+                return (_variable != null) ? _variable : Integer.toString(this.random.nextInt(100));
+            case 3:
+                return this.integer(_depth - 1) + " + " + this.integer(_depth - 1);
+            case 4:
+                return "(" + this.integer(_depth - 1) + " - " + this.integer(_depth - 1) + ")";
+            default:
+                return "(" + this.integer(_depth - 1) + " * " + this.integer(_depth - 1) + ")";
+        }
+    }
+
+    /**
+     * @return A boolean expression, without && and || that the compiler does not type as booleans.
+     */
+    private String condition(int _depth) {
+        int _choice = this.random.nextInt(_depth > 0 ? 3 : 2);
+        switch (_choice) {
+            case 0:
+                return "(" + this.integer(1) + " < " + this.integer(1) + ")";
+            case 1:
+                return "(" + this.integer(1) + " == " + this.integer(1) + ")";
+            default:
+                return "(! " + this.condition(_depth - 1) + ")";
+        }
+    }
+
+    /**
+     * Declares an integer variable in the innermost scope, it is readable from then on.
+     * @return Name of the variable.
+     */
+    private String declare(int _level, String _value) {
+        String _name = this.fresh("v");
+        this.line(_level, "int " + _name + " = " + _value + ";");
+        this.readable().add(_name);
+        return _name;
+    }
+
+    /**
+     * @return Random element of the open scopes, null if they are all empty.
+     */
+    private String any(List<List<String>> _scopes) {
+        int _count = 0;
+        for (List<String> _scope : _scopes) {
+            _count += _scope.size();
+        }
+        if (_count == 0) {
+            return null;
+        }
+        int _index = this.random.nextInt(_count);
+        for (List<String> _scope : _scopes) {
+            if (_index < _scope.size()) {
+                return _scope.get(_index);
+            }
+            _index -= _scope.size();
+        }
+        throw new IllegalStateException();
+    }
+
+    /**
+     * @return Unique name: the blocks do not open a new scope in the compiler.
+     */
+    private String fresh(String _prefix) {
+        return _prefix + (this.names++);
+    }
+
+    private void open() {
+        this.readable.add(new ArrayList<String>());
+        this.assignable.add(new ArrayList<String>());
+    }
+
+    private void close() {
+        this.readable.remove(this.readable.size() - 1);
+        this.assignable.remove(this.assignable.size() - 1);
+    }
+
+    private List<String> readable() {
+        return this.readable.get(this.readable.size() - 1);
+    }
+
+    private List<String> assignable() {
+        return this.assignable.get(this.assignable.size() - 1);
+    }
+
+    private void line(int _level, String _text) {
+        for (int _index = 0; _index < _level; _index++) {
+            this.program.append("  ");
+        }
+        this.program.append(_text).append('\n');
+    }
+
+    /**
+     * Parses a mix such as functions:2,loops:1.
+     */
+    static Map<Feature, Integer> parseMix(String _text) {
+        Map<Feature, Integer> _mix = new EnumMap<Feature, Integer>(Feature.class);
+        for (String _entry : _text.split(",")) {
+            String[] _parts = _entry.split(":");
+            try {
+                Feature _feature = Feature.valueOf(_parts[0].trim().toUpperCase());
+                _mix.put(_feature, (_parts.length > 1) ? Integer.parseInt(_parts[1].trim()) : 1);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid mix entry : " + _entry);
+            }
+        }
+        return _mix;
+    }
+
+    public static void main(String[] args) throws IOException {
+        int size = 10;
+        int depth = 3;
+        long seed = 0;
+        Map<Feature, Integer> mix = uniformMix();
+        String output = null;
+        try {
+            for (String arg : args) {
+                if (arg.startsWith("--size=")) {
+                    size = Integer.parseInt(arg.substring("--size=".length()));
+                } else if (arg.startsWith("--depth=")) {
+                    depth = Integer.parseInt(arg.substring("--depth=".length()));
+                } else if (arg.startsWith("--seed=")) {
+                    seed = Long.parseLong(arg.substring("--seed=".length()));
+                } else if (arg.startsWith("--mix=")) {
+                    mix = parseMix(arg.substring("--mix=".length()));
+                } else if (arg.startsWith("-") || output != null) {
+                    throw new IllegalArgumentException("Unknown option : " + arg);
+                } else {
+                    output = arg;
+                }
+            }
+            String program = new ProgramGenerator(seed, depth, mix).generate(size);
+            if (output == null) {
+                System.out.print(program);
+            } else {
+                try (Writer writer = Files.newBufferedWriter(Paths.get(output), StandardCharsets.UTF_8)) {
+                    writer.write(program);
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            // NumberFormatException is an IllegalArgumentException as well
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+    }
+
+}
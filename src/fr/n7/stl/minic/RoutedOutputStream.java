@@ -0,0 +1,58 @@
+package fr.n7.stl.minic;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Output stream that writes to a stream selected by the current thread.
+ * The compilation phases report their diagnostics on System.out and System.err, when several
+ * files are compiled in parallel each task routes them to its own buffer so that they can be
+ * printed in the order of the files.
+ */
+class RoutedOutputStream extends OutputStream {
+
+    private final OutputStream fallback;
+
+    private final ThreadLocal<OutputStream> target;
+
+    /**
+     * @param _fallback Stream used by the threads that did not select a target.
+     */
+    RoutedOutputStream(OutputStream _fallback) {
+        this.fallback = _fallback;
+        this.target = new ThreadLocal<OutputStream>();
+    }
+
+    /**
+     * Routes the output of the current thread.
+     * @param _target Stream that receives the output of the current thread, null to use the fallback.
+     */
+    void route(OutputStream _target) {
+        if (_target == null) {
+            this.target.remove();
+        } else {
+            this.target.set(_target);
+        }
+    }
+
+    private OutputStream current() {
+        OutputStream _target = this.target.get();
+        return (_target == null) ? this.fallback : _target;
+    }
+
+    @Override
+    public void write(int _byte) throws IOException {
+        this.current().write(_byte);
+    }
+
+    @Override
+    public void write(byte[] _bytes, int _offset, int _length) throws IOException {
+        this.current().write(_bytes, _offset, _length);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        this.current().flush();
+    }
+
+}
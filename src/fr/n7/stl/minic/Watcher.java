@@ -0,0 +1,181 @@
+package fr.n7.stl.minic;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compiles files again each time they are saved, in the same process: the JVM, the ANTLR DFA
+ * cache and the compiler classes stay warm from one compilation to the next.
+ *
+ * The watched files are the files of the command line and the programs (.txt files) of its
+ * directories. The events of a save often come in bursts (truncate, write, rename), the changed
+ * files are compiled once the directories have been quiet for the debounce delay.
+ */
+class Watcher {
+
+    private static final long DEFAULT_DEBOUNCE = 30;
+
+    private static final String PROGRAM_EXTENSION = ".txt";
+
+    /**
+     * Options forwarded to the Driver for each compilation.
+     */
+    private final List<String> options;
+
+    /**
+     * Files given on the command line, watched whatever their extension.
+     */
+    private final Set<Path> files;
+
+    /**
+     * Directories given on the command line, all their programs are watched.
+     */
+    private final Set<Path> directories;
+
+    private final long debounce;
+
+    private Watcher(List<String> options, Set<Path> files, Set<Path> directories, long debounce) {
+        this.options = options;
+        this.files = files;
+        this.directories = directories;
+        this.debounce = debounce;
+    }
+
+    /**
+     * Runs the watch mode: Driver --watch [--debounce=MS] [options] files or directories...
+     * The other options are the ones of the Driver, the output of each file is written next to it.
+     * @return Exit status: 0 when the watch is interrupted, 2 for invalid options as Driver.execute.
+     */
+    static int main(String[] args) throws IOException {
+        List<String> options = new ArrayList<String>();
+        Set<Path> files = new LinkedHashSet<Path>();
+        Set<Path> directories = new LinkedHashSet<Path>();
+        long debounce = DEFAULT_DEBOUNCE;
+        for (int i = 1; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.startsWith("--debounce=")) {
+                try {
+                    debounce = Long.parseLong(arg.substring("--debounce=".length()));
+                } catch (NumberFormatException e) {
+                    System.err.println("Invalid debounce delay : " + arg);
+                    return 2;
+                }
+            } else if (arg.equals("-j") && i + 1 < args.length) {
+                options.add(arg);
+                options.add(args[++i]);
+            } else if (arg.startsWith("-")) {
+                options.add(arg);
+            } else {
+                Path path = Paths.get(arg).toAbsolutePath().normalize();
+                if (Files.isDirectory(path)) {
+                    directories.add(path);
+                } else {
+                    files.add(path);
+                }
+            }
+        }
+        if (files.isEmpty() && directories.isEmpty()) {
+            files.add(Paths.get("input.txt").toAbsolutePath());
+        }
+        return new Watcher(options, files, directories, debounce).watch() ? 0 : 2;
+    }
+
+    /**
+     * Compiles all the watched files, then the changed ones until the process is stopped.
+     * @return false if the options are invalid.
+     */
+    private boolean watch() throws IOException {
+        try (WatchService service = FileSystems.getDefault().newWatchService()) {
+            Map<WatchKey, Path> keys = new HashMap<WatchKey, Path>();
+            Set<Path> watched = new LinkedHashSet<Path>(this.directories);
+            for (Path file : this.files) {
+                watched.add(file.getParent());
+            }
+            for (Path directory : watched) {
+                keys.put(directory.register(service, StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY), directory);
+            }
+            Set<Path> initial = new LinkedHashSet<Path>(this.files);
+            for (Path directory : this.directories) {
+                try (DirectoryStream<Path> programs = Files.newDirectoryStream(directory, "*" + PROGRAM_EXTENSION)) {
+                    for (Path program : programs) {
+                        initial.add(program);
+                    }
+                }
+            }
+            if (!this.compile(initial)) {
+                return false;
+            }
+            System.out.println("Watching " + watched.size() + " director" + (watched.size() > 1 ? "ies" : "y")
+                    + ", press Ctrl-C to stop.");
+            while (true) {
+                Set<Path> changed = new LinkedHashSet<Path>();
+                WatchKey key = service.take();
+                // The burst of events of a save ends when no event comes during the debounce delay
+                while (key != null) {
+                    Path directory = keys.get(key);
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() != StandardWatchEventKinds.OVERFLOW && directory != null) {
+                            Path file = directory.resolve((Path) event.context());
+                            if (this.isWatched(file)) {
+                                changed.add(file);
+                            }
+                        }
+                    }
+                    if (!key.reset()) {
+                        keys.remove(key);
+                    }
+                    key = service.poll(this.debounce, TimeUnit.MILLISECONDS);
+                }
+                this.compile(changed);
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            Thread.currentThread().interrupt();
+        }
+        return true;
+    }
+
+    private boolean isWatched(Path file) {
+        return this.files.contains(file)
+                || (this.directories.contains(file.getParent())
+                        && file.getFileName().toString().endsWith(PROGRAM_EXTENSION));
+    }
+
+    /**
+     * Compiles the files one by one and prints the latency of each one.
+     * @return false if the options are invalid.
+     */
+    private boolean compile(Set<Path> changed) {
+        for (Path file : changed) {
+            if (Files.isRegularFile(file)) {
+                List<String> args = new ArrayList<String>(this.options);
+                args.add(file.toString());
+                long start = System.nanoTime();
+                int status = Driver.execute(Paths.get(""), args.toArray(new String[args.size()]));
+                long latency = (System.nanoTime() - start) / 1000000;
+                if (status == 2) {
+                    return false;
+                }
+                System.out.println(file + " : " + (status == 0 ? "compiled" : "failed") + " in " + latency + " ms");
+            }
+        }
+        return true;
+    }
+
+}
@@ -11,7 +11,18 @@ import fr.n7.stl.tam.ast.Fragment;
 import fr.n7.stl.tam.ast.Register;
 import fr.n7.stl.tam.ast.TAMFactory;
 import fr.n7.stl.util.Logger;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Represents a Block node in the Abstract Syntax Tree node for the Bloc
@@ -117,9 +128,10 @@ public class Block {
 		boolean result = true;
 
 		for (Instruction instruction : this.instructions) {
+			int errors = Logger.errors();
 			boolean resolved = instruction.completeResolve(_scope);
-			if (!resolved) {
-				Logger.error("Error: Failed to resolve instruction: " + instruction);
+			if (!resolved && Logger.errors() == errors) {
+				Logger.error(instruction, "Failed to resolve the instruction.");
 			}
 			result = resolved && result;
 		}
@@ -141,6 +153,117 @@ public class Block {
 		return result;
 	}
 
+	/**
+	 * Fused semantics analysis of the instructions of the block, in order. The functions of the
+	 * block are declared first, so that a function can call the ones declared after it and the
+	 * functions can call each other.
+	 * 
+	 * @param _scope     Inherited Scope attribute that contains the identifiers
+	 *                   defined previously in the context.
+	 * @param _function  Inherited Container attribute that allows to link the
+	 *                   return instructions with the function declaration, null
+	 *                   outside of functions.
+	 * @return Synthesized True if all the instructions are correct, False if not.
+	 */
+	public boolean analyse(HierarchicalScope<Declaration> _scope, FunctionDeclaration _function) {
+		// The analysis carries on after an incorrect instruction to report all the errors
+		boolean result = true;
+		Set<FunctionDeclaration> declared = Collections.newSetFromMap(new IdentityHashMap<FunctionDeclaration, Boolean>());
+		for (Instruction instruction : this.instructions) {
+			if (instruction instanceof FunctionDeclaration) {
+				FunctionDeclaration function = (FunctionDeclaration) instruction;
+				if (function.declare(_scope)) {
+					declared.add(function);
+				} else {
+					result = false;
+				}
+			}
+		}
+		for (Instruction instruction : this.instructions) {
+			if (instruction instanceof FunctionDeclaration) {
+				FunctionDeclaration function = (FunctionDeclaration) instruction;
+				result = declared.contains(function) && function.analyseBody(_scope) && result;
+			} else {
+				result = instruction.analyse(_scope, _function) && result;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Synthesized Semantics attribute to fold the constant expressions of the instructions, in
+	 * order : a constant is folded before its uses.
+	 */
+	public void foldConstants() {
+		this.instructions.replaceAll(Instruction::foldConstants);
+	}
+
+	/**
+	 * Synthesized Semantics attribute to remove the code of the block that is never executed once
+	 * the constants are folded : the instructions that follow an instruction that always returns.
+	 * 
+	 * @param _functions Synthesized Names of the functions called by the remaining instructions.
+	 * @return Synthesized True if the execution can continue after the block, False if it always
+	 *         returns.
+	 */
+	public boolean eliminateDeadCode(Collection<String> _functions) {
+		boolean result = true;
+		Iterator<Instruction> iterator = this.instructions.iterator();
+		while (iterator.hasNext()) {
+			Instruction instruction = iterator.next();
+			if (result) {
+				result = instruction.eliminateDeadCode(_functions);
+			} else {
+				iterator.remove();
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Remove the code of the main block that is never executed, then the functions it declares
+	 * that are called neither by its other instructions nor by the functions they call. The call
+	 * graph links the names of the functions, as the generated calls do.
+	 * 
+	 * @return The removed functions, in the order of the block.
+	 */
+	public List<FunctionDeclaration> eliminateDeadCode() {
+		Set<String> called = new HashSet<String>();
+		Map<String, Set<String>> callees = new HashMap<String, Set<String>>();
+		boolean reachable = true;
+		Iterator<Instruction> iterator = this.instructions.iterator();
+		while (iterator.hasNext()) {
+			Instruction instruction = iterator.next();
+			if (!reachable) {
+				iterator.remove();
+			} else if (instruction instanceof FunctionDeclaration) {
+				instruction.eliminateDeadCode(callees.computeIfAbsent(((FunctionDeclaration) instruction).getName(),
+						name -> new HashSet<String>()));
+			} else {
+				reachable = instruction.eliminateDeadCode(called);
+			}
+		}
+		Deque<String> pending = new ArrayDeque<String>(called);
+		while (!pending.isEmpty()) {
+			for (String callee : callees.getOrDefault(pending.pop(), Collections.emptySet())) {
+				if (called.add(callee)) {
+					pending.push(callee);
+				}
+			}
+		}
+		List<FunctionDeclaration> removed = new LinkedList<FunctionDeclaration>();
+		iterator = this.instructions.iterator();
+		while (iterator.hasNext()) {
+			Instruction instruction = iterator.next();
+			if (instruction instanceof FunctionDeclaration
+					&& !called.contains(((FunctionDeclaration) instruction).getName())) {
+				removed.add((FunctionDeclaration) instruction);
+				iterator.remove();
+			}
+		}
+		return removed;
+	}
+
 	/**
 	 * Inherited Semantics attribute to allocate memory for the variables declared
 	 * in the instruction.
@@ -10,7 +10,10 @@ import fr.n7.stl.tam.ast.TAMFactory;
  * @author Marc Pantel
  *
  */
-public abstract class AbstractAccess {
+public abstract class AbstractAccess extends AbstractTypedNode {
+
+	protected AbstractAccess() {
+	}
 	
 	/**
 	 * Provide access to the declaration of the identifier.
@@ -18,11 +21,11 @@ public abstract class AbstractAccess {
 	 */
 	protected abstract Declaration getDeclaration();
 	
-	/**
-	 * Synthesized Semantics attribute to compute the type of an identifier expression.
-	 * @return Synthesized Type of the expression.
+	/* (non-Javadoc)
+	 * @see fr.n7.stl.minic.ast.expression.AbstractTypedNode#computeType()
 	 */
-	public Type getType() {
+	@Override
+	protected Type computeType() {
 		return this.getDeclaration().getType();
 	}
 	
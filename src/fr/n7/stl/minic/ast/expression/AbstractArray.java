@@ -1,13 +1,15 @@
 package fr.n7.stl.minic.ast.expression;
 
-import fr.n7.stl.minic.ast.SemanticsUndefinedException;
 import fr.n7.stl.minic.ast.expression.accessible.AccessibleExpression;
 import fr.n7.stl.minic.ast.scope.Declaration;
 import fr.n7.stl.minic.ast.scope.HierarchicalScope;
 import fr.n7.stl.minic.ast.type.ArrayType;
+import fr.n7.stl.minic.ast.type.AtomicType;
 import fr.n7.stl.minic.ast.type.Type;
 import fr.n7.stl.util.Logger;
 
+import java.util.Collection;
+
 /**
  * Common elements between left (Assignable) and right (Expression) end sides of
  * assignments. These elements
@@ -16,7 +18,7 @@ import fr.n7.stl.util.Logger;
  * @author Marc Pantel
  *
  */
-public abstract class AbstractArray<ArrayKind extends Expression> implements Expression {
+public abstract class AbstractArray<ArrayKind extends Expression> extends AbstractTypedNode implements Expression {
 
 	/**
 	 * AST node that represents the expression whose result is an array.
@@ -79,34 +81,58 @@ public abstract class AbstractArray<ArrayKind extends Expression> implements Exp
 	@Override
 	public boolean completeResolve(HierarchicalScope<Declaration> _scope) {
 		// Résout le tableau et l'indice
+		int errors = Logger.errors();
 		boolean arrayResolved = this.array.completeResolve(_scope);
 		boolean indexResolved = this.index.completeResolve(_scope);
 
-		if (!arrayResolved) {
-			Logger.error("Error: Failed to resolve array in AbstractArray.");
-		}
-		if (!indexResolved) {
-			Logger.error("Error: Failed to resolve index in AbstractArray.");
+		if (Logger.errors() == errors) {
+			if (!arrayResolved) {
+				Logger.error(this, "Failed to resolve the array.");
+			}
+			if (!indexResolved) {
+				Logger.error(this, "Failed to resolve the index.");
+			}
 		}
 
 		return arrayResolved && indexResolved;
 	}
 
-	/**
-	 * Synthesized Semantics attribute to compute the type of an expression.
-	 * 
-	 * @return Synthesized Type of the expression.
+	/* (non-Javadoc)
+	 * @see fr.n7.stl.minic.ast.expression.AbstractTypedNode#computeType()
 	 */
 	@Override
-	public Type getType() {
+	protected Type computeType() {
 		// Vérifie si le type de l'expression du tableau est un type de tableau
 		Type arrayType = this.array.getType();
 		if (arrayType instanceof ArrayType) {
 			// Retourne le type des éléments du tableau
 			return ((ArrayType) arrayType).getType();
 		} else {
-			throw new SemanticsUndefinedException("The type is not an array.");
+			if (arrayType != AtomicType.ErrorType) {
+				Logger.error(this, "The type " + arrayType + " is not an array.");
+			}
+			return AtomicType.ErrorType;
 		}
 	}
 
+	/* (non-Javadoc)
+	 * The array is folded in place, an array is not a value.
+	 * @see fr.n7.stl.minic.ast.expression.Expression#foldConstants()
+	 */
+	@Override
+	public Expression foldConstants() {
+		this.array.foldConstants();
+		this.index = this.index.foldConstants();
+		return this;
+	}
+
+	/* (non-Javadoc)
+	 * @see fr.n7.stl.minic.ast.expression.Expression#collectCalls(java.util.Collection)
+	 */
+	@Override
+	public void collectCalls(Collection<String> _functions) {
+		this.array.collectCalls(_functions);
+		this.index.collectCalls(_functions);
+	}
+
 }
\ No newline at end of file
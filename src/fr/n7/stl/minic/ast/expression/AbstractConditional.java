@@ -3,19 +3,22 @@
  */
 package fr.n7.stl.minic.ast.expression;
 
-import fr.n7.stl.minic.ast.SemanticsUndefinedException;
+import fr.n7.stl.minic.ast.expression.value.BooleanValue;
 import fr.n7.stl.minic.ast.scope.Declaration;
 import fr.n7.stl.minic.ast.scope.HierarchicalScope;
+import fr.n7.stl.minic.ast.type.AtomicType;
 import fr.n7.stl.minic.ast.type.Type;
 import fr.n7.stl.tam.ast.Fragment;
 import fr.n7.stl.tam.ast.TAMFactory;
+import fr.n7.stl.util.Logger;
+import java.util.Collection;
 
 /**
  * Abstract Syntax Tree node for a conditional expression.
  * @author Marc Pantel
  *
  */
-public class AbstractConditional<ExpressionKind extends Expression> implements Expression {
+public class AbstractConditional<ExpressionKind extends Expression> extends AbstractTypedNode implements Expression {
 
 	/**
 	 * AST node for the expression whose value is the condition for the conditional expression.
@@ -80,19 +83,88 @@ public class AbstractConditional<ExpressionKind extends Expression> implements E
 	}
 	
 	/* (non-Javadoc)
-	 * @see fr.n7.stl.block.ast.Expression#getType()
+	 * The merge of the types of the branches.
+	 * @see fr.n7.stl.minic.ast.expression.AbstractTypedNode#computeType()
 	 */
 	@Override
-	public Type getType() {
-		throw new SemanticsUndefinedException( "Semantics getType is undefined in ConditionalExpression.");
+	protected Type computeType() {
+		Type _condition = this.condition.getType();
+		if (!_condition.equalsTo(AtomicType.BooleanType)) {
+			Logger.warning(this, "Type error in conditional expression : condition " + _condition);
+			return AtomicType.ErrorType;
+		}
+		Type _then = this.thenExpression.getType();
+		Type _else = this.elseExpression.getType();
+		Type _result = _then.merge(_else);
+		if (_result.equals(AtomicType.ErrorType)) {
+			Logger.warning(this, "Type error in conditional expression : Merged branches " + _then + " " + _else);
+		}
+		return _result;
 	}
 
 	/* (non-Javadoc)
+	 * The condition and the branches are folded first, the expression is replaced by a branch
+	 * when the condition is a value.
+	 * @see fr.n7.stl.minic.ast.expression.Expression#foldConstants()
+	 */
+	@Override
+	public Expression foldConstants() {
+		this.condition = this.condition.foldConstants();
+		this.thenExpression = this.fold(this.thenExpression);
+		this.elseExpression = this.fold(this.elseExpression);
+		if (this.condition instanceof BooleanValue) {
+			return ((BooleanValue) this.condition).getValue() ? this.thenExpression : this.elseExpression;
+		} else {
+			return this;
+		}
+	}
+
+	/**
+	 * Fold the constant sub-expressions of a branch, which is kept.
+	 * @param _branch Then or else branch.
+	 * @return The folded branch.
+	 */
+	protected ExpressionKind fold(ExpressionKind _branch) {
+		_branch.foldConstants();
+		return _branch;
+	}
+
+	/* (non-Javadoc)
+	 * Only the chosen branch calls functions when the condition is a value.
+	 * @see fr.n7.stl.minic.ast.expression.Expression#collectCalls(java.util.Collection)
+	 */
+	@Override
+	public void collectCalls(Collection<String> _functions) {
+		if (this.condition instanceof BooleanValue) {
+			(((BooleanValue) this.condition).getValue() ? this.thenExpression : this.elseExpression)
+					.collectCalls(_functions);
+		} else {
+			this.condition.collectCalls(_functions);
+			this.thenExpression.collectCalls(_functions);
+			this.elseExpression.collectCalls(_functions);
+		}
+	}
+
+	/* (non-Javadoc)
+	 * Only the chosen branch is generated when the condition is a value.
 	 * @see fr.n7.stl.block.ast.Expression#getCode(fr.n7.stl.tam.ast.TAMFactory)
 	 */
 	@Override
 	public Fragment getCode(TAMFactory _factory) {
-		throw new SemanticsUndefinedException( "Semantics getCode is undefined in ConditionalExpression.");
+		if (this.condition instanceof BooleanValue) {
+			return ((BooleanValue) this.condition).getValue() ? this.thenExpression.getCode(_factory)
+					: this.elseExpression.getCode(_factory);
+		}
+		Fragment _code = this.condition.getCode(_factory);
+		String _else = _factory.createLabel("else");
+		String _end = _factory.createLabel("endif");
+		_code.add(_factory.createJumpIf(_else, 0));
+		_code.append(this.thenExpression.getCode(_factory));
+		_code.add(_factory.createJump(_end));
+		_code.addSuffix(_else);
+		_code.append(this.elseExpression.getCode(_factory));
+		_code.addSuffix(_end);
+		return _code;
 	}
 
 }
@@ -9,6 +9,8 @@ import fr.n7.stl.minic.ast.type.Type;
 import fr.n7.stl.minic.ast.type.declaration.FieldDeclaration;
 import fr.n7.stl.util.Logger;
 
+import java.util.Collection;
+
 /**
  * Common elements between left (Assignable) and right (Expression) end sides of
  * assignments. These elements
@@ -17,7 +19,7 @@ import fr.n7.stl.util.Logger;
  * @author Marc Pantel
  *
  */
-public abstract class AbstractField<RecordKind extends Expression> implements Expression {
+public abstract class AbstractField<RecordKind extends Expression> extends AbstractTypedNode implements Expression {
 
 	protected RecordKind record;
 	protected String name;
@@ -83,14 +85,14 @@ public abstract class AbstractField<RecordKind extends Expression> implements Ex
 
 		// 4. Vérifier que le type est un RecordType
 		if (!(recordType instanceof RecordType)) {
-			Logger.error("Attempting to access field '" + this.name + "' of a non-record type " + recordType);
+			Logger.error(this, "Attempting to access field '" + this.name + "' of a non-record type " + recordType);
 			return false;
 		}
 
 		// 5. Rechercher la déclaration de champ correspondante
 		FieldDeclaration f = ((RecordType) recordType).get(this.name);
 		if (f == null) {
-			Logger.error("Field '" + this.name + "' is not defined in record type " + recordType);
+			Logger.error(this, "Field '" + this.name + "' is not defined in record type " + recordType);
 			return false;
 		}
 
@@ -99,20 +101,36 @@ public abstract class AbstractField<RecordKind extends Expression> implements Ex
 		return true;
 	}
 
-	/**
-	 * Synthesized Semantics attribute to compute the type of an expression.
-	 * 
-	 * @return Synthesized Type of the expression.
+	/* (non-Javadoc)
+	 * @see fr.n7.stl.minic.ast.expression.AbstractTypedNode#computeType()
 	 */
 	@Override
-	public Type getType() {
+	protected Type computeType() {
 		if (this.field != null) {
 			return this.field.getType();
 		}
 		// Si la résolution n'est pas encore faite, on renvoie une erreur typée pour
 		// éviter NPE
-		Logger.error("getType called on AbstractField before complete resolution for field '" + this.name + "'.");
+		Logger.error(this, "getType called on AbstractField before complete resolution for field '" + this.name + "'.");
 		return AtomicType.ErrorType;
 	}
 
+	/* (non-Javadoc)
+	 * The record is folded in place, a record is not a value.
+	 * @see fr.n7.stl.minic.ast.expression.Expression#foldConstants()
+	 */
+	@Override
+	public Expression foldConstants() {
+		this.record.foldConstants();
+		return this;
+	}
+
+	/* (non-Javadoc)
+	 * @see fr.n7.stl.minic.ast.expression.Expression#collectCalls(java.util.Collection)
+	 */
+	@Override
+	public void collectCalls(Collection<String> _functions) {
+		this.record.collectCalls(_functions);
+	}
+
 }
\ No newline at end of file
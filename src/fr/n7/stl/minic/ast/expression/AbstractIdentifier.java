@@ -1,6 +1,9 @@
 package fr.n7.stl.minic.ast.expression;
 
 import fr.n7.stl.minic.ast.instruction.declaration.VariableDeclaration;
+import fr.n7.stl.minic.ast.scope.Address;
+import fr.n7.stl.minic.ast.scope.Declaration;
+import fr.n7.stl.minic.ast.scope.HierarchicalScope;
 import fr.n7.stl.minic.ast.type.AtomicType;
 import fr.n7.stl.minic.ast.type.Type;
 import fr.n7.stl.util.Logger;
@@ -11,12 +14,17 @@ import fr.n7.stl.util.Logger;
  * @author Marc Pantel
  *
  */
-public abstract class AbstractIdentifier implements Expression {
+public abstract class AbstractIdentifier extends AbstractTypedNode implements Expression {
 
 	/**
 	 * Name of the variable.
 	 */
 	protected String name;
+
+	/**
+	 * Address of the declaration of the variable, null until the name is resolved.
+	 */
+	protected Address address;
 	
 	/**
 	 * Creates a variable related expression Abstract Syntax Tree node.
@@ -26,6 +34,22 @@ public abstract class AbstractIdentifier implements Expression {
 		this.name = _name;
 	}
 	
+	/**
+	 * Provide the declaration of the identifier : its name is looked for in the scope the first
+	 * time only, then its address is used.
+	 * @param _scope Scope where the identifier is used.
+	 * @return Declaration of the identifier, null if the scope does not know it.
+	 */
+	protected Declaration lookup(HierarchicalScope<Declaration> _scope) {
+		if (this.address == null) {
+			this.address = _scope.resolve(this.name);
+			if (this.address == null) {
+				return null;
+			}
+		}
+		return _scope.get(this.address);
+	}
+
 	/* (non-Javadoc)
 	 * @see java.lang.Object#toString()
 	 */
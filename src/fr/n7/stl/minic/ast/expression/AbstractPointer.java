@@ -1,10 +1,13 @@
 package fr.n7.stl.minic.ast.expression;
 
-import fr.n7.stl.minic.ast.SemanticsUndefinedException;
 import fr.n7.stl.minic.ast.scope.Declaration;
 import fr.n7.stl.minic.ast.scope.HierarchicalScope;
+import fr.n7.stl.minic.ast.type.AtomicType;
 import fr.n7.stl.minic.ast.type.PointerType;
 import fr.n7.stl.minic.ast.type.Type;
+import fr.n7.stl.util.Logger;
+
+import java.util.Collection;
 
 /**
  * Common elements between left (Assignable) and right (Expression) end sides of
@@ -14,7 +17,7 @@ import fr.n7.stl.minic.ast.type.Type;
  * @author Marc Pantel
  *
  */
-public abstract class AbstractPointer<PointerKind extends Expression> implements Expression {
+public abstract class AbstractPointer<PointerKind extends Expression> extends AbstractTypedNode implements Expression {
 
 	/**
 	 * AST node that represents an expression whose value is a pointer.
@@ -68,20 +71,39 @@ public abstract class AbstractPointer<PointerKind extends Expression> implements
 		return this.pointer.completeResolve(_scope);
 	}
 
-	/**
-	 * Synthesized Semantics attribute to compute the type of an expression.
-	 * 
-	 * @return Synthesized Type of the expression.
+	/* (non-Javadoc)
+	 * @see fr.n7.stl.minic.ast.expression.AbstractTypedNode#computeType()
 	 */
 	@Override
-	public Type getType() {
+	protected Type computeType() {
 		// Vérifie si le type du pointeur est un PointerType
 		Type pointerType = this.pointer.getType();
 		if (pointerType instanceof PointerType) {
 			return ((PointerType) pointerType).getPointedType();
 		} else {
-			throw new SemanticsUndefinedException("The type is not a pointer.");
+			if (pointerType != AtomicType.ErrorType) {
+				Logger.error(this, "The type " + pointerType + " is not a pointer.");
+			}
+			return AtomicType.ErrorType;
 		}
 	}
 
+	/* (non-Javadoc)
+	 * The pointer is folded in place, the null value is never dereferenced by a valid program.
+	 * @see fr.n7.stl.minic.ast.expression.Expression#foldConstants()
+	 */
+	@Override
+	public Expression foldConstants() {
+		this.pointer.foldConstants();
+		return this;
+	}
+
+	/* (non-Javadoc)
+	 * @see fr.n7.stl.minic.ast.expression.Expression#collectCalls(java.util.Collection)
+	 */
+	@Override
+	public void collectCalls(Collection<String> _functions) {
+		this.pointer.collectCalls(_functions);
+	}
+
 }
\ No newline at end of file
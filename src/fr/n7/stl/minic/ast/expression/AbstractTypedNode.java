@@ -0,0 +1,50 @@
+/**
+ *
+ */
+package fr.n7.stl.minic.ast.expression;
+
+import fr.n7.stl.minic.ast.type.Type;
+
+/**
+ * Common elements of the expression nodes that synthesize their type from their children : the
+ * type is computed by the first call of getType after the resolution of the node, then kept until
+ * the node is resolved again. The nodes and the computations are counted by TypeComputations.
+ * Literal values have a constant type and do not extend this class.
+ *
+ */
+public abstract class AbstractTypedNode {
+
+	/**
+	 * Synthesized type of the node, null until it is computed.
+	 */
+	private Type type;
+
+	protected AbstractTypedNode() {
+		TypeComputations.created();
+	}
+
+	/**
+	 * Synthesized Semantics attribute to compute the type of an expression.
+	 * @return Synthesized Type of the expression.
+	 */
+	public Type getType() {
+		if (this.type == null) {
+			this.type = TypeComputations.computed(this.computeType());
+		}
+		return this.type;
+	}
+
+	/**
+	 * Compute the type of the node from its resolved children, called once by getType.
+	 * @return Synthesized Type of the expression.
+	 */
+	protected abstract Type computeType();
+
+	/**
+	 * Forget the computed type, the children of the node are resolved again.
+	 */
+	protected void resetType() {
+		this.type = null;
+	}
+
+}
@@ -6,18 +6,20 @@ package fr.n7.stl.minic.ast.expression;
 import fr.n7.stl.minic.ast.expression.accessible.AccessibleExpression;
 import fr.n7.stl.minic.ast.scope.Declaration;
 import fr.n7.stl.minic.ast.scope.HierarchicalScope;
-import fr.n7.stl.minic.ast.type.CoupleType;
 import fr.n7.stl.minic.ast.type.Type;
+import fr.n7.stl.minic.ast.type.TypeUniverse;
 import fr.n7.stl.tam.ast.Fragment;
 import fr.n7.stl.tam.ast.TAMFactory;
 
+import java.util.Collection;
+
 /**
  * Abstract Syntax Tree node for building a couple value.
  * 
  * @author Marc Pantel
  *
  */
-public class Couple implements AccessibleExpression {
+public class Couple extends AbstractTypedNode implements AccessibleExpression {
 
 	/**
 	 * AST node for the expression whose value is the first value in a couple
@@ -80,14 +82,31 @@ public class Couple implements AccessibleExpression {
 		return _first && _second;
 	}
 
-	/*
-	 * (non-Javadoc)
-	 * 
-	 * @see fr.n7.stl.block.ast.Expression#getType()
+	/* (non-Javadoc)
+	 * @see fr.n7.stl.minic.ast.expression.AbstractTypedNode#computeType()
+	 */
+	@Override
+	protected Type computeType() {
+		return TypeUniverse.couple(this.first.getType(), this.second.getType());
+	}
+
+	/* (non-Javadoc)
+	 * @see fr.n7.stl.minic.ast.expression.accessible.AccessibleExpression#foldConstants()
+	 */
+	@Override
+	public AccessibleExpression foldConstants() {
+		this.first = this.first.foldConstants();
+		this.second = this.second.foldConstants();
+		return this;
+	}
+
+	/* (non-Javadoc)
+	 * @see fr.n7.stl.minic.ast.expression.Expression#collectCalls(java.util.Collection)
 	 */
 	@Override
-	public Type getType() {
-		return new CoupleType(this.first.getType(), this.second.getType());
+	public void collectCalls(Collection<String> _functions) {
+		this.first.collectCalls(_functions);
+		this.second.collectCalls(_functions);
 	}
 
 	/*
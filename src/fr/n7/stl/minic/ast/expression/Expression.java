@@ -7,6 +7,7 @@ import fr.n7.stl.minic.ast.scope.HierarchicalScope;
 import fr.n7.stl.minic.ast.type.Type;
 import fr.n7.stl.tam.ast.Fragment;
 import fr.n7.stl.tam.ast.TAMFactory;
+import java.util.Collection;
 
 /**
  * Represents an Expression node in the Abstract Syntax Tree node for the Bloc language.
@@ -42,6 +43,25 @@ public interface Expression {
 	 * @return Synthesized Type of the expression.
 	 */
 	public Type getType();
+
+	/**
+	 * Synthesized Semantics attribute to fold the constant sub-expressions once the types have
+	 * been checked : they are replaced by the value they compute. Only the expressions whose
+	 * value is computed without error are folded, the others are evaluated when the program runs.
+	 * @return Synthesized Value of the expression if it is constant, the expression itself with
+	 * its sub-expressions folded if it is not.
+	 */
+	public default Expression foldConstants() {
+		return this;
+	}
+
+	/**
+	 * Synthesized Semantics attribute to collect the functions called by the expression once its
+	 * constants are folded, they build the call graph of the program.
+	 * @param _functions Synthesized Names of the called functions, completed by the expression.
+	 */
+	public default void collectCalls(Collection<String> _functions) {
+	}
 	
 	/**
 	 * Inherited Semantics attribute to build the nodes of the abstract syntax tree for the generated TAM code.
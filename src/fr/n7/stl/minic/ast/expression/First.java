@@ -13,6 +13,8 @@ import fr.n7.stl.tam.ast.Fragment;
 import fr.n7.stl.tam.ast.Register;
 import fr.n7.stl.tam.ast.TAMFactory;
 
+import java.util.Collection;
+
 /**
  * Abstract Syntax Tree node for an expression extracting the first component in
  * a couple.
@@ -20,7 +22,7 @@ import fr.n7.stl.tam.ast.TAMFactory;
  * @author Marc Pantel
  *
  */
-public class First implements AccessibleExpression {
+public class First extends AbstractTypedNode implements AccessibleExpression {
 
 	/**
 	 * AST node for the expression whose value must whose first element is extracted
@@ -72,13 +74,11 @@ public class First implements AccessibleExpression {
 		return this.target.completeResolve(_scope);
 	}
 
-	/*
-	 * (non-Javadoc)
-	 * 
-	 * @see fr.n7.stl.block.ast.Expression#getType()
+	/* (non-Javadoc)
+	 * @see fr.n7.stl.minic.ast.expression.AbstractTypedNode#computeType()
 	 */
 	@Override
-	public Type getType() {
+	protected Type computeType() {
 		Type targetType = this.target.getType();
 		if (targetType instanceof CoupleType) {
 			return ((CoupleType) targetType).getFirst();
@@ -86,6 +86,23 @@ public class First implements AccessibleExpression {
 		return AtomicType.ErrorType;
 	}
 
+	/* (non-Javadoc)
+	 * @see fr.n7.stl.minic.ast.expression.accessible.AccessibleExpression#foldConstants()
+	 */
+	@Override
+	public AccessibleExpression foldConstants() {
+		this.target = this.target.foldConstants();
+		return this;
+	}
+
+	/* (non-Javadoc)
+	 * @see fr.n7.stl.minic.ast.expression.Expression#collectCalls(java.util.Collection)
+	 */
+	@Override
+	public void collectCalls(Collection<String> _functions) {
+		this.target.collectCalls(_functions);
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
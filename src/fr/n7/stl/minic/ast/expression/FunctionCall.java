@@ -5,13 +5,16 @@ package fr.n7.stl.minic.ast.expression;
 
 import fr.n7.stl.minic.ast.expression.accessible.AccessibleExpression;
 import fr.n7.stl.minic.ast.instruction.declaration.FunctionDeclaration;
+import fr.n7.stl.minic.ast.scope.Address;
 import fr.n7.stl.minic.ast.scope.Declaration;
 import fr.n7.stl.minic.ast.scope.HierarchicalScope;
+import fr.n7.stl.minic.ast.type.AtomicType;
 import fr.n7.stl.minic.ast.type.Type;
 import fr.n7.stl.tam.ast.Fragment;
 import fr.n7.stl.tam.ast.Register;
 import fr.n7.stl.tam.ast.TAMFactory;
 import fr.n7.stl.util.Logger;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -20,7 +23,7 @@ import java.util.List;
  * @author Marc Pantel
  *
  */
-public class FunctionCall implements AccessibleExpression {
+public class FunctionCall extends AbstractTypedNode implements AccessibleExpression {
 
 	/**
 	 * Name of the called function.
@@ -38,6 +41,11 @@ public class FunctionCall implements AccessibleExpression {
 	 */
 	protected FunctionDeclaration function;
 
+	/**
+	 * Address of the declaration of the called function, null until the name is resolved.
+	 */
+	protected Address address;
+
 	/**
 	 * List of AST nodes that computes the values of the parameters for the function
 	 * call.
@@ -86,7 +94,7 @@ public String toString() {
 	 */
 	@Override
 	public boolean collectAndPartialResolve(HierarchicalScope<Declaration> _scope) {
-		Declaration d = _scope.get(this.name);
+		Declaration d = this.lookup(_scope);
 		boolean result = true;
 
 		if (d instanceof FunctionDeclaration) {
@@ -94,7 +102,7 @@ public String toString() {
 
 			// Vérifie que le nombre d'arguments correspond au nombre de paramètres
 			if (this.arguments.size() != this.function.getParameters().size()) {
-				Logger.error("Incorrect number of arguments for function " + this.name + ".");
+				Logger.error(this, "Incorrect number of arguments for function " + this.name + ".");
 				return false;
 			}
 
@@ -106,7 +114,7 @@ public String toString() {
 			return result;
 
 		} else {
-			Logger.error("The function identifier " + this.name + " is not defined or is not a function.");
+			Logger.error(this, "The function identifier " + this.name + " is not defined or is not a function.");
 			this.function = null;
 			return false;
 		}
@@ -116,7 +124,7 @@ public String toString() {
     this.function = _function; // 🔁 lien avec soi-même pour récursivité
 
     if (this.arguments.size() != _function.getParameters().size()) {
-        Logger.error("Incorrect number of arguments for recursive function " + this.name);
+        Logger.error(this, "Incorrect number of arguments for recursive function " + this.name);
         return false;
     }
 
@@ -129,6 +137,22 @@ public String toString() {
 }
 
 
+	/**
+	 * Provide the declaration of the called function : its name is looked for in the scope the
+	 * first time only, then its address is used.
+	 * @param _scope Scope where the function is called.
+	 * @return Declaration of the function, null if the scope does not know it.
+	 */
+	private Declaration lookup(HierarchicalScope<Declaration> _scope) {
+		if (this.address == null) {
+			this.address = _scope.resolve(this.name);
+			if (this.address == null) {
+				return null;
+			}
+		}
+		return _scope.get(this.address);
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -139,9 +163,9 @@ public String toString() {
 	@Override
 	public boolean completeResolve(HierarchicalScope<Declaration> _scope) {
 		// 1. Resolve function declaration
-		Declaration declaration = _scope.get(this.name);
+		Declaration declaration = this.lookup(_scope);
 		if (declaration == null || !(declaration instanceof FunctionDeclaration)) {
-			Logger.error("Function " + this.name + " is not defined.");
+			Logger.error(this, "Function " + this.name + " is not defined.");
 			return false;
 		}
 		this.function = (FunctionDeclaration) declaration;
@@ -155,18 +179,37 @@ public String toString() {
 		return result;
 	}
 
-	/*
-	 * (non-Javadoc)
-	 * 
-	 * @see fr.n7.stl.block.ast.Expression#getType()
+	/* (non-Javadoc)
+	 * @see fr.n7.stl.minic.ast.expression.AbstractTypedNode#computeType()
 	 */
 	@Override
-	public Type getType() {
+	protected Type computeType() {
 		if (this.function != null) {
 			return this.function.getType();
 		} else {
-			Logger.error("Function " + this.name + " is not declared.");
-			return null;
+			Logger.error(this, "Function " + this.name + " is not declared.");
+			return AtomicType.ErrorType;
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see fr.n7.stl.minic.ast.expression.accessible.AccessibleExpression#foldConstants()
+	 */
+	@Override
+	public AccessibleExpression foldConstants() {
+		this.arguments.replaceAll(AccessibleExpression::foldConstants);
+		return this;
+	}
+
+	/* (non-Javadoc)
+	 * The called function is identified by its name, as in the generated call.
+	 * @see fr.n7.stl.minic.ast.expression.Expression#collectCalls(java.util.Collection)
+	 */
+	@Override
+	public void collectCalls(Collection<String> _functions) {
+		_functions.add(this.name);
+		for (AccessibleExpression _argument : this.arguments) {
+			_argument.collectCalls(_functions);
 		}
 	}
 
@@ -13,6 +13,8 @@ import fr.n7.stl.tam.ast.Fragment;
 import fr.n7.stl.tam.ast.Register;
 import fr.n7.stl.tam.ast.TAMFactory;
 
+import java.util.Collection;
+
 /**
  * Implementation of the Abstract Syntax Tree node for an expression extracting
  * the second component in a couple.
@@ -20,7 +22,7 @@ import fr.n7.stl.tam.ast.TAMFactory;
  * @author Marc Pantel
  *
  */
-public class Second implements AccessibleExpression {
+public class Second extends AbstractTypedNode implements AccessibleExpression {
 
 	/**
 	 * AST node for the expression whose value must whose second element is
@@ -48,13 +50,11 @@ public class Second implements AccessibleExpression {
 		return "(snd" + this.target + ")";
 	}
 
-	/*
-	 * (non-Javadoc)
-	 * 
-	 * @see fr.n7.stl.block.ast.Expression#getType()
+	/* (non-Javadoc)
+	 * @see fr.n7.stl.minic.ast.expression.AbstractTypedNode#computeType()
 	 */
 	@Override
-	public Type getType() {
+	protected Type computeType() {
 		Type targetType = this.target.getType();
 		if (targetType instanceof CoupleType) {
 			return ((CoupleType) targetType).getSecond();
@@ -87,6 +87,23 @@ public class Second implements AccessibleExpression {
 		return this.target.completeResolve(_scope);
 	}
 
+	/* (non-Javadoc)
+	 * @see fr.n7.stl.minic.ast.expression.accessible.AccessibleExpression#foldConstants()
+	 */
+	@Override
+	public AccessibleExpression foldConstants() {
+		this.target = this.target.foldConstants();
+		return this;
+	}
+
+	/* (non-Javadoc)
+	 * @see fr.n7.stl.minic.ast.expression.Expression#collectCalls(java.util.Collection)
+	 */
+	@Override
+	public void collectCalls(Collection<String> _functions) {
+		this.target.collectCalls(_functions);
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
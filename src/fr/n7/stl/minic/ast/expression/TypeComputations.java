@@ -0,0 +1,78 @@
+/**
+ *
+ */
+package fr.n7.stl.minic.ast.expression;
+
+import fr.n7.stl.minic.ast.type.Type;
+
+/**
+ * Counts, for the compiling thread, the expression nodes built and the computations of their
+ * synthesized type. An expression computes its type at the first call of getType after its
+ * resolution and keeps it until the node is rewritten : there are at most as many computations as
+ * nodes, fewer when the type of some expressions is never asked, as the arguments of the calls.
+ * Literal values have a constant type, they are not counted.
+ *
+ */
+public final class TypeComputations {
+
+	private static final int NODES = 0;
+
+	private static final int COMPUTATIONS = 1;
+
+	private static final ThreadLocal<long[]> COUNTS = ThreadLocal.withInitial(() -> new long[2]);
+
+	private TypeComputations() {
+	}
+
+	/**
+	 * Count an expression node, called by the constructor of AbstractTypedNode.
+	 */
+	public static void created() {
+		COUNTS.get()[NODES]++;
+	}
+
+	/**
+	 * Count a computation of the type of an expression.
+	 * @param _type Computed type.
+	 * @return The computed type.
+	 */
+	public static Type computed(Type _type) {
+		COUNTS.get()[COMPUTATIONS]++;
+		return _type;
+	}
+
+	/**
+	 * Count the work done by another thread for the compilation of the current thread.
+	 * @param _nodes Number of expression nodes built by the other thread.
+	 * @param _computations Number of types computed by the other thread.
+	 */
+	public static void merge(long _nodes, long _computations) {
+		long[] _counts = COUNTS.get();
+		_counts[NODES] += _nodes;
+		_counts[COMPUTATIONS] += _computations;
+	}
+
+	/**
+	 * @return Number of expression nodes built by the thread since the last reset.
+	 */
+	public static long getNodes() {
+		return COUNTS.get()[NODES];
+	}
+
+	/**
+	 * @return Number of types computed by the thread since the last reset.
+	 */
+	public static long getComputations() {
+		return COUNTS.get()[COMPUTATIONS];
+	}
+
+	/**
+	 * Start the counts of a new compilation.
+	 */
+	public static void reset() {
+		long[] _counts = COUNTS.get();
+		_counts[NODES] = 0;
+		_counts[COMPUTATIONS] = 0;
+	}
+
+}
@@ -16,4 +16,22 @@ public class AccessibleConditional extends AbstractConditional<AccessibleExpress
 		super(_condition, _then, _else);
 	}
 
+	/* (non-Javadoc)
+	 * @see fr.n7.stl.minic.ast.expression.AbstractConditional#foldConstants()
+	 */
+	@Override
+	public AccessibleExpression foldConstants() {
+		// Either this expression or one of its accessible branches
+		return (AccessibleExpression) super.foldConstants();
+	}
+
+	/* (non-Javadoc)
+	 * The branches are replaced by their values.
+	 * @see fr.n7.stl.minic.ast.expression.AbstractConditional#fold(fr.n7.stl.minic.ast.expression.Expression)
+	 */
+	@Override
+	protected AccessibleExpression fold(AccessibleExpression _branch) {
+		return _branch.foldConstants();
+	}
+
 }
@@ -12,4 +12,13 @@ import fr.n7.stl.minic.ast.expression.Expression;
  */
 public interface AccessibleExpression extends Expression  {
 
+	/* (non-Javadoc)
+	 * The value of an accessible expression can be read, so is the value it is folded into.
+	 * @see fr.n7.stl.minic.ast.expression.Expression#foldConstants()
+	 */
+	@Override
+	public default AccessibleExpression foldConstants() {
+		return this;
+	}
+
 }
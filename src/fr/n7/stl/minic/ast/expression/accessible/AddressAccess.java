@@ -4,14 +4,17 @@
 package fr.n7.stl.minic.ast.expression.accessible;
 
 import fr.n7.stl.minic.ast.SemanticsUndefinedException;
+import fr.n7.stl.minic.ast.expression.AbstractTypedNode;
 import fr.n7.stl.minic.ast.expression.assignable.AssignableExpression;
 import fr.n7.stl.minic.ast.scope.Declaration;
 import fr.n7.stl.minic.ast.scope.HierarchicalScope;
-import fr.n7.stl.minic.ast.type.PointerType;
 import fr.n7.stl.minic.ast.type.Type;
+import fr.n7.stl.minic.ast.type.TypeUniverse;
 import fr.n7.stl.tam.ast.Fragment;
 import fr.n7.stl.tam.ast.TAMFactory;
 
+import java.util.Collection;
+
 /**
  * Implementation of the Abstract Syntax Tree node for accessing an expression
  * address.
@@ -19,7 +22,7 @@ import fr.n7.stl.tam.ast.TAMFactory;
  * @author Marc Pantel
  *
  */
-public class AddressAccess implements AccessibleExpression {
+public class AddressAccess extends AbstractTypedNode implements AccessibleExpression {
 
 	protected AssignableExpression assignable;
 
@@ -59,20 +62,36 @@ public class AddressAccess implements AccessibleExpression {
 		return this.assignable.completeResolve(_scope);
 	}
 
-	/*
-	 * (non-Javadoc)
-	 * 
-	 * @see fr.n7.stl.block.ast.Expression#getType()
+	/* (non-Javadoc)
+	 * @see fr.n7.stl.minic.ast.expression.AbstractTypedNode#computeType()
 	 */
 	@Override
-	public Type getType() {
+	protected Type computeType() {
 		// Vérifie si le type de l'expression assignable est défini
 		Type assignableType = this.assignable.getType();
 		if (assignableType == null) {
 			throw new SemanticsUndefinedException("The type of the assignable expression is null in AddressAccess.");
 		}
 		// Retourne un pointeur vers le type de l'expression assignable
-		return new PointerType(assignableType);
+		return TypeUniverse.pointer(assignableType);
+	}
+
+	/* (non-Javadoc)
+	 * The assignable expression is folded in place, it stays assignable.
+	 * @see fr.n7.stl.minic.ast.expression.accessible.AccessibleExpression#foldConstants()
+	 */
+	@Override
+	public AccessibleExpression foldConstants() {
+		this.assignable.foldConstants();
+		return this;
+	}
+
+	/* (non-Javadoc)
+	 * @see fr.n7.stl.minic.ast.expression.Expression#collectCalls(java.util.Collection)
+	 */
+	@Override
+	public void collectCalls(Collection<String> _functions) {
+		this.assignable.collectCalls(_functions);
 	}
 
 	/*
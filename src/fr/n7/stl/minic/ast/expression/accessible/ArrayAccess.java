@@ -29,6 +29,15 @@ public class ArrayAccess extends AbstractArray<AccessibleExpression> implements
 		super(_array, _index);
 	}
 
+	/* (non-Javadoc)
+	 * @see fr.n7.stl.minic.ast.expression.accessible.AccessibleExpression#foldConstants()
+	 */
+	@Override
+	public AccessibleExpression foldConstants() {
+		super.foldConstants();
+		return this;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -45,10 +54,10 @@ public class ArrayAccess extends AbstractArray<AccessibleExpression> implements
 		code.add(_factory.createLoadL(this.array.getType().length())); // Taille d'un élément
 
 		// Utiliser BinaryOperator.Multiply pour calculer l'offset
-		code.add(TAMFactory.createBinaryOperator(BinaryOperator.Multiply)); // Calcul de l'offset
+		code.add(_factory.createBinaryOperator(BinaryOperator.Multiply)); // Calcul de l'offset
 
 		// Utiliser BinaryOperator.Add pour calculer l'adresse finale
-		code.add(TAMFactory.createBinaryOperator(BinaryOperator.Add)); // Adresse de l'élément
+		code.add(_factory.createBinaryOperator(BinaryOperator.Add)); // Adresse de l'élément
 
 		return code;
 	}
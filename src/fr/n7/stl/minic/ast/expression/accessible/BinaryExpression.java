@@ -3,8 +3,12 @@
  */
 package fr.n7.stl.minic.ast.expression.accessible;
 
+import fr.n7.stl.minic.ast.expression.AbstractTypedNode;
 import fr.n7.stl.minic.ast.expression.Expression;
 import fr.n7.stl.minic.ast.expression.FunctionCall;
+import fr.n7.stl.minic.ast.expression.value.BooleanValue;
+import fr.n7.stl.minic.ast.expression.value.IntegerValue;
+import fr.n7.stl.minic.ast.expression.value.Value;
 import fr.n7.stl.minic.ast.instruction.declaration.FunctionDeclaration;
 import fr.n7.stl.minic.ast.scope.Declaration;
 import fr.n7.stl.minic.ast.scope.HierarchicalScope;
@@ -14,6 +18,8 @@ import fr.n7.stl.tam.ast.Fragment;
 import fr.n7.stl.tam.ast.TAMFactory;
 import fr.n7.stl.util.Logger;
 
+import java.util.Collection;
+
 /**
  * Abstract Syntax Tree node for a binary expression.
  * @author Marc Pantel
@@ -23,7 +29,7 @@ import fr.n7.stl.util.Logger;
  * @author Marc Pantel
  *
  */
-public class BinaryExpression implements AccessibleExpression {
+public class BinaryExpression extends AbstractTypedNode implements AccessibleExpression {
 
 	/**
 	 * AST node for the expression whose value is the left parameter for the binary expression.
@@ -94,15 +100,15 @@ public String toString() {
 	}
 
 	/* (non-Javadoc)
-	 * @see fr.n7.stl.block.ast.Expression#getType()
+	 * @see fr.n7.stl.minic.ast.expression.AbstractTypedNode#computeType()
 	 */
 	@Override
-	public Type getType() {
+	protected Type computeType() {
 		Type _left = this.left.getType();
 		Type _right = this.right.getType();
 		Type resultType = _left.merge(_right);
 		if (resultType.equals(AtomicType.ErrorType)) {
-			Logger.warning("Type error in binary expression : Merged parameters " + _left + " " + _right);
+			Logger.warning(this, "Type error in binary expression : Merged parameters " + _left + " " + _right);
 		}
 		switch (this.operator) {
 			case Add: {
@@ -110,7 +116,7 @@ public String toString() {
 						|| resultType.compatibleWith(AtomicType.StringType))  {
 					return resultType;
 				} else {
-					Logger.warning("Type error in binary expression : " + this.operator + " parameter " + resultType);
+					Logger.warning(this, "Type error in binary expression : " + this.operator + " parameter " + resultType);
 					return AtomicType.ErrorType;
 				}
 			}
@@ -120,7 +126,7 @@ public String toString() {
 				if (resultType.compatibleWith(AtomicType.FloatingType)) {
 					return resultType;
 				} else {
-					Logger.warning("Type error in binary expression : " + this.operator + " parameter " + resultType);
+					Logger.warning(this, "Type error in binary expression : " + this.operator + " parameter " + resultType);
 					return AtomicType.ErrorType;
 				}
 			}
@@ -128,7 +134,7 @@ public String toString() {
 				if (resultType.compatibleWith(AtomicType.IntegerType)) {
 					return resultType;
 				} else {
-					Logger.warning("Type error in binary expression : " + this.operator + " parameter " + resultType);
+					Logger.warning(this, "Type error in binary expression : " + this.operator + " parameter " + resultType);
 					return AtomicType.ErrorType;
 				}
 			}
@@ -139,7 +145,7 @@ public String toString() {
 				if (resultType.compatibleWith(AtomicType.FloatingType)) {
 					return AtomicType.BooleanType;
 				} else {
-					Logger.warning("Type error in binary expression : " + this.operator + " parameter " + resultType);
+					Logger.warning(this, "Type error in binary expression : " + this.operator + " parameter " + resultType);
 					return AtomicType.ErrorType;
 				}				
 			}
@@ -155,6 +161,76 @@ public String toString() {
 		}
 	}
 
+	/* (non-Javadoc)
+	 * The operands are folded first. The operation is folded when both are integer or boolean
+	 * values, unless it fails when the program runs (overflow or division by zero) or its result
+	 * does not fit in a LOADL.
+	 * @see fr.n7.stl.minic.ast.expression.accessible.AccessibleExpression#foldConstants()
+	 */
+	@Override
+	public AccessibleExpression foldConstants() {
+		this.left = this.left.foldConstants();
+		this.right = this.right.foldConstants();
+		Value _value = null;
+		if (this.left instanceof IntegerValue && this.right instanceof IntegerValue) {
+			_value = this.fold(((IntegerValue) this.left).getValue(), ((IntegerValue) this.right).getValue());
+		} else if (this.left instanceof BooleanValue && this.right instanceof BooleanValue) {
+			_value = this.fold(((BooleanValue) this.left).getValue(), ((BooleanValue) this.right).getValue());
+		}
+		return (_value == null) ? this : _value;
+	}
+
+	/* (non-Javadoc)
+	 * @see fr.n7.stl.minic.ast.expression.Expression#collectCalls(java.util.Collection)
+	 */
+	@Override
+	public void collectCalls(Collection<String> _functions) {
+		this.left.collectCalls(_functions);
+		this.right.collectCalls(_functions);
+	}
+
+	/**
+	 * Compute the operation on integers as the TAM primitives.
+	 * @return The value of the operation, null if it fails or if it is not loaded by one LOADL.
+	 */
+	private Value fold(int _left, int _right) {
+		int _result;
+		try {
+			switch (this.operator) {
+				case Add: _result = Math.addExact(_left, _right); break;
+				case Substract: _result = Math.subtractExact(_left, _right); break;
+				case Multiply: _result = Math.multiplyExact(_left, _right); break;
+				case Divide: _result = _left / _right; break;
+				case Modulo: _result = _left % _right; break;
+				case Equals: return BooleanValue.of(_left == _right);
+				case Different: return BooleanValue.of(_left != _right);
+				case Lesser: return BooleanValue.of(_left < _right);
+				case Greater: return BooleanValue.of(_left > _right);
+				case LesserOrEqual: return BooleanValue.of(_left <= _right);
+				case GreaterOrEqual: return BooleanValue.of(_left >= _right);
+				default: return null;
+			}
+		} catch (ArithmeticException e) {
+			// Overflow or division by zero, reported when the program runs
+			return null;
+		}
+		return IntegerValue.isLoadable(_result) ? new IntegerValue(_result) : null;
+	}
+
+	/**
+	 * Compute the operation on booleans as the TAM primitives.
+	 * @return The value of the operation, null if it is not a boolean operation.
+	 */
+	private Value fold(boolean _left, boolean _right) {
+		switch (this.operator) {
+			case And: return BooleanValue.of(_left && _right);
+			case Or: return BooleanValue.of(_left || _right);
+			case Equals: return BooleanValue.of(_left == _right);
+			case Different: return BooleanValue.of(_left != _right);
+			default: return null;
+		}
+	}
+
 	/* (non-Javadoc)
 	 * @see fr.n7.stl.block.ast.Expression#getCode(fr.n7.stl.tam.ast.TAMFactory)
 	 */
@@ -171,7 +247,7 @@ public String toString() {
 		 * if (this.right instanceof AccessibleExpression) {
 		 * _result.add(_factory.createLoadI(this.right.getType().length())); }
 		 */
-		_result.add(TAMFactory.createBinaryOperator(this.operator));
+		_result.add(_factory.createBinaryOperator(this.operator));
 		return _result;
 	}
 
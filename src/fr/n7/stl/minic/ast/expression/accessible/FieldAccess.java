@@ -28,6 +28,15 @@ public class FieldAccess extends AbstractField<AccessibleExpression> implements
 		super(_record, _name);
 	}
 
+	/* (non-Javadoc)
+	 * @see fr.n7.stl.minic.ast.expression.accessible.AccessibleExpression#foldConstants()
+	 */
+	@Override
+	public AccessibleExpression foldConstants() {
+		super.foldConstants();
+		return this;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -44,7 +53,7 @@ public class FieldAccess extends AbstractField<AccessibleExpression> implements
 		fragment.add(_factory.createLoadL(this.field.getOffset()));
 
 		// Additionne l'adresse du record et l'offset pour obtenir l'adresse du champ
-		fragment.add(TAMFactory.createBinaryOperator(BinaryOperator.Add));
+		fragment.add(_factory.createBinaryOperator(BinaryOperator.Add));
 
 		return fragment;
 	}
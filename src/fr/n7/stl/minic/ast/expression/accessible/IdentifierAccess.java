@@ -5,6 +5,8 @@ package fr.n7.stl.minic.ast.expression.accessible;
 
 import fr.n7.stl.minic.ast.expression.AbstractAccess;
 import fr.n7.stl.minic.ast.expression.AbstractIdentifier;
+import fr.n7.stl.minic.ast.expression.Expression;
+import fr.n7.stl.minic.ast.expression.value.Value;
 import fr.n7.stl.minic.ast.instruction.declaration.ConstantDeclaration;
 import fr.n7.stl.minic.ast.instruction.declaration.ParameterDeclaration;
 import fr.n7.stl.minic.ast.instruction.declaration.VariableDeclaration;
@@ -58,11 +60,11 @@ public class IdentifierAccess extends AbstractIdentifier implements AccessibleEx
      */
     @Override
     public boolean collectAndPartialResolve(HierarchicalScope<Declaration> _scope) {
-        // Vérifie si l'identifiant est connu dans la portée
-        if (_scope.knows(this.name)) {
-            // Récupère la déclaration associée à l'identifiant
-            Declaration _declaration = _scope.get(this.name);
-
+        // The access is built again, the type of the previous one is obsolete
+        this.resetType();
+        // Récupère la déclaration associée à l'identifiant s'il est connu dans la portée
+        Declaration _declaration = this.lookup(_scope);
+        if (_declaration != null) {
             // Si c'est une variable, crée un accès à la variable
             if (_declaration instanceof VariableDeclaration) {
                 this.expression = new VariableAccess((VariableDeclaration) _declaration);
@@ -77,12 +79,12 @@ public class IdentifierAccess extends AbstractIdentifier implements AccessibleEx
 
                 // Si le type de déclaration n'est pas supporté, log une erreur
             } else {
-                Logger.error("The declaration for " + this.name + " is of the wrong kind.");
+                Logger.error(this, "The declaration for " + this.name + " is of the wrong kind.");
                 return false;
             }
         } else {
             // Si l'identifiant n'est pas trouvé, log une erreur
-            Logger.error("The identifier " + this.name + " has not been found.");
+            Logger.error(this, "The identifier " + this.name + " has not been found.");
             return false;
         }
         return true;
@@ -99,11 +101,9 @@ public class IdentifierAccess extends AbstractIdentifier implements AccessibleEx
     public boolean completeResolve(HierarchicalScope<Declaration> _scope) {
         // Si l'expression n'est pas encore résolue
         if (this.expression == null) {
-            // Vérifie si l'identifiant est connu dans la portée
-            if (_scope.knows(this.name)) {
-                // Récupère la déclaration associée à l'identifiant
-                Declaration _declaration = _scope.get(this.name);
-
+            // Récupère la déclaration associée à l'identifiant s'il est connu dans la portée
+            Declaration _declaration = this.lookup(_scope);
+            if (_declaration != null) {
                 // Si c'est une constante, crée un accès à la constante
                 if (_declaration instanceof ConstantDeclaration) {
                     this.expression = new ConstantAccess((ConstantDeclaration) _declaration);
@@ -121,12 +121,12 @@ public class IdentifierAccess extends AbstractIdentifier implements AccessibleEx
 
                     // Si le type de déclaration n'est pas supporté, log une erreur
                 } else {
-                    Logger.error("The declaration for " + this.name + " is of the wrong kind.");
+                    Logger.error(this, "The declaration for " + this.name + " is of the wrong kind.");
                     return false;
                 }
             } else {
                 // Si l'identifiant n'est pas trouvé, log une erreur
-                Logger.error("The identifier " + this.name + " has not been found.");
+                Logger.error(this, "The identifier " + this.name + " has not been found.");
                 return false;
             }
         } else {
@@ -135,14 +135,30 @@ public class IdentifierAccess extends AbstractIdentifier implements AccessibleEx
         }
     }
 
+    /* (non-Javadoc)
+     * @see fr.n7.stl.minic.ast.expression.AbstractTypedNode#computeType()
+     */
+    @Override
+    protected Type computeType() {
+        return this.expression.getType();
+    }
+
     /*
      * (non-Javadoc)
+     * A constant whose value has been folded is replaced by its value, if it has the same type :
+     * a constant of a named type keeps its type.
      * 
-     * @see fr.n7.stl.block.ast.Expression#getType()
+     * @see fr.n7.stl.minic.ast.expression.accessible.AccessibleExpression#foldConstants()
      */
     @Override
-    public Type getType() {
-        return this.expression.getType();
+    public AccessibleExpression foldConstants() {
+        if (this.expression instanceof ConstantAccess) {
+            Expression _value = ((ConstantDeclaration) ((ConstantAccess) this.expression).getDeclaration()).getValue();
+            if (_value instanceof Value && _value.getType() == this.getType()) {
+                return (Value) _value;
+            }
+        }
+        return this;
     }
 
     /*
@@ -27,6 +27,15 @@ public class PointerAccess extends AbstractPointer<AccessibleExpression> impleme
 		super(_pointer);
 	}
 
+	/* (non-Javadoc)
+	 * @see fr.n7.stl.minic.ast.expression.accessible.AccessibleExpression#foldConstants()
+	 */
+	@Override
+	public AccessibleExpression foldConstants() {
+		super.foldConstants();
+		return this;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
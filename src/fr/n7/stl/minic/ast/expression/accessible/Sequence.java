@@ -3,13 +3,16 @@
  */
 package fr.n7.stl.minic.ast.expression.accessible;
 
+import fr.n7.stl.minic.ast.expression.AbstractTypedNode;
 import fr.n7.stl.minic.ast.expression.Expression;
 import fr.n7.stl.minic.ast.scope.Declaration;
 import fr.n7.stl.minic.ast.scope.HierarchicalScope;
-import fr.n7.stl.minic.ast.type.SequenceType;
 import fr.n7.stl.minic.ast.type.Type;
+import fr.n7.stl.minic.ast.type.TypeUniverse;
 import fr.n7.stl.tam.ast.Fragment;
 import fr.n7.stl.tam.ast.TAMFactory;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
 
@@ -18,7 +21,7 @@ import java.util.List;
  * @author Marc Pantel
  *
  */
-public class Sequence implements AccessibleExpression {
+public class Sequence extends AbstractTypedNode implements AccessibleExpression {
 
 	
 	/**
@@ -75,15 +78,34 @@ public class Sequence implements AccessibleExpression {
 	}
 	
 	/* (non-Javadoc)
-	 * @see fr.n7.stl.block.ast.Expression#getType()
+	 * @see fr.n7.stl.minic.ast.expression.AbstractTypedNode#computeType()
 	 */
 	@Override
-	public Type getType() {
-		SequenceType _result = new SequenceType();
+	protected Type computeType() {
+		List<Type> _result = new ArrayList<Type>();
 		for (Expression _value : this.values) {
 			_result.add(_value.getType());
 		}
-		return _result;
+		return TypeUniverse.sequence(_result);
+	}
+
+	/* (non-Javadoc)
+	 * @see fr.n7.stl.minic.ast.expression.accessible.AccessibleExpression#foldConstants()
+	 */
+	@Override
+	public AccessibleExpression foldConstants() {
+		this.values.replaceAll(AccessibleExpression::foldConstants);
+		return this;
+	}
+
+	/* (non-Javadoc)
+	 * @see fr.n7.stl.minic.ast.expression.Expression#collectCalls(java.util.Collection)
+	 */
+	@Override
+	public void collectCalls(Collection<String> _functions) {
+		for (AccessibleExpression _value : this.values) {
+			_value.collectCalls(_functions);
+		}
 	}
 
 	/* (non-Javadoc)
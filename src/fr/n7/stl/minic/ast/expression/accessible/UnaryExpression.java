@@ -3,6 +3,9 @@
  */
 package fr.n7.stl.minic.ast.expression.accessible;
 
+import fr.n7.stl.minic.ast.expression.AbstractTypedNode;
+import fr.n7.stl.minic.ast.expression.value.BooleanValue;
+import fr.n7.stl.minic.ast.expression.value.IntegerValue;
 import fr.n7.stl.minic.ast.scope.Declaration;
 import fr.n7.stl.minic.ast.scope.HierarchicalScope;
 import fr.n7.stl.minic.ast.type.AtomicType;
@@ -11,12 +14,14 @@ import fr.n7.stl.tam.ast.Fragment;
 import fr.n7.stl.tam.ast.TAMFactory;
 import fr.n7.stl.util.Logger;
 
+import java.util.Collection;
+
 /**
  * Implementation of the Abstract Syntax Tree node for an unary operation expression.
  * @author Marc Pantel
  *
  */
-public class UnaryExpression implements AccessibleExpression {
+public class UnaryExpression extends AbstractTypedNode implements AccessibleExpression {
 
 	private UnaryOperator operator;
 	private AccessibleExpression parameter;
@@ -57,10 +62,10 @@ public class UnaryExpression implements AccessibleExpression {
 	}
 	
 	/* (non-Javadoc)
-	 * @see fr.n7.stl.block.ast.Expression#getType()
+	 * @see fr.n7.stl.minic.ast.expression.AbstractTypedNode#computeType()
 	 */
 	@Override
-	public Type getType() {
+	protected Type computeType() {
 		Type resultType = this.parameter.getType();
 		if (resultType.equals(AtomicType.ErrorType)) {
 			return resultType;
@@ -70,7 +75,7 @@ public class UnaryExpression implements AccessibleExpression {
 					if (resultType.compatibleWith(AtomicType.BooleanType))  {
 						return resultType;
 					} else {
-						Logger.warning("Type error in unary expression : Negate parameter " + resultType);
+						Logger.warning(this, "Type error in unary expression : Negate parameter " + resultType);
 						return AtomicType.ErrorType;
 					}
 				}
@@ -78,7 +83,7 @@ public class UnaryExpression implements AccessibleExpression {
 					if (resultType.compatibleWith(AtomicType.FloatingType)) {
 						return resultType;
 					} else {
-						Logger.warning("Type error in unary expression : Opposite parameter " + resultType);
+						Logger.warning(this, "Type error in unary expression : Opposite parameter " + resultType);
 						return AtomicType.ErrorType;
 					}
 				}
@@ -87,6 +92,32 @@ public class UnaryExpression implements AccessibleExpression {
 		}
 	}
 
+	/* (non-Javadoc)
+	 * The parameter is folded first, the operation is folded when it is a value, unless the
+	 * opposite is not loaded by one LOADL.
+	 * @see fr.n7.stl.minic.ast.expression.accessible.AccessibleExpression#foldConstants()
+	 */
+	@Override
+	public AccessibleExpression foldConstants() {
+		this.parameter = this.parameter.foldConstants();
+		if (this.operator == UnaryOperator.Negate && this.parameter instanceof BooleanValue) {
+			return BooleanValue.of(!((BooleanValue) this.parameter).getValue());
+		} else if (this.operator == UnaryOperator.Opposite && this.parameter instanceof IntegerValue
+				&& IntegerValue.isLoadable(-((IntegerValue) this.parameter).getValue())) {
+			return new IntegerValue(-((IntegerValue) this.parameter).getValue());
+		} else {
+			return this;
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see fr.n7.stl.minic.ast.expression.Expression#collectCalls(java.util.Collection)
+	 */
+	@Override
+	public void collectCalls(Collection<String> _functions) {
+		this.parameter.collectCalls(_functions);
+	}
+
 	/* (non-Javadoc)
 	 * @see fr.n7.stl.block.ast.Expression#getCode(fr.n7.stl.tam.ast.TAMFactory)
 	 */
@@ -98,7 +129,7 @@ public class UnaryExpression implements AccessibleExpression {
 		 * if (this.parameter instanceof AccessibleExpression) {
 		 * _result.add(_factory.createLoadI(this.parameter.getType().length())); }
 		 */
-		_result.add(TAMFactory.createUnaryOperator(this.operator));
+		_result.add(_factory.createUnaryOperator(this.operator));
 		return _result;
 	}
 
@@ -3,7 +3,7 @@
  */
 package fr.n7.stl.minic.ast.expression.allocation;
 
-import fr.n7.stl.minic.ast.SemanticsUndefinedException;
+import fr.n7.stl.minic.ast.expression.AbstractTypedNode;
 import fr.n7.stl.minic.ast.expression.Expression;
 import fr.n7.stl.minic.ast.expression.accessible.AccessibleExpression;
 import fr.n7.stl.minic.ast.expression.accessible.BinaryOperator;
@@ -12,19 +12,22 @@ import fr.n7.stl.minic.ast.scope.Declaration;
 import fr.n7.stl.minic.ast.scope.HierarchicalScope;
 import fr.n7.stl.minic.ast.type.AtomicType;
 import fr.n7.stl.minic.ast.type.Type;
+import fr.n7.stl.minic.ast.type.TypeUniverse;
 import fr.n7.stl.tam.ast.Fragment;
 import fr.n7.stl.tam.ast.Library;
 import fr.n7.stl.tam.ast.TAMFactory;
-import fr.n7.stl.minic.ast.type.ArrayType;
+import fr.n7.stl.util.Logger;
 import fr.n7.stl.minic.ast.expression.accessible.BinaryOperator;
 import fr.n7.stl.tam.ast.Library;
 
+import java.util.Collection;
+
 
 /**
  * @author Marc Pantel
  *
  */
-public class ArrayAllocation implements AccessibleExpression, AssignableExpression {
+public class ArrayAllocation extends AbstractTypedNode implements AccessibleExpression, AssignableExpression {
 
 	protected Type element;
 	protected Expression size;
@@ -70,17 +73,35 @@ public class ArrayAllocation implements AccessibleExpression, AssignableExpressi
 	}
 
 	/* (non-Javadoc)
-	 * @see fr.n7.stl.block.ast.Expression#getType()
+	 * @see fr.n7.stl.minic.ast.expression.AbstractTypedNode#computeType()
 	 */
 	@Override
-	public Type getType() {
+	protected Type computeType() {
 		Type sizeType = this.size.getType();
 
         if (!sizeType.compatibleWith(AtomicType.IntegerType)) {
-            throw new SemanticsUndefinedException("Array size must be an integer, found: " + sizeType);
+            Logger.error(this, "Array size must be an integer, found: " + sizeType);
+            return AtomicType.ErrorType;
         }
 
-        return new ArrayType(this.element);
+        return TypeUniverse.array(this.element);
+	}
+
+	/* (non-Javadoc)
+	 * @see fr.n7.stl.minic.ast.expression.accessible.AccessibleExpression#foldConstants()
+	 */
+	@Override
+	public ArrayAllocation foldConstants() {
+		this.size = this.size.foldConstants();
+		return this;
+	}
+
+	/* (non-Javadoc)
+	 * @see fr.n7.stl.minic.ast.expression.Expression#collectCalls(java.util.Collection)
+	 */
+	@Override
+	public void collectCalls(Collection<String> _functions) {
+		this.size.collectCalls(_functions);
 	}
 
 	/* (non-Javadoc)
@@ -96,9 +117,9 @@ public class ArrayAllocation implements AccessibleExpression, AssignableExpressi
         // Push element size onto stack and multiply
         fragment.add(_factory.createLoadL(this.element.length()));
         
-		fragment.add(TAMFactory.createBinaryOperator(BinaryOperator.Multiply));
+		fragment.add(_factory.createBinaryOperator(BinaryOperator.Multiply));
         // Allocate required memory on heap
-		fragment.add(Library.MAlloc);
+		fragment.add(_factory.createSubr(Library.MAlloc));
         
         return fragment;
 	}
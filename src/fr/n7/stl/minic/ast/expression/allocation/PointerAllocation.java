@@ -4,12 +4,13 @@
 package fr.n7.stl.minic.ast.expression.allocation;
 
 import fr.n7.stl.minic.ast.SemanticsUndefinedException;
+import fr.n7.stl.minic.ast.expression.AbstractTypedNode;
 import fr.n7.stl.minic.ast.expression.accessible.AccessibleExpression;
 import fr.n7.stl.minic.ast.expression.assignable.AssignableExpression;
 import fr.n7.stl.minic.ast.scope.Declaration;
 import fr.n7.stl.minic.ast.scope.HierarchicalScope;
-import fr.n7.stl.minic.ast.type.PointerType;
 import fr.n7.stl.minic.ast.type.Type;
+import fr.n7.stl.minic.ast.type.TypeUniverse;
 import fr.n7.stl.tam.ast.Fragment;
 import fr.n7.stl.tam.ast.Library;
 import fr.n7.stl.tam.ast.TAMFactory;
@@ -18,7 +19,7 @@ import fr.n7.stl.tam.ast.TAMFactory;
  * @author Marc Pantel
  *
  */
-public class PointerAllocation implements AccessibleExpression, AssignableExpression {
+public class PointerAllocation extends AbstractTypedNode implements AccessibleExpression, AssignableExpression {
 
 	protected Type element;
 
@@ -52,15 +53,15 @@ public class PointerAllocation implements AccessibleExpression, AssignableExpres
 	}
 
 	/* (non-Javadoc)
-	 * @see fr.n7.stl.block.ast.Expression#getType()
+	 * @see fr.n7.stl.minic.ast.expression.AbstractTypedNode#computeType()
 	 */
 	@Override
-	public Type getType() {
+	protected Type computeType() {
 	
 		if (this.element == null) {
 			throw new SemanticsUndefinedException("Element type for pointer allocation is null.");
 		}
-		return new PointerType(this.element);
+		return TypeUniverse.pointer(this.element);
 	}
 
 	/* (non-Javadoc)
@@ -71,7 +72,7 @@ public class PointerAllocation implements AccessibleExpression, AssignableExpres
 		Fragment code = _factory.createFragment();
 		// Taille 1 mot (adresse du pointeur)
 		code.add(_factory.createLoadL(this.element.length()));
-		code.add(Library.MAlloc);
+		code.add(_factory.createSubr(Library.MAlloc));
 		return code;
 	}
 
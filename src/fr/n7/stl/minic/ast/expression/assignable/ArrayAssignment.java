@@ -52,10 +52,10 @@ public class ArrayAssignment extends AbstractArray<AssignableExpression> impleme
 		fragment.add(_factory.createLoadL(this.array.getType().length()));
 
 		// 4. Multiply index by element size to get actual offset
-		fragment.add(TAMFactory.createBinaryOperator(BinaryOperator.Multiply));
+		fragment.add(_factory.createBinaryOperator(BinaryOperator.Multiply));
 
 		// 5. Add the offset to base address to get target address
-		fragment.add(TAMFactory.createBinaryOperator(BinaryOperator.Add));
+		fragment.add(_factory.createBinaryOperator(BinaryOperator.Add));
 
 		// Return the complete fragment containing array assignment code
 		return fragment;
@@ -41,14 +41,11 @@ public class FieldAssignment extends AbstractField<AssignableExpression> impleme
         fragment.append(this.record.getCode(_factory));
         
         // 2. Add the offset of the field within the record
-        // This offset is calculated from the record's type declaration
-		//int fieldOffset = this.record.getType().getOffset(this.name);
-		//fragment.add(_factory.createLoadL(fieldOffset));
-
-		fragment.add(_factory.createLoadL(0)); // Remplacer 0 par l'offset réel plus tard
+        // This offset is calculated when the record type is resolved
+		fragment.add(_factory.createLoadL(this.field.getOffset()));
         
         // 3. Add the offset to the base address to get field address
-    	fragment.add(TAMFactory.createBinaryOperator(BinaryOperator.Add));
+    	fragment.add(_factory.createBinaryOperator(BinaryOperator.Add));
         
         return fragment;
     }
@@ -45,17 +45,17 @@ public class VariableAssignment extends AbstractIdentifier implements Assignable
 	// declaration dyalo variable declaration sinon katrja3 erreur
 	@Override
 	public boolean collectAndPartialResolve(HierarchicalScope<Declaration> _scope) {
-		if (((HierarchicalScope<Declaration>) _scope).knows(this.name)) {
-			Declaration _declaration = _scope.get(this.name);
+		Declaration _declaration = this.lookup(_scope);
+		if (_declaration != null) {
 			if (_declaration instanceof VariableDeclaration) {
 				this.declaration = ((VariableDeclaration) _declaration);
 				return true;
 			} else {
-				Logger.error("The declaration for " + this.name + " is of the wrong kind.");
+				Logger.error(this, "The declaration for " + this.name + " is of the wrong kind.");
 				return false;
 			}
 		} else {
-			Logger.error("The identifier " + this.name + " has not been found.");
+			Logger.error(this, "The identifier " + this.name + " has not been found.");
 			return false;
 		}
 	}
@@ -93,28 +93,26 @@ public class VariableAssignment extends AbstractIdentifier implements Assignable
 	 */
 	@Override
 	public boolean completeResolve(HierarchicalScope<Declaration> _scope) {
-		if (_scope.knows(this.name)) {
-			Declaration declaration = _scope.get(this.name);
+		Declaration declaration = this.lookup(_scope);
+		if (declaration != null) {
 			if (declaration instanceof VariableDeclaration) {
 				this.declaration = (VariableDeclaration) declaration;
 				return true;
 			} else {
-				Logger.error("The declaration for " + this.name + " is of the wrong kind.");
+				Logger.error(this, "The declaration for " + this.name + " is of the wrong kind.");
 				return false;
 			}
 		} else {
-			Logger.error("Variable " + this.name + " has not been declared.");
+			Logger.error(this, "Variable " + this.name + " has not been declared.");
 			return false;
 		}
 	}
 
-	/*
-	 * (non-Javadoc)
-	 * 
-	 * @see fr.n7.stl.block.ast.impl.VariableUseImpl#getType()
+	/* (non-Javadoc)
+	 * @see fr.n7.stl.minic.ast.expression.AbstractTypedNode#computeType()
 	 */
 	@Override
-	public Type getType() {
+	protected Type computeType() {
 		return this.declaration.getType();
 	}
 
@@ -24,6 +24,21 @@ public enum BooleanValue implements Value {
 	 * Represents the False value.
 	 */
 	False;
+
+	/**
+	 * @param _value Boolean computed by a constant expression.
+	 * @return The value node for the boolean.
+	 */
+	public static BooleanValue of(boolean _value) {
+		return _value ? True : False;
+	}
+
+	/**
+	 * @return The boolean value.
+	 */
+	public boolean getValue() {
+		return this == True;
+	}
 	
 	/* (non-Javadoc)
 	 * @see java.lang.Enum#toString()
@@ -27,6 +27,30 @@ public class IntegerValue implements Value {
 		value = Integer.parseInt(_text);
 	}
 
+	/**
+	 * Builds an integer value expression implementation from the integer computed by a constant
+	 * expression.
+	 * @param _value Value of the integer.
+	 */
+	public IntegerValue(int _value) {
+		this.value = _value;
+	}
+
+	/**
+	 * @param _value Integer computed by a constant expression.
+	 * @return true if the integer is pushed by one LOADL, whose operand is a 16 bits field.
+	 */
+	public static boolean isLoadable(int _value) {
+		return _value >= Short.MIN_VALUE && _value <= Short.MAX_VALUE;
+	}
+
+	/**
+	 * @return The integer value.
+	 */
+	public int getValue() {
+		return this.value;
+	}
+
 	/* (non-Javadoc)
 	 * @see java.lang.Object#toString()
 	 */
@@ -13,6 +13,7 @@ import fr.n7.stl.tam.ast.Fragment;
 import fr.n7.stl.tam.ast.Register;
 import fr.n7.stl.tam.ast.TAMFactory;
 import fr.n7.stl.util.Logger;
+import java.util.Collection;
 
 /**
  * Implementation of the Abstract Syntax Tree node for an array type.
@@ -112,11 +113,68 @@ public class Assignment implements Instruction, Expression {
 		if (assignableType.equals(valueType)) {
 			return true;
 		} else {
-			Logger.error("Type mismatch in assignment: expected " + assignableType + ", but found " + valueType);
+			Logger.error(this, "Type mismatch in assignment: expected " + assignableType + ", but found " + valueType);
 			return false;
 		}
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * Both sides are resolved, even if the first one is not, then their types are compared.
+	 * 
+	 * @see fr.n7.stl.minic.ast.instruction.Instruction#analyse(fr.n7.stl.minic.ast.scope.HierarchicalScope, fr.n7.stl.minic.ast.instruction.declaration.FunctionDeclaration)
+	 */
+	@Override
+	public boolean analyse(HierarchicalScope<Declaration> _scope, FunctionDeclaration _container) {
+		boolean assignableCollected = this.assignable.collectAndPartialResolve(_scope);
+		boolean valueCollected = this.value.collectAndPartialResolve(_scope);
+		if (!(assignableCollected && valueCollected)) {
+			return false;
+		}
+		int errors = Logger.errors();
+		boolean assignableResolved = this.assignable.completeResolve(_scope);
+		boolean valueResolved = this.value.completeResolve(_scope);
+		if (!(assignableResolved && valueResolved)) {
+			return Instruction.unresolved(this, errors);
+		}
+		return this.checkType();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * The assignable expression is folded in place, it stays assignable.
+	 * 
+	 * @see fr.n7.stl.minic.ast.instruction.Instruction#foldConstants()
+	 */
+	@Override
+	public Assignment foldConstants() {
+		this.assignable.foldConstants();
+		this.value = this.value.foldConstants();
+		return this;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see fr.n7.stl.minic.ast.expression.Expression#collectCalls(java.util.Collection)
+	 */
+	@Override
+	public void collectCalls(Collection<String> _functions) {
+		this.assignable.collectCalls(_functions);
+		this.value.collectCalls(_functions);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see fr.n7.stl.minic.ast.instruction.Instruction#eliminateDeadCode(java.util.Collection)
+	 */
+	@Override
+	public boolean eliminateDeadCode(Collection<String> _functions) {
+		this.collectCalls(_functions);
+		return true;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
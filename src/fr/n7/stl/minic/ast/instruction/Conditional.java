@@ -5,6 +5,7 @@ package fr.n7.stl.minic.ast.instruction;
 
 import fr.n7.stl.minic.ast.Block;
 import fr.n7.stl.minic.ast.expression.Expression;
+import fr.n7.stl.minic.ast.expression.value.BooleanValue;
 import fr.n7.stl.minic.ast.instruction.declaration.FunctionDeclaration;
 import fr.n7.stl.minic.ast.scope.Declaration;
 import fr.n7.stl.minic.ast.scope.HierarchicalScope;
@@ -13,6 +14,8 @@ import fr.n7.stl.tam.ast.Fragment;
 import fr.n7.stl.tam.ast.Register;
 import fr.n7.stl.tam.ast.TAMFactory;
 import fr.n7.stl.util.Logger;
+import java.util.Collection;
+import java.util.LinkedList;
 
 /**
  * Implementation of the Abstract Syntax Tree node for a conditional
@@ -106,11 +109,69 @@ public boolean completeResolve(HierarchicalScope<Declaration> _scope) {
 		boolean ok2 = (this.elseBranch != null) ? this.elseBranch.checkType() : true;
 		boolean ok3 = this.condition.getType().equals(AtomicType.BooleanType);
 		if (!ok3) {
-			Logger.error("Condition of the conditional is not a boolean type.");
+			Logger.error(this, "Condition of the conditional is not a boolean type.");
 		}
 		return ok1 && ok2 && ok3;
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * The condition is checked once it is resolved, the branches are analysed even if it is not.
+	 * 
+	 * @see fr.n7.stl.minic.ast.instruction.Instruction#analyse(fr.n7.stl.minic.ast.scope.HierarchicalScope, fr.n7.stl.minic.ast.instruction.declaration.FunctionDeclaration)
+	 */
+	@Override
+	public boolean analyse(HierarchicalScope<Declaration> _scope, FunctionDeclaration _function) {
+		int errors = Logger.errors();
+		boolean ok3 = this.condition.collectAndPartialResolve(_scope) && this.condition.completeResolve(_scope);
+		if (!ok3 && Logger.errors() == errors) {
+			Logger.error(this, "Failed to resolve the condition.");
+		} else if (ok3 && !this.condition.getType().equals(AtomicType.BooleanType)) {
+			Logger.error(this, "Condition of the conditional is not a boolean type.");
+			ok3 = false;
+		}
+		boolean ok1 = this.thenBranch.analyse(_scope, _function);
+		boolean ok2 = (this.elseBranch != null) ? this.elseBranch.analyse(_scope, _function) : true;
+		return ok1 && ok2 && ok3;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * Only the chosen branch is generated when the condition is folded into a value.
+	 * 
+	 * @see fr.n7.stl.minic.ast.instruction.Instruction#foldConstants()
+	 */
+	@Override
+	public Instruction foldConstants() {
+		this.condition = this.condition.foldConstants();
+		this.thenBranch.foldConstants();
+		if (this.elseBranch != null) {
+			this.elseBranch.foldConstants();
+		}
+		return this;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * The branch that is not chosen by a condition folded into a value is removed.
+	 * 
+	 * @see fr.n7.stl.minic.ast.instruction.Instruction#eliminateDeadCode(java.util.Collection)
+	 */
+	@Override
+	public boolean eliminateDeadCode(Collection<String> _functions) {
+		if (this.condition == BooleanValue.True) {
+			this.elseBranch = null;
+			return this.thenBranch.eliminateDeadCode(_functions);
+		} else if (this.condition == BooleanValue.False) {
+			this.thenBranch = new Block(new LinkedList<Instruction>());
+			return (this.elseBranch == null) || this.elseBranch.eliminateDeadCode(_functions);
+		}
+		this.condition.collectCalls(_functions);
+		boolean thenContinues = this.thenBranch.eliminateDeadCode(_functions);
+		boolean elseContinues = (this.elseBranch == null) || this.elseBranch.eliminateDeadCode(_functions);
+		return thenContinues || elseContinues;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -141,8 +202,8 @@ public Fragment getCode(TAMFactory _factory) {
     fragment.append(condition.getCode(_factory));
     
     // Create labels
-    String elseLabel = "else_" + _factory.createLabelNumber();
-    String endLabel = "endif_" + _factory.createLabelNumber();
+    String elseLabel = _factory.createLabel("else");
+    String endLabel = _factory.createLabel("endif");
     
     // Jump to else if condition false
     fragment.add(_factory.createJumpIf(elseLabel, 0));
@@ -166,12 +227,22 @@ public Fragment getCode(TAMFactory _factory) {
 	@Override
 	public Fragment getCode(TAMFactory _factory) {
 		Fragment fragment = _factory.createFragment();
+
+		// Condition folded into a value : only the chosen branch is executed
+		if (this.condition instanceof BooleanValue) {
+			if (((BooleanValue) this.condition).getValue()) {
+				fragment.append(thenBranch.getCode(_factory));
+			} else if (elseBranch != null) {
+				fragment.append(elseBranch.getCode(_factory));
+			}
+			return fragment;
+		}
 	
 		// Code condition n == 0
 		fragment.append(condition.getCode(_factory)); // Génère code pour charger n == 0
 	
-		String elseLabel = "else_" + _factory.createLabelNumber();
-		String endLabel = "endif_" + _factory.createLabelNumber();
+		String elseLabel = _factory.createLabel("else");
+		String endLabel = _factory.createLabel("endif");
 	
 		fragment.add(_factory.createJumpIf(elseLabel, 0)); // si faux (n != 0) sauter else
 	
@@ -189,6 +260,10 @@ public Fragment getCode(TAMFactory _factory) {
 	
 		return fragment;
 	}
+	public Expression getCondition() {
+		return this.condition;
+	}
+
 	public Block getThenBranch() {
 		return this.thenBranch;
 	}
@@ -9,6 +9,8 @@ import fr.n7.stl.minic.ast.scope.HierarchicalScope;
 import fr.n7.stl.tam.ast.Fragment;
 import fr.n7.stl.tam.ast.Register;
 import fr.n7.stl.tam.ast.TAMFactory;
+import fr.n7.stl.util.Logger;
+import java.util.Collection;
 
 /**
  * Represents an Instruction node in the Abstract Syntax Tree node for the Bloc language.
@@ -54,7 +56,53 @@ public interface Instruction {
 	 * @return Synthesized True if the instruction is well typed, False if not.
 	 */
 	public boolean checkType();
+
+	/**
+	 * Fused semantics analysis : the identifiers declarations of the instruction are collected,
+	 * its identifiers uses are resolved and its types are checked before the next instruction
+	 * of the block is analysed, so that each block is traversed once and no body is collected twice.
+	 * Each instruction visits its own declarations and expressions in a single call.
+	 * @param _scope Inherited Scope attribute that contains the identifiers defined previously
+	 * in the context.
+	 * @param _container Inherited Container attribute that allows to link the return instructions
+	 * with the function declaration, null outside of functions.
+	 * @return Synthesized True if the instruction is correct, False if not.
+	 */
+	public boolean analyse(HierarchicalScope<Declaration> _scope, FunctionDeclaration _container);
+
+	/**
+	 * Reports an instruction whose identifiers uses are not resolved by analyse, unless the
+	 * cause was already reported.
+	 * @param _instruction The instruction that is not resolved.
+	 * @param _errors Number of errors reported before its resolution.
+	 * @return Synthesized False, the instruction is not correct.
+	 */
+	public static boolean unresolved(Instruction _instruction, int _errors) {
+		if (Logger.errors() == _errors) {
+			Logger.error(_instruction, "Failed to resolve the instruction.");
+		}
+		return false;
+	}
 	
+	/**
+	 * Synthesized Semantics attribute to fold the constant expressions of the instruction once
+	 * its types have been checked, before its memory is allocated : they are replaced by the values
+	 * they compute.
+	 * @return Synthesized Instruction with its constant expressions folded, which replaces it.
+	 */
+	public Instruction foldConstants();
+
+	/**
+	 * Synthesized Semantics attribute to remove the code of the instruction that is never executed
+	 * once its constants are folded, before its memory is allocated : the instructions that follow
+	 * a return and the branches whose condition is a value.
+	 * @param _functions Synthesized Names of the functions called by the remaining code, completed
+	 * by the instruction.
+	 * @return Synthesized True if the execution can continue after the instruction, False if it
+	 * always returns.
+	 */
+	public boolean eliminateDeadCode(Collection<String> _functions);
+
 	/**
 	 * Inherited Semantics attribute to allocate memory for the variables declared in the instruction.
 	 * Synthesized Semantics attribute that compute the size of the allocated memory. 
@@ -5,6 +5,7 @@ package fr.n7.stl.minic.ast.instruction;
 
 import fr.n7.stl.minic.ast.Block;
 import fr.n7.stl.minic.ast.expression.Expression;
+import fr.n7.stl.minic.ast.expression.value.BooleanValue;
 import fr.n7.stl.minic.ast.instruction.declaration.FunctionDeclaration;
 import fr.n7.stl.minic.ast.scope.Declaration;
 import fr.n7.stl.minic.ast.scope.HierarchicalScope;
@@ -13,6 +14,8 @@ import fr.n7.stl.tam.ast.Fragment;
 import fr.n7.stl.tam.ast.Register;
 import fr.n7.stl.tam.ast.TAMFactory;
 import fr.n7.stl.util.Logger;
+import java.util.Collection;
+import java.util.LinkedList;
 
 /**
  * Implementation of the Abstract Syntax Tree node for a conditional
@@ -88,12 +91,64 @@ public class Iteration implements Instruction {
 	@Override
 	public boolean checkType() {
 		if (!this.condition.getType().equalsTo(AtomicType.BooleanType)) {
-			Logger.error("The condition of the while loop must be of type boolean.");
+			Logger.error(this, "The condition of the while loop must be of type boolean.");
 			return false;
 		}
 		return this.body.checkType();
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * The condition is checked once it is resolved, the body is analysed even if it is not.
+	 * 
+	 * @see fr.n7.stl.minic.ast.instruction.Instruction#analyse(fr.n7.stl.minic.ast.scope.HierarchicalScope, fr.n7.stl.minic.ast.instruction.declaration.FunctionDeclaration)
+	 */
+	@Override
+	public boolean analyse(HierarchicalScope<Declaration> _scope, FunctionDeclaration _container) {
+		int errors = Logger.errors();
+		boolean conditionChecked = this.condition.collectAndPartialResolve(_scope)
+				&& this.condition.completeResolve(_scope);
+		if (!conditionChecked && Logger.errors() == errors) {
+			Logger.error(this, "Failed to resolve the condition.");
+		} else if (conditionChecked && !this.condition.getType().equalsTo(AtomicType.BooleanType)) {
+			Logger.error(this, "The condition of the while loop must be of type boolean.");
+			conditionChecked = false;
+		}
+		boolean bodyChecked = this.body.analyse(_scope, _container);
+		return conditionChecked && bodyChecked;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * The condition is not evaluated when it is folded into a value.
+	 * 
+	 * @see fr.n7.stl.minic.ast.instruction.Instruction#foldConstants()
+	 */
+	@Override
+	public Instruction foldConstants() {
+		this.condition = this.condition.foldConstants();
+		this.body.foldConstants();
+		return this;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * The body of a loop whose condition is false is removed, a loop whose condition is true is
+	 * only left by a return.
+	 * 
+	 * @see fr.n7.stl.minic.ast.instruction.Instruction#eliminateDeadCode(java.util.Collection)
+	 */
+	@Override
+	public boolean eliminateDeadCode(Collection<String> _functions) {
+		if (this.condition == BooleanValue.False) {
+			this.body = new Block(new LinkedList<Instruction>());
+			return true;
+		}
+		this.condition.collectCalls(_functions);
+		this.body.eliminateDeadCode(_functions);
+		return this.condition != BooleanValue.True;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -115,8 +170,20 @@ public class Iteration implements Instruction {
 	@Override
 	public Fragment getCode(TAMFactory _factory) {
 		Fragment fragment = _factory.createFragment();
-		String startLabel = "while_start_" + _factory.createLabelNumber();
-		String endLabel = "while_end_" + _factory.createLabelNumber();
+
+		// Condition folded into a value : the body is never executed or the loop is not tested
+		if (this.condition == BooleanValue.False) {
+			return fragment;
+		} else if (this.condition == BooleanValue.True) {
+			String loopLabel = _factory.createLabel("while_start");
+			Fragment loop = body.getCode(_factory);
+			loop.add(_factory.createJump(loopLabel));
+			loop.addPrefix(loopLabel);
+			fragment.append(loop);
+			return fragment;
+		}
+		String startLabel = _factory.createLabel("while_start");
+		String endLabel = _factory.createLabel("while_end");
 
 		// Initial jump to condition
 		fragment.add(_factory.createJump(startLabel));
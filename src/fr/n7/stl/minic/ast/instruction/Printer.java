@@ -15,6 +15,7 @@ import fr.n7.stl.tam.ast.Library;
 import fr.n7.stl.tam.ast.Register;
 import fr.n7.stl.tam.ast.TAMFactory;
 import fr.n7.stl.util.Logger;
+import java.util.Collection;
 
 /**
  * Implementation of the Abstract Syntax Tree node for a printer instruction.
@@ -81,7 +82,7 @@ public class Printer implements Instruction {
 	public boolean checkType() {
 		// Vérifie si le type de l'expression est valide
 		if (this.parameter.getType() == null) {
-			Logger.error("The expression to print has no type.");
+			Logger.error(this, "The expression to print has no type.");
 			return false;
 		}
 		return true; // Accepte tous les types pour l'instant
@@ -92,20 +93,60 @@ public class Printer implements Instruction {
 	public boolean checkType() {
 		Type type = this.parameter.getType();
 		if (type == null) {
-			Logger.error("The expression to print has no type.");
+			Logger.error(this, "The expression to print has no type.");
 			return false;
 		}
 		if (!(type.equalsTo(AtomicType.IntegerType)
 			|| type.equalsTo(AtomicType.BooleanType)
 			|| type.equalsTo(AtomicType.CharacterType)
 			|| type.equalsTo(AtomicType.StringType))) {
-			Logger.error("Type " + type + " is not printable.");
+			Logger.error(this, "Type " + type + " is not printable.");
 			return false;
 		}
 		return true;
 	}*/
 
 
+	/*
+	 * (non-Javadoc)
+	 * The printed expression is resolved then typed.
+	 * 
+	 * @see fr.n7.stl.minic.ast.instruction.Instruction#analyse(fr.n7.stl.minic.ast.scope.HierarchicalScope, fr.n7.stl.minic.ast.instruction.declaration.FunctionDeclaration)
+	 */
+	@Override
+	public boolean analyse(HierarchicalScope<Declaration> _scope, FunctionDeclaration _container) {
+		if (!this.parameter.collectAndPartialResolve(_scope)) {
+			return false;
+		}
+		int errors = Logger.errors();
+		if (!this.parameter.completeResolve(_scope)) {
+			return Instruction.unresolved(this, errors);
+		}
+		return this.checkType();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see fr.n7.stl.minic.ast.instruction.Instruction#foldConstants()
+	 */
+	@Override
+	public Instruction foldConstants() {
+		this.parameter = this.parameter.foldConstants();
+		return this;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see fr.n7.stl.minic.ast.instruction.Instruction#eliminateDeadCode(java.util.Collection)
+	 */
+	@Override
+	public boolean eliminateDeadCode(Collection<String> _functions) {
+		this.parameter.collectCalls(_functions);
+		return true;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -133,13 +174,13 @@ public class Printer implements Instruction {
 		Type type = this.parameter.getType();
 
 		if (type.equalsTo(AtomicType.IntegerType)) {
-			fragment.add(Library.IOut);
+			fragment.add(_factory.createSubr(Library.IOut));
 		} else if (type.equalsTo(AtomicType.BooleanType)) {
-			fragment.add(Library.BOut);
+			fragment.add(_factory.createSubr(Library.BOut));
 		} else if (type.equalsTo(AtomicType.CharacterType)) {
-			fragment.add(Library.COut);
+			fragment.add(_factory.createSubr(Library.COut));
 		} else {
-			fragment.add(Library.SOut);  // chaîne ou autre
+			fragment.add(_factory.createSubr(Library.SOut));  // chaîne ou autre
 		}
 
 		return fragment;
@@ -13,6 +13,7 @@ import fr.n7.stl.tam.ast.Fragment;
 import fr.n7.stl.tam.ast.Register;
 import fr.n7.stl.tam.ast.TAMFactory;
 import fr.n7.stl.util.Logger;
+import java.util.Collection;
 
 /**
  * Implementation of the Abstract Syntax Tree node for a return instruction.
@@ -98,13 +99,13 @@ public boolean collectAndPartialResolve(HierarchicalScope<Declaration> _scope, F
 	public boolean checkType() {
 		// Verify that the function is associated
 		if (this.function == null) {
-			Logger.error("Return statement is not associated with a function.");
+			Logger.error(this, "Return statement is not associated with a function.");
 			return false;
 		}
 
 		// Check if the return type matches the function's declared return type
 		if (!this.value.getType().equalsTo(this.function.getType())) {
-			Logger.error("The return type does not match the declared return type of the function "
+			Logger.error(this, "The return type does not match the declared return type of the function "
 					+ this.function.getName());
 			return false;
 		}
@@ -112,6 +113,50 @@ public boolean collectAndPartialResolve(HierarchicalScope<Declaration> _scope, F
 		return true;
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * The return is linked to the analysed function, outside of a function it is reported by
+	 * checkType.
+	 * 
+	 * @see fr.n7.stl.minic.ast.instruction.Instruction#analyse(fr.n7.stl.minic.ast.scope.HierarchicalScope, fr.n7.stl.minic.ast.instruction.declaration.FunctionDeclaration)
+	 */
+	@Override
+	public boolean analyse(HierarchicalScope<Declaration> _scope, FunctionDeclaration _container) {
+		boolean collected = (_container == null) ? this.value.collectAndPartialResolve(_scope)
+				: this.collectAndPartialResolve(_scope, _container);
+		if (!collected) {
+			return false;
+		}
+		int errors = Logger.errors();
+		if (!this.value.completeResolve(_scope)) {
+			return Instruction.unresolved(this, errors);
+		}
+		return this.checkType();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see fr.n7.stl.minic.ast.instruction.Instruction#foldConstants()
+	 */
+	@Override
+	public Instruction foldConstants() {
+		this.value = this.value.foldConstants();
+		return this;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * The instructions that follow a return are never executed.
+	 * 
+	 * @see fr.n7.stl.minic.ast.instruction.Instruction#eliminateDeadCode(java.util.Collection)
+	 */
+	@Override
+	public boolean eliminateDeadCode(Collection<String> _functions) {
+		this.value.collectCalls(_functions);
+		return false;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -12,6 +12,7 @@ import fr.n7.stl.tam.ast.Fragment;
 import fr.n7.stl.tam.ast.Register;
 import fr.n7.stl.tam.ast.TAMFactory;
 import fr.n7.stl.util.Logger;
+import java.util.Collection;
 
 /**
  * Implementation of the Abstract Syntax Tree node for a constant declaration
@@ -102,7 +103,7 @@ public class ConstantDeclaration implements Instruction, Declaration {
 			_scope.register(this);
 			return this.value.collectAndPartialResolve(_scope);
 		} else {
-			Logger.error("Constant " + this.name + " is already declared in this scope.");
+			Logger.error(this, "Constant " + this.name + " is already declared in this scope.");
 			return false;
 		}
 	}
@@ -136,11 +137,52 @@ public class ConstantDeclaration implements Instruction, Declaration {
 		if (this.type.equals(tval)) {
 			return true;
 		} else {
-			Logger.error("Type mismatch in constant declaration: expected " + this.type + ", but found " + tval);
+			Logger.error(this, "Type mismatch in constant declaration: expected " + this.type + ", but found " + tval);
 			return false;
 		}
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * The constant is registered with its value, which is then resolved and typed.
+	 * 
+	 * @see fr.n7.stl.minic.ast.instruction.Instruction#analyse(fr.n7.stl.minic.ast.scope.HierarchicalScope, fr.n7.stl.minic.ast.instruction.declaration.FunctionDeclaration)
+	 */
+	@Override
+	public boolean analyse(HierarchicalScope<Declaration> _scope, FunctionDeclaration _container) {
+		if (!this.collectAndPartialResolve(_scope)) {
+			return false;
+		}
+		int errors = Logger.errors();
+		if (!this.value.completeResolve(_scope)) {
+			return Instruction.unresolved(this, errors);
+		}
+		return this.checkType();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * The uses of the constant that follow are replaced by its value if it is folded into a value.
+	 * 
+	 * @see fr.n7.stl.minic.ast.instruction.Instruction#foldConstants()
+	 */
+	@Override
+	public Instruction foldConstants() {
+		this.value = this.value.foldConstants();
+		return this;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see fr.n7.stl.minic.ast.instruction.Instruction#eliminateDeadCode(java.util.Collection)
+	 */
+	@Override
+	public boolean eliminateDeadCode(Collection<String> _functions) {
+		this.value.collectCalls(_functions);
+		return true;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
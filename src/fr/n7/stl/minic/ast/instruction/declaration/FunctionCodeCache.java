@@ -0,0 +1,37 @@
+/**
+ *
+ */
+package fr.n7.stl.minic.ast.instruction.declaration;
+
+import fr.n7.stl.tam.ast.Fragment;
+import fr.n7.stl.tam.ast.TAMFactory;
+
+/**
+ * Persistent cache of the code generated for one function declaration. An entry is identified by
+ * a fingerprint of the source of the function and of the declarations it depends on : when the
+ * entry holds a code, the function is unchanged since it was compiled and the analysis of its body
+ * can be skipped.
+ *
+ */
+public interface FunctionCodeCache {
+
+	/**
+	 * @return true if the entry holds the code of the function, false if it must be compiled.
+	 */
+	public boolean isCached();
+
+	/**
+	 * Build the cached code of the function. Its labels are the ones of the stored code, they only
+	 * depend on the function (see TAMFactory.createFunctionFactory).
+	 * @param _factory Factory used to build the fragment.
+	 * @return The code of the function.
+	 */
+	public Fragment load(TAMFactory _factory);
+
+	/**
+	 * Store the code generated for the function, the failures are reported but not propagated.
+	 * @param _code Code of the function, it is not modified.
+	 */
+	public void store(Fragment _code);
+
+}
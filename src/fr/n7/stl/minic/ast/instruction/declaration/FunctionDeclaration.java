@@ -4,6 +4,7 @@
 package fr.n7.stl.minic.ast.instruction.declaration;
 
 import fr.n7.stl.minic.ast.Block;
+import fr.n7.stl.minic.ast.expression.value.BooleanValue;
 import fr.n7.stl.minic.ast.instruction.Conditional;
 import fr.n7.stl.minic.ast.instruction.Instruction;
 import fr.n7.stl.minic.ast.instruction.Return;
@@ -15,6 +16,7 @@ import fr.n7.stl.tam.ast.Fragment;
 import fr.n7.stl.tam.ast.Register;
 import fr.n7.stl.tam.ast.TAMFactory;
 import fr.n7.stl.util.Logger;
+import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
 
@@ -52,6 +54,17 @@ public class FunctionDeclaration implements Instruction, Declaration {
 	 */
 	protected Block body;
 
+	/**
+	 * Persistent cache of the code of the function, null if the compilation is not incremental
+	 */
+	protected FunctionCodeCache cache;
+
+	/**
+	 * Scope of the parameters and of the body, built once by collect or analyse : the uses in the
+	 * body keep the addresses of their declarations in it.
+	 */
+	protected HierarchicalScope<Declaration> localScope;
+
 	/**
 	 * Builds an AST node for a function declaration
 	 * 
@@ -66,6 +79,22 @@ public class FunctionDeclaration implements Instruction, Declaration {
 		this.type = _type;
 		this.parameters = _parameters;
 		this.body = _body;
+		this.cache = null;
+	}
+
+	/**
+	 * Compile the function incrementally : when the cache holds its code, the body of the function
+	 * is neither analysed nor allocated and the cached code is used, otherwise the generated code
+	 * is stored in the cache.
+	 * 
+	 * @param _cache : Entry of the function in the persistent cache of function codes
+	 */
+	public void setCache(FunctionCodeCache _cache) {
+		this.cache = _cache;
+	}
+
+	private boolean isCached() {
+		return this.cache != null && this.cache.isCached();
 	}
 
 	/*
@@ -108,59 +137,16 @@ public class FunctionDeclaration implements Instruction, Declaration {
 
 	/*
 	 * (non-Javadoc)
+	 * The function is only declared, as in the first pass of Block.analyse.
 	 * 
-	 * @see
-	 * fr.n7.stl.block.ast.instruction.Instruction#collect(fr.n7.stl.block.ast.scope
-	 * .Scope)
-	 */
-	// cette methode enregistre d'abord le nom de la fonction dans le scope
-	// puis enregistre les parametres dans le scope local
-	// puis appelle la methode collect de la classe Block
-	// pour enregistrer les declarations locales
-	// et les instructions
-	// de la fonction
-	// elle renvoie true si tout s'est bien passé
-	// sinon elle renvoie false
-	// int add(int x, int y) {
-	// return x + y;}
-	/*
-	 * The function add is registered in the global scope.
-	 * The parameters x and y are registered in the local scope of the function.
-	 * The body of the function (return x + y;) is resolved using the local scope.
+	 * @see fr.n7.stl.minic.ast.instruction.Instruction#collectAndPartialResolve(fr.n7.stl.minic.ast.scope.HierarchicalScope)
 	 */
+	@Override
+	public boolean collectAndPartialResolve(HierarchicalScope<Declaration> _scope) {
+		return this.declare(_scope);
+	}
 
-	 // filepath: /Users/elayboudiimane/Documents/semantique/TDL/src/fr/n7/stl/minic/ast/instruction/declaration/FunctionDeclaration.java
-	 @Override
-	 public boolean collectAndPartialResolve(HierarchicalScope<Declaration> _scope) {
-		 // Register the function in the global scope
-		 if (_scope.accepts(this)) {
-			 _scope.register(this);
-		 } else {
-			 Logger.error("Function " + this.name + " is already declared in this scope.");
-			 return false;
-		 }
-	 
-		 // Create a local scope for the function's parameters and body
-		 HierarchicalScope<Declaration> localScope = new SymbolTable(_scope);
-		     localScope.register(this); // ✅ POURQUOI ? Pour permettre l'appel récursif
-
-		 // Register parameters in the local scope
-		 boolean parametersResolved = true;
-		 for (ParameterDeclaration parameter : this.parameters) {
-			 if (localScope.accepts(parameter)) {
-				 localScope.register(parameter);
-			 } else {
-				 Logger.error("Parameter " + parameter.getName() + " is already declared in this scope.");
-				 parametersResolved = false;
-			 }
-		 }
-	 
-		 // Pass the FunctionDeclaration instance to the body
-		 boolean bodyResolved = this.body.collectAndPartialResolve(localScope, this);
-	 
-		 return parametersResolved && bodyResolved;
-	 }
-@Override
+	@Override
 	public boolean collectAndPartialResolve(HierarchicalScope<Declaration> _scope, FunctionDeclaration _function) {
 		// Delegate to the existing collectAndPartialResolve method
 		return this.collectAndPartialResolve(_scope);
@@ -168,62 +154,110 @@ public class FunctionDeclaration implements Instruction, Declaration {
 
 	/*
 	 * (non-Javadoc)
+	 * The body is analysed once all the declarations of the block are collected, its types are
+	 * checked with it.
 	 * 
 	 * @see
 	 * fr.n7.stl.block.ast.instruction.Instruction#resolve(fr.n7.stl.block.ast.scope
 	 * .Scope)
 	 */
 	@Override
-
 	public boolean completeResolve(HierarchicalScope<Declaration> _scope) {
-		// Fully resolve the parameters
+		return this.analyseBody(_scope);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * The body was checked by completeResolve.
+	 * 
+	 * @see fr.n7.stl.block.ast.Instruction#checkType()
+	 */
+	@Override
+	public boolean checkType() {
+		return true;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * The function is registered, then its body is analysed in the local scope of the
+	 * function that contains the parameters and the declarations of the body. Block.analyse
+	 * declares the functions of the block before it analyses their bodies, see declare.
+	 * 
+	 * @see fr.n7.stl.minic.ast.instruction.Instruction#analyse(fr.n7.stl.minic.ast.scope.HierarchicalScope, fr.n7.stl.minic.ast.instruction.declaration.FunctionDeclaration)
+	 */
+	@Override
+	public boolean analyse(HierarchicalScope<Declaration> _scope, FunctionDeclaration _container) {
+		return this.declare(_scope) && this.analyseBody(_scope);
+	}
+
+	/**
+	 * First part of analyse : register the function. The functions of a block are all declared
+	 * before their bodies are analysed, so that a body can call a function declared after it.
+	 * @param _scope Scope of the declaration of the function.
+	 * @return true if the function is declared, its body must then be analysed by analyseBody.
+	 */
+	public boolean declare(HierarchicalScope<Declaration> _scope) {
+		if (_scope.accepts(this)) {
+			_scope.register(this);
+			return true;
+		} else {
+			Logger.error(this, "Function " + this.name + " is already declared in this scope.");
+			return false;
+		}
+	}
+
+	/**
+	 * Second part of analyse : resolve the types of the parameters and analyse the body, unless
+	 * its code is cached. The body only depends on the declarations of the scope, the bodies of
+	 * different functions can be analysed concurrently in scopes that are not modified.
+	 * @param _scope Scope of the declaration of the function, once the function is declared.
+	 * @return true if the body is correct.
+	 */
+	public boolean analyseBody(HierarchicalScope<Declaration> _scope) {
 		boolean parametersResolved = true;
 		for (ParameterDeclaration parameter : this.parameters) {
 			if (!parameter.getType().completeResolve(_scope)) {
-				Logger.error("The type of parameter " + parameter.getName() + " could not be resolved.");
+				Logger.error(this, "The type of parameter " + parameter.getName() + " could not be resolved.");
 				parametersResolved = false;
 			}
 		}
-
-		// Crée une portée locale et ajoute les paramètres
-		HierarchicalScope<Declaration> localScope = new SymbolTable(_scope);
-		for (ParameterDeclaration parameter : this.parameters) {
-			localScope.register(parameter);
+		if (!parametersResolved || this.isCached()) {
+			return parametersResolved;
 		}
-
-		// Fully resolve the body of the function using la portée locale
-		boolean bodyResolved = this.body.completeResolve(localScope);
-
-		return parametersResolved && bodyResolved;
+		boolean parametersRegistered = this.openScope(_scope);
+		if (!this.body.analyse(this.localScope, this)) {
+			return false;
+		}
+		if (!parametersRegistered) {
+			return false;
+		}
+		if (!hasValidReturn(this.body)) {
+			Logger.error(this, "Function " + this.name + " missing return");
+			return false;
+		}
+		return true;
 	}
 
-	/*
-	 * (non-Javadoc)
-	 * 
-	 * @see fr.n7.stl.block.ast.instruction.Instruction#checkType()
+	/**
+	 * Build the local scope of the function, it contains the function itself for the recursive
+	 * calls and the parameters.
+	 * @param _scope Scope of the declaration of the function.
+	 * @return true if the parameters have different names.
 	 */
-	@Override
-public boolean checkType() {
-    HierarchicalScope<Declaration> functionScope = new SymbolTable();
-    
-    // Register parameters
-    for (ParameterDeclaration param : parameters) {
-        functionScope.register(param);
-    }
-    
-    // Set function context
-    if (!this.body.collectAndPartialResolve(functionScope, this)) {
-        return false;
-    }
-    
-    // Check for returns recursively
-    if (!hasValidReturn(this.body)) {
-        Logger.error("Function " + this.name + " missing return");
-        return false;
-    }
-    
-    return this.body.checkType();
-}
+	private boolean openScope(HierarchicalScope<Declaration> _scope) {
+		this.localScope = new SymbolTable(_scope);
+		this.localScope.register(this);
+		boolean parametersRegistered = true;
+		for (ParameterDeclaration parameter : this.parameters) {
+			if (this.localScope.accepts(parameter)) {
+				this.localScope.register(parameter);
+			} else {
+				Logger.error(this, "Parameter " + parameter.getName() + " is already declared in this scope.");
+				parametersRegistered = false;
+			}
+		}
+		return parametersRegistered;
+	}
 
 private boolean hasValidReturn(Block block) {
     for (Instruction instruction : block.getInstructions()) {
@@ -244,6 +278,34 @@ private boolean hasValidReturn(Block block) {
     return false;
 }
 
+	/*
+	 * (non-Javadoc)
+	 * The body of a cached function is neither analysed nor folded.
+	 * 
+	 * @see fr.n7.stl.minic.ast.instruction.Instruction#foldConstants()
+	 */
+	@Override
+	public Instruction foldConstants() {
+		if (!this.isCached()) {
+			this.body.foldConstants();
+		}
+		return this;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * The declaration itself is not executed, the calls of its body are added. The body of a cached
+	 * function is not folded : only the branches of the conditions written as values are removed,
+	 * the calls of the other ones are kept.
+	 * 
+	 * @see fr.n7.stl.minic.ast.instruction.Instruction#eliminateDeadCode(java.util.Collection)
+	 */
+	@Override
+	public boolean eliminateDeadCode(Collection<String> _functions) {
+		this.body.eliminateDeadCode(_functions);
+		return true;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -253,6 +315,9 @@ private boolean hasValidReturn(Block block) {
 	 */
 	@Override
 	public int allocateMemory(Register _register, int _offset) {
+		if (this.isCached()) {
+			return _offset;
+		}
 		// On crée un registre de base pour les variables locales de la fonction
 		int currentOffset = 0;
 
@@ -273,16 +338,21 @@ private boolean hasValidReturn(Block block) {
 
 	/*
 	 * (non-Javadoc)
+	 * The labels of the body are built by the factory of the function, they do not depend on the
+	 * code generated before it.
 	 * 
 	 * @see fr.n7.stl.block.ast.instruction.Instruction#getCode(fr.n7.stl.tam.ast.
 	 * TAMFactory)
 	 */
 	@Override
 public Fragment getCode(TAMFactory _factory) {
+    if (this.isCached()) {
+        return this.cache.load(_factory);
+    }
     Fragment fragment = _factory.createFragment();
 
     // Ajout du corps (le conditional qui contient then/else)
-    fragment.append(this.body.getCode(_factory));
+    fragment.append(this.body.getCode(_factory.createFunctionFactory(this.name)));
 
     // Ajout du return après le corps (avec taille de la valeur retournée et nombre paramètres)
     //fragment.add(_factory.createReturn(this.type.length(), this.parameters.size()));
@@ -292,10 +362,26 @@ public Fragment getCode(TAMFactory _factory) {
     // Ajout label fonction (pour appel)
     fragment.addPrefix(this.name);
 
+    if (this.cache != null) {
+        this.cache.store(fragment);
+    }
     return fragment;
 }
 
 
+	/**
+	 * Store the code of a function removed from the program in the incremental cache, so that the
+	 * next compilations skip its analysis as for the other functions. The code is not used.
+	 * @param _factory Factory of the code.
+	 */
+	public void storeCode(TAMFactory _factory) {
+		if (this.cache != null && !this.isCached()) {
+			this.allocateMemory(Register.LB, 0);
+			this.getCode(_factory);
+		}
+	}
+
+
 	private boolean bodyHasReturn(Block block) {
 		for (Instruction instr : block.getInstructions()) {
 			if (instr instanceof Return) {          // return explicite
@@ -303,9 +389,10 @@ public Fragment getCode(TAMFactory _factory) {
 			}
 			if (instr instanceof Conditional ) {// if ... else ...
 				Conditional cond = (Conditional) instr;
-				if (bodyHasReturn(cond.getThenBranch())
-				 && cond.getElseBranch() != null
-				 && bodyHasReturn(cond.getElseBranch())) {
+				// seule la branche choisie par une condition constante est exécutée
+				if ((cond.getCondition() == BooleanValue.False || bodyHasReturn(cond.getThenBranch()))
+				 && (cond.getCondition() == BooleanValue.True
+				  || (cond.getElseBranch() != null && bodyHasReturn(cond.getElseBranch())))) {
 					return true;                    // les deux branches retournent
 				}
 			}
@@ -8,6 +8,8 @@ import fr.n7.stl.minic.ast.type.Type;
 import fr.n7.stl.tam.ast.Fragment;
 import fr.n7.stl.tam.ast.Register;
 import fr.n7.stl.tam.ast.TAMFactory;
+import fr.n7.stl.util.Logger;
+import java.util.Collection;
 
 /**
  * Implementation of the Abstract Syntax Tree node for a type declaration.
@@ -62,7 +64,8 @@ public class TypeDeclaration implements Declaration, Instruction {
 			_scope.register(this); // Enregistre la déclaration dans le scope
 			return true;
 		} else {
-			throw new SemanticsUndefinedException("Type " + this.name + " is already declared in this scope.");
+			Logger.error(this, "Type " + this.name + " is already declared in this scope.");
+			return false;
 		}
 	}
 
@@ -116,6 +119,48 @@ public class TypeDeclaration implements Declaration, Instruction {
 		return true;
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * The declared type is registered then resolved, there is no type to check. The types are
+	 * not declared inside the functions, see collectAndPartialResolve.
+	 * 
+	 * @see fr.n7.stl.minic.ast.instruction.Instruction#analyse(fr.n7.stl.minic.ast.scope.HierarchicalScope, fr.n7.stl.minic.ast.instruction.declaration.FunctionDeclaration)
+	 */
+	@Override
+	public boolean analyse(HierarchicalScope<Declaration> _scope, FunctionDeclaration _container) {
+		boolean collected = (_container == null) ? this.collectAndPartialResolve(_scope)
+				: this.collectAndPartialResolve(_scope, _container);
+		if (!collected) {
+			return false;
+		}
+		int errors = Logger.errors();
+		if (!this.type.completeResolve(_scope)) {
+			return Instruction.unresolved(this, errors);
+		}
+		return true;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see fr.n7.stl.minic.ast.instruction.Instruction#foldConstants()
+	 */
+	@Override
+	public Instruction foldConstants() {
+		// A type declaration contains no expression
+		return this;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see fr.n7.stl.minic.ast.instruction.Instruction#eliminateDeadCode(java.util.Collection)
+	 */
+	@Override
+	public boolean eliminateDeadCode(Collection<String> _functions) {
+		return true;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -12,6 +12,7 @@ import fr.n7.stl.tam.ast.Fragment;
 import fr.n7.stl.tam.ast.Register;
 import fr.n7.stl.tam.ast.TAMFactory;
 import fr.n7.stl.util.Logger;
+import java.util.Collection;
 
 /**
  * Abstract Syntax Tree node for a variable declaration instruction.
@@ -132,7 +133,7 @@ public class VariableDeclaration implements Declaration, Instruction {
 			_scope.register(this); // Ajouter la déclaration à la table des symboles
 			return true;
 		} else {
-			Logger.error("Variable " + this.getName() + " is already declared in this scope.");
+			Logger.error(this, "Variable " + this.getName() + " is already declared in this scope.");
 			return false;
 		}
 	}
@@ -160,11 +161,51 @@ public class VariableDeclaration implements Declaration, Instruction {
 		if (type.compatibleWith(this.value.getType()) || this.value.getType().compatibleWith(type)) {
 			return true;
 		} else {
-			Logger.error("The type of " + this.name + " is incompatible.");
+			Logger.error(this, "The type of " + this.name + " is incompatible.");
 			return false;
 		}
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * The variable is registered, then its type and its initial value are resolved and checked.
+	 * 
+	 * @see fr.n7.stl.minic.ast.instruction.Instruction#analyse(fr.n7.stl.minic.ast.scope.HierarchicalScope, fr.n7.stl.minic.ast.instruction.declaration.FunctionDeclaration)
+	 */
+	@Override
+	public boolean analyse(HierarchicalScope<Declaration> _scope, FunctionDeclaration _container) {
+		if (!this.collectAndPartialResolve(_scope)) {
+			return false;
+		}
+		int errors = Logger.errors();
+		if (!this.completeResolve(_scope)) {
+			return Instruction.unresolved(this, errors);
+		}
+		return this.checkType();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see fr.n7.stl.minic.ast.instruction.Instruction#foldConstants()
+	 */
+	@Override
+	public Instruction foldConstants() {
+		this.value = this.value.foldConstants();
+		return this;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see fr.n7.stl.minic.ast.instruction.Instruction#eliminateDeadCode(java.util.Collection)
+	 */
+	@Override
+	public boolean eliminateDeadCode(Collection<String> _functions) {
+		this.value.collectCalls(_functions);
+		return true;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
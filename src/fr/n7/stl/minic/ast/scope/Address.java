@@ -0,0 +1,58 @@
+/**
+ *
+ */
+package fr.n7.stl.minic.ast.scope;
+
+/**
+ * Address of a declaration in a hierarchical scope : the depth of the table that holds the
+ * declaration, 0 for the outermost one, and the slot of the declaration in this table. The slots
+ * are given in registration order and never change, an address stays valid in the table where it
+ * was resolved and in the tables nested in it.
+ *
+ */
+public final class Address {
+
+	private final int depth;
+
+	private final int slot;
+
+	public Address(int _depth, int _slot) {
+		this.depth = _depth;
+		this.slot = _slot;
+	}
+
+	public int getDepth() {
+		return this.depth;
+	}
+
+	public int getSlot() {
+		return this.slot;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#equals(java.lang.Object)
+	 */
+	@Override
+	public boolean equals(Object _other) {
+		return (_other instanceof Address)
+				&& ((Address) _other).depth == this.depth
+				&& ((Address) _other).slot == this.slot;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#hashCode()
+	 */
+	@Override
+	public int hashCode() {
+		return 31 * this.depth + this.slot;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "(" + this.depth + ", " + this.slot + ")";
+	}
+
+}
@@ -17,4 +17,19 @@ public interface HierarchicalScope <D extends Declaration> extends Scope<D> {
 	 */
 	public boolean knows(String _name);
 
+	/**
+	 * Look for an element in the whole hierarchical scope, the uses of the element are then
+	 * linked to it through its address without looking for its name again.
+	 * @param _name : Name of the element looked for in the whole hierarchical scope.
+	 * @return : Address of the element named _name, null if the scope does not know it.
+	 */
+	public Address resolve(String _name);
+
+	/**
+	 * Provide the element at an address.
+	 * @param _address : Address resolved in this scope or in a scope that contains it.
+	 * @return : The element at the address.
+	 */
+	public D get(Address _address);
+
 }
@@ -3,27 +3,81 @@
  */
 package fr.n7.stl.minic.ast.scope;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 
 /**
- * Implementation of a hierarchical scope using maps.
+ * Implementation of a hierarchical scope using maps. The declarations of a table are kept in slots
+ * indexed by registration order : a name is looked for once, its uses keep the address (depth of
+ * the table, slot) of its declaration.
  * @author Marc Pantel
  *
  */
 public class SymbolTable implements HierarchicalScope<Declaration> {
 	
-	private Map<String, Declaration> declarations;
+	/**
+	 * Declarations of the table, indexed by their slot.
+	 */
+	private List<Declaration> slots;
+
+	/**
+	 * Slot of the declaration of each name of the table.
+	 */
+	private Map<String, Integer> indexes;
+
 	private Scope<Declaration> context;
 
+	/**
+	 * Number of tables that contain this one.
+	 */
+	private int depth;
+
+	/**
+	 * Number of declarations registered in this table and in the tables nested in it.
+	 */
+	private int registrations;
+
+	/**
+	 * Number of slots of the table that are visible, the declarations registered after a snapshot
+	 * are hidden from it.
+	 */
+	private int visible;
+
 	public SymbolTable() {
 		this( null );
 	}
 	
 	public SymbolTable(Scope<Declaration> _context) {
-		this.declarations = new HashMap<String,Declaration>();
+		this.slots = new ArrayList<Declaration>();
+		this.indexes = new HashMap<String,Integer>();
 		this.context = _context;
+		this.depth = (_context instanceof SymbolTable) ? ((SymbolTable) _context).depth + 1 : 0;
+		this.registrations = 0;
+		this.visible = Integer.MAX_VALUE;
+	}
+
+	/**
+	 * View of the declarations registered so far : the tables nested in it find the same
+	 * declarations as if they were nested in this table now, whatever is registered later. The
+	 * view shares the slots of the table and must not be registered into, it is read concurrently
+	 * once the table is no more modified.
+	 * @return A view of the current content of the table.
+	 */
+	public SymbolTable snapshot() {
+		SymbolTable _snapshot = new SymbolTable(this.context);
+		_snapshot.slots = this.slots;
+		_snapshot.indexes = this.indexes;
+		_snapshot.depth = this.depth;
+		_snapshot.visible = this.slots.size();
+		return _snapshot;
+	}
+
+	private Integer slot(String _name) {
+		Integer _slot = this.indexes.get(_name);
+		return (_slot != null && _slot < this.visible) ? _slot : null;
 	}
 
 	/* (non-Javadoc)
@@ -31,8 +85,9 @@ public class SymbolTable implements HierarchicalScope<Declaration> {
 	 */
 	@Override
 	public Declaration get(String _name) {
-		if (this.declarations.containsKey(_name)) {
-			return this.declarations.get(_name);
+		Integer _slot = this.slot(_name);
+		if (_slot != null) {
+			return this.slots.get(_slot);
 		} else {
 			if (this.context != null) {
 				return this.context.get(_name);
@@ -47,7 +102,7 @@ public class SymbolTable implements HierarchicalScope<Declaration> {
 	 */
 	@Override
 	public boolean contains(String _name) {
-		return (this.declarations.containsKey(_name));
+		return (this.slot(_name) != null);
 	}
 
 	/* (non-Javadoc)
@@ -64,12 +119,25 @@ public class SymbolTable implements HierarchicalScope<Declaration> {
 	@Override
 	public void register(Declaration _declaration) {
 		if (this.accepts(_declaration)) {
-			this.declarations.put(_declaration.getName(), _declaration);
+			this.indexes.put(_declaration.getName(), this.slots.size());
+			this.slots.add(_declaration);
+			SymbolTable _table = this;
+			while (_table != null) {
+				_table.registrations++;
+				_table = (_table.context instanceof SymbolTable) ? (SymbolTable) _table.context : null;
+			}
 		} else {
 			throw new IllegalArgumentException();
 		}
 	}
 
+	/**
+	 * @return Number of declarations registered in this table and in the tables nested in it.
+	 */
+	public int getRegistrations() {
+		return this.registrations;
+	}
+
 	/* (non-Javadoc)
 	 * @see fr.n7.stl.block.ast.scope.HierarchicalScope#knows(java.lang.String)
 	 */
@@ -90,6 +158,35 @@ public class SymbolTable implements HierarchicalScope<Declaration> {
 		}
 	}
 	
+	/* (non-Javadoc)
+	 * @see fr.n7.stl.minic.ast.scope.HierarchicalScope#resolve(java.lang.String)
+	 */
+	@Override
+	public Address resolve(String _name) {
+		Integer _slot = this.slot(_name);
+		if (_slot != null) {
+			return new Address(this.depth, _slot);
+		} else {
+			if (this.context instanceof HierarchicalScope<?>) {
+				return ((HierarchicalScope<?>) this.context).resolve(_name);
+			} else {
+				return null;
+			}
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see fr.n7.stl.minic.ast.scope.HierarchicalScope#get(fr.n7.stl.minic.ast.scope.Address)
+	 */
+	@Override
+	public Declaration get(Address _address) {
+		SymbolTable _table = this;
+		while (_table.depth > _address.getDepth()) {
+			_table = (SymbolTable) _table.context;
+		}
+		return _table.slots.get(_address.getSlot());
+	}
+
 	/* (non-Javadoc)
 	 * @see java.lang.Object#toString()
 	 */
@@ -100,8 +197,8 @@ public class SymbolTable implements HierarchicalScope<Declaration> {
 			_local += "Hierarchical definitions :\n" + this.context.toString();
 		}
 		_local += "Local definitions : ";
-		for (Entry<String,Declaration> _entry : this.declarations.entrySet()) {
-			_local += _entry.getKey() + " -> " + _entry.getValue().toString() + "\n";
+		for (Entry<String,Integer> _entry : this.indexes.entrySet()) {
+			_local += _entry.getKey() + " -> " + this.slots.get(_entry.getValue()).toString() + "\n";
 		}
 		return _local;
 	}
@@ -25,11 +25,20 @@ public class ArrayType implements Type {
 	 */
 	@Override
 	public boolean equalsTo(Type _other) {
+		if (this == _other) {
+			return true;
+		}
+		Boolean _known = TypeUniverse.known(TypeUniverse.EQUALS, this, _other);
+		if (_known != null) {
+			return _known;
+		}
+		boolean _result;
 		if (_other instanceof ArrayType) {
-			return this.element.equalsTo(((ArrayType) _other).element);
+			_result = this.element.equalsTo(((ArrayType) _other).element);
 		} else {
-			return false;
+			_result = false;
 		}
+		return TypeUniverse.remember(TypeUniverse.EQUALS, this, _other, _result);
 	}
 
 	/*
@@ -39,11 +48,20 @@ public class ArrayType implements Type {
 	 */
 	@Override
 	public boolean compatibleWith(Type _other) {
+		if (this == _other) {
+			return true;
+		}
+		Boolean _known = TypeUniverse.known(TypeUniverse.COMPATIBLE, this, _other);
+		if (_known != null) {
+			return _known;
+		}
+		boolean _result;
 		if (_other instanceof ArrayType) {
-			return this.element.compatibleWith(((ArrayType) _other).element);
+			_result = this.element.compatibleWith(((ArrayType) _other).element);
 		} else {
-			return false;
+			_result = false;
 		}
+		return TypeUniverse.remember(TypeUniverse.COMPATIBLE, this, _other, _result);
 	}
 
 	/*
@@ -54,7 +72,7 @@ public class ArrayType implements Type {
 	@Override
 	public Type merge(Type _other) {
 		if (_other instanceof ArrayType) {
-			return new ArrayType(this.element.merge(((ArrayType) _other).element));
+			return TypeUniverse.array(this.element.merge(((ArrayType) _other).element));
 		} else {
 			return AtomicType.ErrorType;
 		}
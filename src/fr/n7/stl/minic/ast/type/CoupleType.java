@@ -31,12 +31,21 @@ public class CoupleType implements Type {
 	 */
 	@Override
 	public boolean equalsTo(Type _other) {
+		if (this == _other) {
+			return true;
+		}
+		Boolean _known = TypeUniverse.known(TypeUniverse.EQUALS, this, _other);
+		if (_known != null) {
+			return _known;
+		}
+		boolean _result;
 		if (_other instanceof CoupleType) {
-			return this.first.equalsTo(((CoupleType) _other).first)
+			_result = this.first.equalsTo(((CoupleType) _other).first)
 					&& this.second.equalsTo(((CoupleType) _other).second);
 		} else {
-			return false;
+			_result = false;
 		}
+		return TypeUniverse.remember(TypeUniverse.EQUALS, this, _other, _result);
 	}
 
 	/* (non-Javadoc)
@@ -44,12 +53,21 @@ public class CoupleType implements Type {
 	 */
 	@Override
 	public boolean compatibleWith(Type _other) {
+		if (this == _other) {
+			return true;
+		}
+		Boolean _known = TypeUniverse.known(TypeUniverse.COMPATIBLE, this, _other);
+		if (_known != null) {
+			return _known;
+		}
+		boolean _result;
 		if (_other instanceof CoupleType) {
-			return this.first.compatibleWith(((CoupleType) _other).first)
+			_result = this.first.compatibleWith(((CoupleType) _other).first)
 					&& this.second.compatibleWith(((CoupleType) _other).second);
 		} else {
-			return false;
+			_result = false;
 		}
+		return TypeUniverse.remember(TypeUniverse.COMPATIBLE, this, _other, _result);
 	}
 
 	/* (non-Javadoc)
@@ -58,7 +76,7 @@ public class CoupleType implements Type {
 	@Override
 	public Type merge(Type _other) {
 		if (_other instanceof CoupleType) {
-			return new CoupleType( 
+			return TypeUniverse.couple(
 					this.first.merge(((CoupleType) _other).first),
 					this.second.merge(((CoupleType) _other).second));
 		} else {
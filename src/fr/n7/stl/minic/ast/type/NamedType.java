@@ -20,6 +20,11 @@ public class NamedType implements Type {
 
 	public String name;
 
+	/**
+	 * Type associated to the name through the chain of named types, kept once it is known.
+	 */
+	private Type target;
+
 	public NamedType(String _name) {
 		this.name = _name;
 		this.declaration = null;
@@ -37,10 +42,13 @@ public class NamedType implements Type {
 	 */
 	@Override
 	public boolean equalsTo(Type _other) {
+		if (this == _other) {
+			return true;
+		}
 		if (_other instanceof NamedType) {
-			return (this.declaration.getName().equals(((NamedType) _other).declaration.getName()));
+			return (this.name.equals(((NamedType) _other).name));
 		} else {
-			return (this.declaration.getType().equalsTo(_other));
+			return (this.getType().equalsTo(_other));
 		}
 	}
 
@@ -51,10 +59,13 @@ public class NamedType implements Type {
 	 */
 	@Override
 	public boolean compatibleWith(Type _other) {
+		if (this == _other) {
+			return true;
+		}
 		if (_other instanceof NamedType) {
-			return (this.declaration.getName().equals(((NamedType) _other).declaration.getName()));
+			return (this.name.equals(((NamedType) _other).name));
 		} else {
-			return (this.declaration.getType().compatibleWith(_other));
+			return (this.getType().compatibleWith(_other));
 		}
 	}
 
@@ -66,13 +77,13 @@ public class NamedType implements Type {
 	@Override
 	public Type merge(Type _other) {
 		if (_other instanceof NamedType) {
-			if (this.declaration.getName().equals(((NamedType) _other).declaration.getName())) {
+			if (this.name.equals(((NamedType) _other).name)) {
 				return this;
 			} else {
 				return AtomicType.ErrorType;
 			}
 		} else {
-			return (this.declaration.getType().merge(_other));
+			return (this.getType().merge(_other));
 		}
 	}
 
@@ -82,12 +93,19 @@ public class NamedType implements Type {
 	 * @return Type associated to the name.
 	 */
 	public Type getType() {
-		Type _result = this.declaration.getType();
-		if (_result instanceof NamedType) {
-			return ((NamedType) _result).getType();
-		} else {
-			return _result;
+		if (this.declaration == null) {
+			// Not resolved, the error has been reported
+			return AtomicType.ErrorType;
+		}
+		if (this.target == null) {
+			Type _result = this.declaration.getType();
+			if (_result instanceof NamedType) {
+				this.target = ((NamedType) _result).getType();
+			} else {
+				this.target = _result;
+			}
 		}
+		return this.target;
 	}
 
 	/*
@@ -97,7 +115,7 @@ public class NamedType implements Type {
 	 */
 	@Override
 	public int length() {
-		return this.declaration.getType().length();
+		return this.getType().length();
 	}
 
 	/*
@@ -124,11 +142,11 @@ public class NamedType implements Type {
 					this.declaration = _declaration;
 					return true;
 				} catch (ClassCastException e) {
-					Logger.error("The declaration for " + this.name + " is of the wrong kind.");
+					Logger.error(this, "The declaration for " + this.name + " is of the wrong kind.");
 					return false;
 				}
 			} else {
-				Logger.error("The identifier " + this.name + " has not been found.");
+				Logger.error(this, "The identifier " + this.name + " has not been found.");
 				return false;
 			}
 		} else {
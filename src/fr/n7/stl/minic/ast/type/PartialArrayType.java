@@ -22,9 +22,9 @@ public class PartialArrayType extends ArrayType implements PartialType {
 	@Override
 	public Type complete(Type _type) {
 		if (this.element == null) {
-			return new ArrayType(_type);
+			return TypeUniverse.array(_type);
 		} else {
-			return new ArrayType(((PartialType) this.element).complete(_type));
+			return TypeUniverse.array(((PartialType) this.element).complete(_type));
 		}
 	}
 
@@ -22,9 +22,9 @@ public class PartialPointerType extends PointerType implements PartialType {
 	@Override
 	public Type complete(Type _type) {
 		if (this.element == null) {
-			return new PointerType(_type);
+			return TypeUniverse.pointer(_type);
 		} else {
-			return new PointerType(((PartialType) this.element).complete(_type));
+			return TypeUniverse.pointer(((PartialType) this.element).complete(_type));
 		}
 	}
 
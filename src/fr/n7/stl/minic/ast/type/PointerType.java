@@ -39,11 +39,19 @@ public class PointerType implements Type {
 
 	@Override
 	public boolean equalsTo(Type _other) {
+		if (this == _other) {
+			return true;
+		}
+		Boolean _known = TypeUniverse.known(TypeUniverse.EQUALS, this, _other);
+		if (_known != null) {
+			return _known;
+		}
+		boolean _result = false;
 		if (_other instanceof PointerType) {
 			PointerType otherPointer = (PointerType) _other;
-			return this.element.equalsTo(otherPointer.getPointedType());
+			_result = this.element.equalsTo(otherPointer.getPointedType());
 		}
-		return false;
+		return TypeUniverse.remember(TypeUniverse.EQUALS, this, _other, _result);
 	}
 	/*
 	 * (non-Javadoc)
@@ -53,11 +61,20 @@ public class PointerType implements Type {
 
 	 @Override
 	 public boolean compatibleWith(Type _other) {
+		 if (this == _other) {
+			 return true;
+		 }
+		 Boolean _known = TypeUniverse.known(TypeUniverse.COMPATIBLE, this, _other);
+		 if (_known != null) {
+			 return _known;
+		 }
+		 boolean _result;
 		 if (_other instanceof PointerType) {
-			 return this.element.compatibleWith(((PointerType) _other).getPointedType());
+			 _result = this.element.compatibleWith(((PointerType) _other).getPointedType());
 		 } else {
-			 return false;
+			 _result = false;
 		 }
+		 return TypeUniverse.remember(TypeUniverse.COMPATIBLE, this, _other, _result);
 	 }
 	/*
 	 * (non-Javadoc)
@@ -68,7 +85,7 @@ public class PointerType implements Type {
 	public Type merge(Type _other) {
 		Type _result;
 		if (_other instanceof PointerType) {
-			_result = new PointerType(this.element.merge(((PointerType) _other).element));
+			_result = TypeUniverse.pointer(this.element.merge(((PointerType) _other).element));
 		} else {
 			_result = AtomicType.ErrorType;
 		}
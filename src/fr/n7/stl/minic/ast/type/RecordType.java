@@ -3,9 +3,11 @@
  */
 package fr.n7.stl.minic.ast.type;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 
 import fr.n7.stl.minic.ast.SemanticsUndefinedException;
 import fr.n7.stl.minic.ast.scope.Declaration;
@@ -15,7 +17,8 @@ import fr.n7.stl.minic.ast.type.declaration.FieldDeclaration;
 
 /**
  * Implementation of the Abstract Syntax Tree node for a record type.
- * This one is a scope to allow an easy access to the fields.
+ * This one is a scope to allow an easy access to the fields : the fields are indexed by name, their
+ * offsets and the length of the record are computed once when the record is resolved.
  * 
  * @author Marc Pantel
  *
@@ -25,6 +28,16 @@ public class RecordType implements Type, Declaration, Scope<FieldDeclaration> {
 	private List<FieldDeclaration> fields;
 	private String name;
 
+	/**
+	 * Fields indexed by name, the first one when a name is declared twice.
+	 */
+	private Map<String, FieldDeclaration> index;
+
+	/**
+	 * Sum of the lengths of the fields, computed with their offsets by completeResolve, -1 before.
+	 */
+	private int length;
+
 	/**
 	 * Constructor for a record type including fields.
 	 * 
@@ -33,11 +46,8 @@ public class RecordType implements Type, Declaration, Scope<FieldDeclaration> {
 	 *                type.
 	 */
 	public RecordType(String _name, Iterable<FieldDeclaration> _fields) {
-		this.name = _name;
-		this.fields = new LinkedList<FieldDeclaration>();
-		for (FieldDeclaration _field : _fields) {
-			this.fields.add(_field);
-		}
+		this(_name);
+		this.addAll(_fields);
 	}
 
 	/**
@@ -47,7 +57,9 @@ public class RecordType implements Type, Declaration, Scope<FieldDeclaration> {
 	 */
 	public RecordType(String _name) {
 		this.name = _name;
-		this.fields = new LinkedList<FieldDeclaration>();
+		this.fields = new ArrayList<FieldDeclaration>();
+		this.index = new HashMap<String, FieldDeclaration>();
+		this.length = -1;
 	}
 
 	/**
@@ -57,6 +69,8 @@ public class RecordType implements Type, Declaration, Scope<FieldDeclaration> {
 	 */
 	public void add(FieldDeclaration _field) {
 		this.fields.add(_field);
+		this.index.putIfAbsent(_field.getName(), _field);
+		this.length = -1;
 	}
 
 	/**
@@ -66,7 +80,7 @@ public class RecordType implements Type, Declaration, Scope<FieldDeclaration> {
 	 */
 	public void addAll(Iterable<FieldDeclaration> _fields) {
 		for (FieldDeclaration _field : _fields) {
-			this.fields.add(_field);
+			this.add(_field);
 		}
 	}
 
@@ -78,9 +92,10 @@ public class RecordType implements Type, Declaration, Scope<FieldDeclaration> {
 	@Override
 	public boolean equalsTo(Type _other) {
 		if (_other instanceof RecordType) {
-			if (_other.length() == length()) {
-				for (int i = 0; i < length(); i++) {
-					if (!fields.get(i).equals(((RecordType) _other).fields.get(i))) {
+			List<FieldDeclaration> _fields = ((RecordType) _other).fields;
+			if (_fields.size() == this.fields.size()) {
+				for (int i = 0; i < this.fields.size(); i++) {
+					if (!this.fields.get(i).equals(_fields.get(i))) {
 						return false;
 					}
 				}
@@ -120,18 +135,7 @@ public class RecordType implements Type, Declaration, Scope<FieldDeclaration> {
 	 */
 	@Override
 	public FieldDeclaration get(String _name) {
-		boolean _found = false;
-		Iterator<FieldDeclaration> _iter = this.fields.iterator();
-		FieldDeclaration _current = null;
-		while (_iter.hasNext() && (!_found)) {
-			_current = _iter.next();
-			_found = _found || _current.getName().contentEquals(_name);
-		}
-		if (_found) {
-			return _current;
-		} else {
-			return null;
-		}
+		return this.index.get(_name);
 	}
 
 	/*
@@ -141,12 +145,7 @@ public class RecordType implements Type, Declaration, Scope<FieldDeclaration> {
 	 */
 	@Override
 	public boolean contains(String _name) {
-		boolean _result = false;
-		Iterator<FieldDeclaration> _iter = this.fields.iterator();
-		while (_iter.hasNext() && (!_result)) {
-			_result = _result || _iter.next().getName().contentEquals(_name);
-		}
-		return _result;
+		return this.index.containsKey(_name);
 	}
 
 	/*
@@ -167,7 +166,7 @@ public class RecordType implements Type, Declaration, Scope<FieldDeclaration> {
 	@Override
 	public void register(FieldDeclaration _declaration) {
 		if (this.accepts(_declaration)) {
-			this.fields.add(_declaration);
+			this.add(_declaration);
 		} else {
 			throw new IllegalArgumentException();
 		}
@@ -179,11 +178,11 @@ public class RecordType implements Type, Declaration, Scope<FieldDeclaration> {
 	 * @return Sequence type extracted from record fields.
 	 */
 	public SequenceType erase() {
-		SequenceType _local = new SequenceType();
+		List<Type> _local = new ArrayList<Type>();
 		for (FieldDeclaration _field : this.fields) {
 			_local.add(_field.getType());
 		}
-		return _local;
+		return (SequenceType) TypeUniverse.sequence(_local);
 	}
 
 	/*
@@ -193,6 +192,9 @@ public class RecordType implements Type, Declaration, Scope<FieldDeclaration> {
 	 */
 	@Override
 	public int length() {
+		if (this.length >= 0) {
+			return this.length;
+		}
 		int _length = 0;
 		for (FieldDeclaration f : this.fields) {
 			_length += f.getType().length();
@@ -229,6 +231,14 @@ public class RecordType implements Type, Declaration, Scope<FieldDeclaration> {
 		for (FieldDeclaration f : this.fields) {
 			_result = _result && f.getType().completeResolve(_scope);
 		}
+		if (_result) {
+			// The lengths of the fields are known once their types are resolved
+			int _offset = 0;
+			for (FieldDeclaration f : this.fields) {
+				_offset += f.computerOffset(_offset);
+			}
+			this.length = _offset;
+		}
 		return _result;
 	}
 
@@ -3,6 +3,7 @@
  */
 package fr.n7.stl.minic.ast.type;
 
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
@@ -32,6 +33,20 @@ public class SequenceType implements Type {
 	 */
 	@Override
 	public boolean equalsTo(Type _other) {
+		if (this == _other) {
+			return true;
+		}
+		Boolean _known = TypeUniverse.known(TypeUniverse.EQUALS, this, _other);
+		if (_known != null) {
+			return _known;
+		}
+		return TypeUniverse.remember(TypeUniverse.EQUALS, this, _other, this.equalsStructurally(_other));
+	}
+
+	/**
+	 * Structural equality, computed once for each pair of types by equalsTo.
+	 */
+	private boolean equalsStructurally(Type _other) {
 		if (_other instanceof SequenceType) {
 			SequenceType _local = (SequenceType) _other;
 			if (this.types.size() == _local.types.size()) {
@@ -78,6 +93,20 @@ public class SequenceType implements Type {
 	 */
 	@Override
 	public boolean compatibleWith(Type _other) {
+		if (this == _other) {
+			return true;
+		}
+		Boolean _known = TypeUniverse.known(TypeUniverse.COMPATIBLE, this, _other);
+		if (_known != null) {
+			return _known;
+		}
+		return TypeUniverse.remember(TypeUniverse.COMPATIBLE, this, _other, this.compatibleStructurally(_other));
+	}
+
+	/**
+	 * Structural compatibility, computed once for each pair of types by compatibleWith.
+	 */
+	private boolean compatibleStructurally(Type _other) {
 		if (_other instanceof NamedType) {
 			return this.compatibleWith(((NamedType) _other).getType());
 		} else {
@@ -130,14 +159,14 @@ public class SequenceType implements Type {
 	public Type merge(Type _other) {
 		if (_other instanceof SequenceType) {
 			SequenceType _local = (SequenceType) _other;
-			SequenceType _result = new SequenceType();
+			List<Type> _result = new ArrayList<Type>();
 			if (this.types.size() == _local.types.size()) {
 				Iterator<Type> i1 = this.types.iterator();
 				Iterator<Type> i2 = _local.types.iterator();
 				while (i1.hasNext() && i2.hasNext()) {
 					_result.add(i1.next().merge(i2.next()));
 				}
-				return _result;
+				return TypeUniverse.sequence(_result);
 			} else {
 				return AtomicType.ErrorType;
 			}
@@ -0,0 +1,166 @@
+/**
+ *
+ */
+package fr.n7.stl.minic.ast.type;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Canonical types of the compiling thread. Structurally identical pointer, array, couple and
+ * sequence types built from the same components are one instance and named types are one instance
+ * per name, identical types are then the same object. The results of equalsTo and compatibleWith
+ * are kept for each pair of composite types, deeply nested types are compared once.
+ *
+ * The canonical instances only make the comparisons faster : the types built directly are still
+ * compared structurally. The universe is emptied at the start of each compilation.
+ *
+ */
+public final class TypeUniverse {
+
+	/**
+	 * Relation kept by equalsTo.
+	 */
+	public static final String EQUALS = "equalsTo";
+
+	/**
+	 * Relation kept by compatibleWith.
+	 */
+	public static final String COMPATIBLE = "compatibleWith";
+
+	private static final ThreadLocal<TypeUniverse> CURRENT = ThreadLocal.withInitial(TypeUniverse::new);
+
+	private final Map<Key, Type> types;
+
+	private final Map<String, NamedType> names;
+
+	private final Map<Key, Boolean> relations;
+
+	private TypeUniverse() {
+		this.types = new HashMap<Key, Type>();
+		this.names = new HashMap<String, NamedType>();
+		this.relations = new HashMap<Key, Boolean>();
+	}
+
+	/**
+	 * Start a new compilation : the types of the previous one are forgotten.
+	 */
+	public static void reset() {
+		CURRENT.remove();
+	}
+
+	/**
+	 * @param _element Canonical type of the pointed values.
+	 * @return The canonical pointer type.
+	 */
+	public static Type pointer(Type _element) {
+		return CURRENT.get().types.computeIfAbsent(new Key(PointerType.class, _element),
+				_key -> new PointerType(_element));
+	}
+
+	/**
+	 * @param _element Canonical type of the elements.
+	 * @return The canonical array type.
+	 */
+	public static Type array(Type _element) {
+		return CURRENT.get().types.computeIfAbsent(new Key(ArrayType.class, _element),
+				_key -> new ArrayType(_element));
+	}
+
+	/**
+	 * @param _first Canonical type of the first element.
+	 * @param _second Canonical type of the second element.
+	 * @return The canonical couple type.
+	 */
+	public static Type couple(Type _first, Type _second) {
+		return CURRENT.get().types.computeIfAbsent(new Key(CoupleType.class, _first, _second),
+				_key -> new CoupleType(_first, _second));
+	}
+
+	/**
+	 * @param _types Canonical types of the elements.
+	 * @return The canonical sequence type.
+	 */
+	public static Type sequence(List<Type> _types) {
+		return CURRENT.get().types.computeIfAbsent(new Key(SequenceType.class, _types.toArray()), _key -> {
+			SequenceType _sequence = new SequenceType();
+			for (Type _type : _types) {
+				_sequence.add(_type);
+			}
+			return _sequence;
+		});
+	}
+
+	/**
+	 * @param _name Name of the type, the type names are global.
+	 * @return The named type shared by all the uses of the name.
+	 */
+	public static NamedType named(String _name) {
+		return CURRENT.get().names.computeIfAbsent(_name, NamedType::new);
+	}
+
+	/**
+	 * @param _relation EQUALS or COMPATIBLE.
+	 * @return The kept result of the relation between the types, null if it was not computed.
+	 */
+	public static Boolean known(String _relation, Type _self, Type _other) {
+		return CURRENT.get().relations.get(new Key(_relation, _self, _other));
+	}
+
+	/**
+	 * Keep the result of the relation between two types.
+	 * @param _relation EQUALS or COMPATIBLE.
+	 * @return The result.
+	 */
+	public static boolean remember(String _relation, Type _self, Type _other, boolean _result) {
+		CURRENT.get().relations.put(new Key(_relation, _self, _other), _result);
+		return _result;
+	}
+
+	/**
+	 * Kind of a type or of a relation and its components, compared by reference.
+	 */
+	private static final class Key {
+
+		private final Object kind;
+
+		private final Object[] components;
+
+		private final int hash;
+
+		private Key(Object _kind, Object... _components) {
+			this.kind = _kind;
+			this.components = _components;
+			int _hash = _kind.hashCode();
+			for (Object _component : _components) {
+				_hash = 31 * _hash + System.identityHashCode(_component);
+			}
+			this.hash = _hash;
+		}
+
+		@Override
+		public boolean equals(Object _other) {
+			if (!(_other instanceof Key)) {
+				return false;
+			}
+			Key _key = (Key) _other;
+			if (!this.kind.equals(_key.kind) || this.components.length != _key.components.length) {
+				return false;
+			}
+			for (int i = 0; i < this.components.length; i++) {
+				if (this.components[i] != _key.components[i]) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		@Override
+		public int hashCode() {
+			return this.hash;
+		}
+
+	}
+
+}
@@ -3,6 +3,8 @@
  */
 package fr.n7.stl.tam.ast;
 
+import java.io.IOException;
+
 /**
  * Sequence of TAMInstruction.
  * @author Marc Pantel
@@ -40,4 +42,11 @@ public interface Fragment {
 	 */
 	public void append(Fragment _fragment);
 
+	/**
+	 * Writes the TAM assembly text of the instructions of the fragment, in order, to the provided output.
+	 * @param _output Output where the TAM assembly text is written.
+	 * @throws IOException If the output cannot be written.
+	 */
+	public void writeTo(Appendable _output) throws IOException;
+
 }
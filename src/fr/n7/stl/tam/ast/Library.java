@@ -3,15 +3,14 @@
  */
 package fr.n7.stl.tam.ast;
 
-import java.util.LinkedList;
-import java.util.List;
-
 /**
  * Atomic operators provided by the TAM virtual machine for basic types : Boolean, Character, Integer, Memory and String.
+ * The values are shared: they are not instructions, TAMFactory.createSubr builds the instruction that calls one
+ * of them, which can be annotated with comments and labels.
  * @author Marc Pantel
  *
  */
-public enum Library implements TAMInstruction {
+public enum Library {
 	/**
 	 * Pops a Boolean value from the stack, and pushes its negation on the stack.
 	 */
@@ -207,72 +206,10 @@ public enum Library implements TAMInstruction {
 	 */
 	S2I;
 	
-	/**
-	 * Each TAM instruction can have prefix comments used for relating this instruction 
-	 * to the block source code.
-	 */
-	protected List<String> comments;
-	
-	/**
-	 * Each TAM instruction can have prefix labels used for computing locations to that instruction 
-	 * for JUMP and CALL instructions.
-	 */
-	protected List<String> prefixes;
-	
-	/**
-	 * Each TAM instruction can have suffix labels used for computing locations following that instruction 
-	 * for JUMP and CALL instructions.
-	 */
-	protected List<String> suffixes;
-	
-	/**
-	 * Constructor that assigns an empty label for each enum value object.
-	 */
-	private Library() {
-		this.comments = new LinkedList<String>();
-		this.prefixes = new LinkedList<String>();
-		this.suffixes = new LinkedList<String>();
-	}
-	
 	/* (non-Javadoc)
 	 * @see java.lang.Enum#toString()
 	 */
 	public String toString() {
-		String _result = "";
-		for (String _comment : this.comments) {
-			_result += ";" + _comment + "\n";
-		}
-		for (String _label : this.prefixes) {
-			_result += _label + "\n";
-		}
-		_result += "SUBR " + this.name() + "\n";
-		for (String _label : this.suffixes) {
-			_result += _label + "\n";
-		}
-		return _result;
-	}
-	
-	/* (non-Javadoc)
-	 * @see fr.n7.stl.tam.ast.TAMInstruction#addComment(java.lang.String)
-	 */
-	@Override
-	public void addComment(String _comment) {
-		this.comments.add(_comment);		
-	}
-
-	/* (non-Javadoc)
-	 * @see fr.n7.stl.tam.ast.TAMInstruction#addPrefix(java.lang.String)
-	 */
-	@Override
-	public void addPrefix(String _label) {
-		this.prefixes.add(_label);		
-	}
-
-	/* (non-Javadoc)
-	 * @see fr.n7.stl.tam.ast.TAMInstruction#addSuffix(java.lang.String)
-	 */
-	@Override
-	public void addSuffix(String _label) {
-		this.suffixes.add(_label);				
+		return "SUBR " + this.name() + "\n";
 	}
 }
@@ -193,6 +193,15 @@ public interface TAMFactory {
 	 */
 	public TAMInstruction createReturn(int _keep, int _remove);
 
+	/**
+	 * Build a TAM Subroutine call instruction AST node whose execution will run a primitive of
+	 * the TAM virtual machine. The primitives are shared values, the returned instruction can be
+	 * annotated with comments and labels without changing them.
+	 * @param _primitive The called primitive.
+	 * @return A TAM Subroutine call instruction AST node.
+	 */
+	public TAMInstruction createSubr(Library _primitive);
+
 	/**
 	 * Build an empty TAM fragment AST node.
 	 * @return An empty TAM fragment AST node.
@@ -213,21 +222,21 @@ public interface TAMFactory {
 	 * @param _operator The binary operator from the Bloc language.
 	 * @return A TAM instruction AST node corresponding to a binary operator.
 	 */
-	public static TAMInstruction createBinaryOperator(BinaryOperator _operator) {
+	public default TAMInstruction createBinaryOperator(BinaryOperator _operator) {
 		switch (_operator) {
-		case Add : return Library.IAdd;
-		case And: return Library.BAnd;
-		case Different: return Library.INeq;
-		case Divide: return Library.IDiv;
-		case Equals: return Library.IEq;
-		case Greater: return Library.IGtr;
-		case GreaterOrEqual: return Library.IGeq;
-		case Lesser: return Library.ILss;
-		case LesserOrEqual: return Library.ILeq;
-		case Modulo: return Library.IMod;
-		case Multiply: return Library.IMul;
-		case Or: return Library.BOr;
-		case Substract: return Library.ISub;
+		case Add : return this.createSubr(Library.IAdd);
+		case And: return this.createSubr(Library.BAnd);
+		case Different: return this.createSubr(Library.INeq);
+		case Divide: return this.createSubr(Library.IDiv);
+		case Equals: return this.createSubr(Library.IEq);
+		case Greater: return this.createSubr(Library.IGtr);
+		case GreaterOrEqual: return this.createSubr(Library.IGeq);
+		case Lesser: return this.createSubr(Library.ILss);
+		case LesserOrEqual: return this.createSubr(Library.ILeq);
+		case Modulo: return this.createSubr(Library.IMod);
+		case Multiply: return this.createSubr(Library.IMul);
+		case Or: return this.createSubr(Library.BOr);
+		case Substract: return this.createSubr(Library.ISub);
 		default: throw new SemanticsUndefinedException("Unexpected unary operator: " + _operator);
 		}
 	}
@@ -239,14 +248,39 @@ public interface TAMFactory {
 	 * @param _operator The unary operator from the Bloc language.
 	 * @return A TAM instruction AST node corresponding to an unary operator.
 	 */
-	public static TAMInstruction createUnaryOperator(UnaryOperator _operator) {
+	public default TAMInstruction createUnaryOperator(UnaryOperator _operator) {
 		switch (_operator) {
-		case Negate : return Library.BNeg;
-		case Opposite : return Library.INeg;
+		case Negate : return this.createSubr(Library.BNeg);
+		case Opposite : return this.createSubr(Library.INeg);
 		default: return null;
 		}
 	}
 	
+	/**
+	 * Allocate a number used to build unique label names in the program built by this factory.
+	 * The numbers are not shared between factories, a factory must not be used by several
+	 * compilations at the same time.
+	 * @return A number that was not yet returned by this factory.
+	 */
 	public int createLabelNumber();
 
+	/**
+	 * Build a unique label name in the program built by this factory, such as else.3 or f.else.3 in
+	 * the code of a function f. The labels contain a dot, which the identifiers do not, so that
+	 * they differ from the labels of the functions, named after them.
+	 * @param _kind Name of the labelled location, such as else or while_start.
+	 * @return The kind and a number allocated by createLabelNumber separated by a dot, prefixed by
+	 * the name of the function of the factory if it was created by createFunctionFactory.
+	 */
+	public String createLabel(String _kind);
+
+	/**
+	 * Create the factory of the code of a function. Its labels are prefixed by the name of the
+	 * function and numbered from 1, they do not depend on the code generated before the function
+	 * and differ from the labels of the other functions.
+	 * @param _function Name of the function.
+	 * @return A factory that builds the same fragments as this one.
+	 */
+	public TAMFactory createFunctionFactory(String _function);
+
 }
@@ -3,6 +3,8 @@
  */
 package fr.n7.stl.tam.ast;
 
+import java.io.IOException;
+
 /**
  * A TAM instruction than can be prefixed by a label used to resolve the address of the instruction
  * in the code part of the memory in the TAM virtual machine.
@@ -28,4 +30,12 @@ public interface TAMInstruction {
 	 * @param _label Label to be added to the instruction suffixes.
 	 */
 	public void addSuffix(String _label);
+
+	/**
+	 * Writes the TAM assembly text of the instruction (comments, prefix labels, instruction
+	 * and suffix labels) to the provided output.
+	 * @param _output Output where the TAM assembly text is written.
+	 * @throws IOException If the output cannot be written.
+	 */
+	public void writeTo(Appendable _output) throws IOException;
 }
@@ -0,0 +1,188 @@
+/**
+ * 
+ */
+package fr.n7.stl.tam.ast.impl;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import fr.n7.stl.tam.ast.Fragment;
+import fr.n7.stl.tam.ast.TAMInstruction;
+
+/**
+ * Implementation of a TAM fragment using a chain of chunks of TAM Instruction.
+ * Appending a fragment splices its chain of chunks at the end of the chain in constant time,
+ * the instructions are only walked in order when the fragment is emitted.
+ *
+ */
+public class ChunkedFragmentImpl implements Fragment {
+
+	/**
+	 * Capacity of the first chunk of a fragment, most fragments only contain a few instructions.
+	 */
+	private static final int FIRST_CHUNK_CAPACITY = 4;
+
+	/**
+	 * Capacity of the following chunks of a fragment.
+	 */
+	private static final int CHUNK_CAPACITY = 32;
+
+	/**
+	 * Element of the chain: a partially filled array of TAM Instruction.
+	 */
+	private static class Chunk {
+
+		private TAMInstruction[] instructions;
+
+		private int size;
+
+		private Chunk next;
+
+		private Chunk(int _capacity) {
+			this.instructions = new TAMInstruction[_capacity];
+			this.size = 0;
+			this.next = null;
+		}
+
+	}
+
+	/**
+	 * First chunk of the chain, null if the fragment is empty.
+	 */
+	private Chunk first;
+
+	/**
+	 * Last chunk of the chain, null if the fragment is empty.
+	 */
+	private Chunk last;
+
+	/**
+	 * Number of TAM Instruction in the whole chain.
+	 */
+	private int size;
+
+	/**
+	 * Create an empty fragment.
+	 */
+	public ChunkedFragmentImpl() {
+		this.first = null;
+		this.last = null;
+		this.size = 0;
+	}
+
+	/* (non-Javadoc)
+	 * @see fr.n7.stl.tam.ast.Fragment#add(fr.n7.stl.tam.ast.TAMInstruction)
+	 */
+	@Override
+	public void add(TAMInstruction _instruction) {
+		if (this.last == null) {
+			this.first = new Chunk(FIRST_CHUNK_CAPACITY);
+			this.last = this.first;
+		} else if (this.last.size == this.last.instructions.length) {
+			this.last.next = new Chunk(CHUNK_CAPACITY);
+			this.last = this.last.next;
+		}
+		this.last.instructions[this.last.size++] = _instruction;
+		this.size++;
+	}
+
+	/* (non-Javadoc)
+	 * The chunks of the provided fragment are moved at the end of this fragment, 
+	 * which leaves the provided fragment empty.
+	 * @see fr.n7.stl.tam.ast.Fragment#append(fr.n7.stl.tam.ast.Fragment)
+	 */
+	@Override
+	public void append(Fragment _fragment) {
+		if (_fragment == this) {
+			throw new IllegalArgumentException( "A fragment cannot be appended to itself.");
+		}
+		ChunkedFragmentImpl _other = (ChunkedFragmentImpl)_fragment;
+		if (_other.first != null) {
+			if (this.last == null) {
+				this.first = _other.first;
+			} else {
+				this.last.next = _other.first;
+			}
+			this.last = _other.last;
+			this.size += _other.size;
+			_other.first = null;
+			_other.last = null;
+			_other.size = 0;
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see fr.n7.stl.tam.ast.Fragment#writeTo(java.lang.Appendable)
+	 */
+	@Override
+	public void writeTo(Appendable _output) throws IOException {
+		for (Chunk _chunk = this.first; _chunk != null; _chunk = _chunk.next) {
+			for (int _index = 0; _index < _chunk.size; _index++) {
+				_chunk.instructions[_index].writeTo(_output);
+			}
+		}
+	}
+
+	/**
+	 * @return The sequence of TAM Instruction in the Fragment.
+	 */
+	List<TAMInstruction> getInstructions() {
+		List<TAMInstruction> _instructions = new ArrayList<TAMInstruction>(this.size);
+		for (Chunk _chunk = this.first; _chunk != null; _chunk = _chunk.next) {
+			for (int _index = 0; _index < _chunk.size; _index++) {
+				_instructions.add(_chunk.instructions[_index]);
+			}
+		}
+		return _instructions;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder _result = new StringBuilder();
+		try {
+			this.writeTo(_result);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return _result.toString();
+	}
+
+	/* (non-Javadoc)
+	 * @see fr.n7.stl.tam.ast.Fragment#addComment(java.lang.String)
+	 */
+	@Override
+	public void addComment(String _comment) {
+		if (this.size > 0) { 
+			this.first.instructions[0].addComment(_comment);
+		} else {
+			throw new IllegalArgumentException( "Fragment size is 0. No comment can be added.");
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see fr.n7.stl.tam.ast.Fragment#addPrefix(java.lang.String)
+	 */
+	@Override
+	public void addPrefix(String _label) {
+		if (this.size > 0) { 
+			this.first.instructions[0].addPrefix(_label);
+		} else {
+			throw new IllegalArgumentException( "Fragment size is 0. No prefix label can be added.");
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see fr.n7.stl.tam.ast.Fragment#addSuffix(java.lang.String)
+	 */
+	@Override
+	public void addSuffix(String _label) {
+		if (this.size > 0) { 
+			this.last.instructions[this.last.size - 1].addSuffix(_label);
+		} else {
+			throw new IllegalArgumentException( "Fragment size is 0. No suffix label can be added.");
+		}
+	}
+
+}
@@ -3,6 +3,8 @@
  */
 package fr.n7.stl.tam.ast.impl;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -44,13 +46,32 @@ public class FragmentImpl implements Fragment {
 		this.instructions.addAll(((FragmentImpl)_fragment).instructions);
 	}
 	
+	/* (non-Javadoc)
+	 * @see fr.n7.stl.tam.ast.Fragment#writeTo(java.lang.Appendable)
+	 */
 	@Override
-	public String toString() {
-		String _result = "";
+	public void writeTo(Appendable _output) throws IOException {
 		for (TAMInstruction _instruction : this.instructions) {
-			_result += _instruction;
+			_instruction.writeTo(_output);
+		}
+	}
+
+	/**
+	 * @return The sequence of TAM Instruction in the Fragment.
+	 */
+	List<TAMInstruction> getInstructions() {
+		return this.instructions;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder _result = new StringBuilder();
+		try {
+			this.writeTo(_result);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
 		}
-		return _result;
+		return _result.toString();
 	}
 	
 	public void addComment(String _comment) {
@@ -0,0 +1,24 @@
+/**
+ * 
+ */
+package fr.n7.stl.tam.ast.impl;
+
+/**
+ * List the various implementations of TAM fragments that can be built by TAMFactoryImpl.
+ *
+ */
+public enum FragmentKind {
+	/**
+	 * Linked list of TAM instructions, appending a fragment copies all its instructions.
+	 */
+	LINKED,
+	/**
+	 * Chain of chunks of TAM instructions, appending a fragment splices its chunks in constant time.
+	 */
+	CHUNKED,
+	/**
+	 * Chain of segments of primitive columns, the TAM instructions objects are not kept,
+	 * appending a fragment splices its segments in constant time.
+	 */
+	PACKED;
+}
@@ -0,0 +1,48 @@
+/**
+ * 
+ */
+package fr.n7.stl.tam.ast.impl;
+
+import java.io.IOException;
+import java.util.Optional;
+
+import fr.n7.stl.tam.ast.Library;
+
+/**
+ * Call to a Library primitive as an instruction of a fragment.
+ * The Library primitives are shared enum values, the factory wraps them in this class so that
+ * comments and labels are attached to one use of the primitive and not to all of them.
+ *
+ */
+class LibraryInstructionImpl extends TAMInstructionImpl {
+
+	/**
+	 * The called primitive.
+	 */
+	private Library primitive;
+
+	/**
+	 * @param _primitive The called primitive.
+	 */
+	public LibraryInstructionImpl(Library _primitive) {
+		super(TAMInstructionKind.SUBR, Optional.empty(), Optional.empty(), Optional.empty(),
+				Optional.empty(), Optional.empty(), Optional.empty());
+		this.primitive = _primitive;
+	}
+
+	/**
+	 * @return The called primitive.
+	 */
+	Library getPrimitive() {
+		return this.primitive;
+	}
+
+	/* (non-Javadoc)
+	 * @see fr.n7.stl.tam.ast.impl.TAMInstructionImpl#writeInstruction(java.lang.Appendable)
+	 */
+	@Override
+	protected void writeInstruction(Appendable _output) throws IOException {
+		_output.append("SUBR ").append(this.primitive.name());
+	}
+
+}
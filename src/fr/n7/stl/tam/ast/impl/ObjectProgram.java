@@ -0,0 +1,292 @@
+/**
+ *
+ */
+package fr.n7.stl.tam.ast.impl;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import fr.n7.stl.tam.ast.Fragment;
+import fr.n7.stl.tam.ast.Library;
+import fr.n7.stl.tam.ast.Register;
+
+/**
+ * TAM object program produced directly by the compiler, without going through the text
+ * assembler: labels are resolved to code addresses and each instruction is encoded in
+ * one 32 bits word with the layout used by the TAM tools (opcode on 4 bits, register on
+ * 4 bits, n on 8 bits and d on 16 bits).
+ *
+ * The object program is written in the TAMX format, read back by readFrom and loaded by the
+ * TAM virtual machine of the compiler (see Machine.load). Labels are case insensitive as in the TAM assembler, they are stored in lower case.
+ *
+ */
+public class ObjectProgram {
+
+	/**
+	 * Magic number at the beginning of TAMX files.
+	 */
+	private static final byte[] MAGIC = "TAMX".getBytes(StandardCharsets.US_ASCII);
+
+	/**
+	 * Opcodes indexed by the ordinal of the TAM instruction kinds.
+	 */
+	private static final int[] OPCODES = new int[TAMInstructionKind.values().length];
+
+	/**
+	 * Register codes indexed by the ordinal of the registers.
+	 */
+	private static final int[] REGISTERS = new int[Register.values().length];
+
+	/**
+	 * Primitive codes (d field of SUBR) indexed by the ordinal of the Library primitives.
+	 */
+	private static final int[] PRIMITIVES = new int[Library.values().length];
+
+	static {
+		OPCODES[TAMInstructionKind.LOAD.ordinal()] = 0;
+		OPCODES[TAMInstructionKind.LOADA.ordinal()] = 1;
+		OPCODES[TAMInstructionKind.LOADI.ordinal()] = 2;
+		OPCODES[TAMInstructionKind.LOADL.ordinal()] = 3;
+		OPCODES[TAMInstructionKind.STORE.ordinal()] = 4;
+		OPCODES[TAMInstructionKind.STOREI.ordinal()] = 5;
+		OPCODES[TAMInstructionKind.CALL.ordinal()] = 6;
+		OPCODES[TAMInstructionKind.CALLI.ordinal()] = 7;
+		OPCODES[TAMInstructionKind.RETURN.ordinal()] = 8;
+		OPCODES[TAMInstructionKind.SUBR.ordinal()] = 9;
+		OPCODES[TAMInstructionKind.PUSH.ordinal()] = 10;
+		OPCODES[TAMInstructionKind.POP.ordinal()] = 11;
+		OPCODES[TAMInstructionKind.JUMP.ordinal()] = 12;
+		OPCODES[TAMInstructionKind.JUMPIF.ordinal()] = 14;
+		OPCODES[TAMInstructionKind.HALT.ordinal()] = 15;
+		REGISTERS[Register.CB.ordinal()] = 0;
+		REGISTERS[Register.CT.ordinal()] = 1;
+		REGISTERS[Register.SB.ordinal()] = 4;
+		REGISTERS[Register.ST.ordinal()] = 5;
+		REGISTERS[Register.HB.ordinal()] = 6;
+		REGISTERS[Register.HT.ordinal()] = 7;
+		REGISTERS[Register.LB.ordinal()] = 8;
+		REGISTERS[Register.CP.ordinal()] = 15;
+		// The TAM machine also has a SFree primitive between SAlloc and SCopy that the Library does not provide.
+		for (Library _primitive : Library.values()) {
+			int _code = _primitive.ordinal();
+			PRIMITIVES[_code] = (_code < Library.SCopy.ordinal()) ? _code : (_code + 1);
+		}
+	}
+
+	/**
+	 * Number of instructions in the code.
+	 */
+	private int size;
+
+	/**
+	 * Encoded instructions, only the first size words are used.
+	 */
+	private int[] code;
+
+	/**
+	 * Address of each label, in definition order.
+	 */
+	private Map<String, Integer> labels;
+
+	/**
+	 * Index of the instructions whose d field is the address of a label.
+	 */
+	private List<Integer> references;
+
+	/**
+	 * Label used by each instruction in references.
+	 */
+	private List<String> targets;
+
+	private ObjectProgram() {
+		this.size = 0;
+		this.code = new int[64];
+		this.labels = new LinkedHashMap<String, Integer>();
+		this.references = new ArrayList<Integer>();
+		this.targets = new ArrayList<String>();
+	}
+
+	/**
+	 * Assemble a fragment in an object program.
+	 * @param _fragment Fragment built by one of the TAM factory implementations.
+	 * @return The object program with resolved labels.
+	 * @throws IllegalArgumentException if a label is defined twice, a target label is not defined
+	 * or a value does not fit in its field.
+	 */
+	public static ObjectProgram assemble(Fragment _fragment) {
+		ObjectProgram _program = new ObjectProgram();
+		PackedFragmentImpl.pack(_fragment).assemble(_program);
+		_program.link();
+		return _program;
+	}
+
+	/**
+	 * @return Copy of the encoded instructions.
+	 */
+	public int[] getCode() {
+		return Arrays.copyOf(this.code, this.size);
+	}
+
+	/**
+	 * @return Address of each label (in lower case), in definition order. It is empty for a
+	 * program read from a TAMX file written without its symbol table.
+	 */
+	public Map<String, Integer> getLabels() {
+		return Collections.unmodifiableMap(this.labels);
+	}
+
+	/**
+	 * Write the object program in the TAMX format.
+	 * @param _output Stream where the object program is written.
+	 * @param _symbols Whether the label table is written, it is only used by debugging tools.
+	 * @throws IOException if the output cannot be written.
+	 */
+	public void writeTo(OutputStream _output, boolean _symbols) throws IOException {
+		DataOutputStream _data = new DataOutputStream(_output);
+		_data.write(MAGIC);
+		_data.writeInt(_symbols ? this.labels.size() : 0);
+		// Strings are only produced by the TAM assembler STR directive.
+		_data.writeInt(0);
+		_data.writeInt(this.size);
+		if (_symbols) {
+			for (Map.Entry<String, Integer> _label : this.labels.entrySet()) {
+				byte[] _name = _label.getKey().getBytes(StandardCharsets.UTF_8);
+				if (_name.length > 255) {
+					throw new IllegalArgumentException( "Label " + _label.getKey() + " is too long for the symbol table.");
+				}
+				_data.writeByte(_name.length);
+				_data.write(_name);
+				_data.writeInt(_label.getValue());
+			}
+		}
+		for (int _index = 0; _index < this.size; _index++) {
+			_data.writeInt(this.code[_index]);
+		}
+		_data.flush();
+	}
+
+	/**
+	 * Read an object program in the TAMX format, as written by writeTo.
+	 * @param _input Stream where the object program is read.
+	 * @return The object program, with the labels of the symbol table if it was written.
+	 * @throws IOException if the input cannot be read, is truncated or is not a TAMX object program.
+	 */
+	public static ObjectProgram readFrom(InputStream _input) throws IOException {
+		DataInputStream _data = new DataInputStream(_input);
+		byte[] _magic = new byte[MAGIC.length];
+		_data.readFully(_magic);
+		if (!Arrays.equals(_magic, MAGIC)) {
+			throw new IOException( "The input is not a TAMX object program.");
+		}
+		int _symbols = _data.readInt();
+		int _strings = _data.readInt();
+		int _size = _data.readInt();
+		if (_symbols < 0 || _size < 0) {
+			throw new IOException( "Invalid TAMX header.");
+		}
+		if (_strings != 0) {
+			throw new IOException( "The strings of the TAM assembler STR directive are not supported.");
+		}
+		ObjectProgram _program = new ObjectProgram();
+		for (int _index = 0; _index < _symbols; _index++) {
+			byte[] _name = new byte[_data.readUnsignedByte()];
+			_data.readFully(_name);
+			_program.labels.put(new String(_name, StandardCharsets.UTF_8), _data.readInt());
+		}
+		_program.code = new int[_size];
+		for (int _index = 0; _index < _size; _index++) {
+			_program.code[_index] = _data.readInt();
+		}
+		_program.size = _size;
+		return _program;
+	}
+
+	/**
+	 * Define a label at an address.
+	 * @param _label Name of the label.
+	 * @param _address Address of the labelled instruction.
+	 */
+	void define(String _label, int _address) {
+		if (this.labels.putIfAbsent(_label.toLowerCase(), _address) != null) {
+			throw new IllegalArgumentException( "Label " + _label + " is defined twice.");
+		}
+	}
+
+	/**
+	 * Add a call to a Library primitive at the end of the code.
+	 * @param _primitive Called primitive.
+	 */
+	void emit(Library _primitive) {
+		this.add(encode(OPCODES[TAMInstructionKind.SUBR.ordinal()], 0, 0, PRIMITIVES[_primitive.ordinal()]));
+	}
+
+	/**
+	 * Add an instruction at the end of the code.
+	 * @param _kind Kind of the instruction.
+	 * @param _register Register of the instruction, null if none.
+	 * @param _frame Frame register of a call, null if none.
+	 * @param _size Size of the instruction (0 if none).
+	 * @param _offset Offset of the instruction (0 if none).
+	 * @param _target Target label of the instruction, null if none.
+	 */
+	void emit(TAMInstructionKind _kind, Register _register, Register _frame, int _size, int _offset, String _target) {
+		int _r = 0;
+		if (_register != null) {
+			_r = REGISTERS[_register.ordinal()];
+		} else if (_target != null) {
+			_r = REGISTERS[Register.CB.ordinal()];
+		}
+		int _n = (_frame != null) ? REGISTERS[_frame.ordinal()] : _size;
+		if (_n < 0 || _n > 255) {
+			throw new IllegalArgumentException( "Size " + _n + " of " + _kind + " does not fit in the n field.");
+		}
+		if (_offset < Short.MIN_VALUE || _offset > Short.MAX_VALUE) {
+			throw new IllegalArgumentException( "Value " + _offset + " of " + _kind + " does not fit in the d field.");
+		}
+		if (_target != null) {
+			this.references.add(this.size);
+			this.targets.add(_target);
+		}
+		this.add(encode(OPCODES[_kind.ordinal()], _r, _n, _offset));
+	}
+
+	private void add(int _word) {
+		if (this.size == this.code.length) {
+			this.code = Arrays.copyOf(this.code, 2 * this.code.length);
+		}
+		this.code[this.size++] = _word;
+	}
+
+	/**
+	 * Resolve the target labels once all the labels are defined.
+	 */
+	private void link() {
+		for (int _index = 0; _index < this.references.size(); _index++) {
+			String _target = this.targets.get(_index);
+			Integer _address = this.labels.get(_target.toLowerCase());
+			if (_address == null) {
+				throw new IllegalArgumentException( "Label " + _target + " is not defined.");
+			}
+			if (_address > Short.MAX_VALUE) {
+				throw new IllegalArgumentException( "Address of label " + _target + " does not fit in the d field.");
+			}
+			int _reference = this.references.get(_index);
+			this.code[_reference] = (this.code[_reference] & 0xFFFF0000) | _address;
+		}
+	}
+
+	private static int encode(int _opcode, int _register, int _n, int _d) {
+		return (_opcode << 28) | ((_register & 0xF) << 24) | ((_n & 0xFF) << 16) | (_d & 0xFFFF);
+	}
+
+}
@@ -0,0 +1,951 @@
+/**
+ *
+ */
+package fr.n7.stl.tam.ast.impl;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import fr.n7.stl.tam.ast.Fragment;
+import fr.n7.stl.tam.ast.Library;
+import fr.n7.stl.tam.ast.Register;
+import fr.n7.stl.tam.ast.TAMFactory;
+import fr.n7.stl.tam.ast.TAMInstruction;
+
+/**
+ * Implementation of a TAM fragment that does not keep the TAM Instruction objects.
+ * Each added instruction is stored as primitive values in parallel columns (opcode, flags,
+ * register, offset and size), the target, comments and labels of the few instructions
+ * that have some are stored in side tables indexed by the position of the instruction.
+ *
+ * The columns are split in a chain of segments: appending a fragment splices its chain of
+ * segments at the end of the chain in constant time. The instructions of a small fragment are
+ * copied at the end of the last segment instead, so that the leaves of the code generation do not
+ * each keep their own segment.
+ *
+ * Comments and labels must be added through the fragment once the instruction is added,
+ * annotations added later on the TAM Instruction object are not taken into account.
+ *
+ */
+public class PackedFragmentImpl implements Fragment {
+
+	/**
+	 * The instruction has a register.
+	 */
+	private static final byte HAS_REGISTER = 1;
+
+	/**
+	 * The instruction has an offset.
+	 */
+	private static final byte HAS_OFFSET = 2;
+
+	/**
+	 * The instruction has a size.
+	 */
+	private static final byte HAS_SIZE = 4;
+
+	/**
+	 * The instruction has a frame register, stored in the size column.
+	 */
+	private static final byte HAS_FRAME = 8;
+
+	/**
+	 * The instruction has a target label, stored in the side table of targets.
+	 */
+	private static final byte HAS_TARGET = 16;
+
+	/**
+	 * The instruction is a Library primitive whose ordinal is stored in the offset column.
+	 */
+	private static final byte IS_LIBRARY = 32;
+
+	/**
+	 * Initial capacity of the columns of a segment, most fragments only contain a few instructions.
+	 */
+	private static final int INITIAL_CAPACITY = 4;
+
+	/**
+	 * Appended fragments of at most this number of instructions are copied in the last segment.
+	 * An instruction is only copied to a larger fragment, hence at most this number of times.
+	 */
+	private static final int MERGE_LIMIT = 16;
+
+	private static final TAMInstructionKind[] KINDS = TAMInstructionKind.values();
+
+	private static final Register[] REGISTERS = Register.values();
+
+	private static final Library[] PRIMITIVES = Library.values();
+
+	/**
+	 * Side table of a segment: lines attached to some of its instructions, sorted by the index of
+	 * their instruction in parallel arrays. The lines of an instruction are kept in the order they
+	 * were added, they are mostly added to the last instruction, at the end of the arrays.
+	 */
+	private static class Lines {
+
+		private int[] indexes;
+
+		private String[] lines;
+
+		private int size;
+
+		private Lines() {
+			this.indexes = new int[INITIAL_CAPACITY];
+			this.lines = new String[INITIAL_CAPACITY];
+			this.size = 0;
+		}
+
+		/**
+		 * @return Position of the first line of the instruction, or where it would be inserted.
+		 */
+		private int find(int _index) {
+			if (this.size == 0 || this.indexes[this.size - 1] < _index) {
+				return this.size;
+			}
+			int _low = 0;
+			int _high = this.size;
+			while (_low < _high) {
+				int _middle = (_low + _high) >>> 1;
+				if (this.indexes[_middle] < _index) {
+					_low = _middle + 1;
+				} else {
+					_high = _middle;
+				}
+			}
+			return _low;
+		}
+
+		private void reserve(int _size) {
+			if (_size > this.indexes.length) {
+				int _capacity = Math.max(_size, 2 * this.indexes.length);
+				this.indexes = Arrays.copyOf(this.indexes, _capacity);
+				this.lines = Arrays.copyOf(this.lines, _capacity);
+			}
+		}
+
+		/**
+		 * Adds a line after the other lines of the instruction.
+		 */
+		private void add(int _index, String _line) {
+			int _position = this.find(_index + 1);
+			this.reserve(this.size + 1);
+			System.arraycopy(this.indexes, _position, this.indexes, _position + 1, this.size - _position);
+			System.arraycopy(this.lines, _position, this.lines, _position + 1, this.size - _position);
+			this.indexes[_position] = _index;
+			this.lines[_position] = _line;
+			this.size++;
+		}
+
+		/**
+		 * @return First line of the instruction, null if it has none.
+		 */
+		private String getFirst(int _index) {
+			int _position = this.find(_index);
+			return (_position < this.size && this.indexes[_position] == _index) ? this.lines[_position] : null;
+		}
+
+		/**
+		 * @return Copy of the lines of the instruction.
+		 */
+		private List<String> get(int _index) {
+			int _start = this.find(_index);
+			int _end = _start;
+			while (_end < this.size && this.indexes[_end] == _index) {
+				_end++;
+			}
+			return (_start == _end) ? Collections.<String>emptyList()
+					: Arrays.asList(Arrays.copyOfRange(this.lines, _start, _end));
+		}
+
+		/**
+		 * Removes the lines of the instructions from an index.
+		 */
+		private void truncate(int _index) {
+			int _size = this.find(_index);
+			Arrays.fill(this.lines, _size, this.size, null);
+			this.size = _size;
+		}
+
+		/**
+		 * Adds the lines of another table at the end, their indexes are shifted.
+		 */
+		private void append(Lines _other, int _shift) {
+			this.reserve(this.size + _other.size);
+			for (int _position = 0; _position < _other.size; _position++) {
+				this.indexes[this.size + _position] = _other.indexes[_position] + _shift;
+			}
+			System.arraycopy(_other.lines, 0, this.lines, this.size, _other.size);
+			this.size += _other.size;
+		}
+
+	}
+
+	/**
+	 * Element of the chain: columns for a sequence of instructions.
+	 */
+	private static class Segment {
+
+		private byte[] opcodes;
+
+		private byte[] flags;
+
+		private byte[] registers;
+
+		private int[] offsets;
+
+		private int[] sizes;
+
+		private int size;
+
+		private Lines targets;
+
+		private Lines comments;
+
+		private Lines prefixes;
+
+		private Lines suffixes;
+
+		private Segment next;
+
+		private Segment() {
+			this.opcodes = new byte[INITIAL_CAPACITY];
+			this.flags = new byte[INITIAL_CAPACITY];
+			this.registers = new byte[INITIAL_CAPACITY];
+			this.offsets = new int[INITIAL_CAPACITY];
+			this.sizes = new int[INITIAL_CAPACITY];
+			this.size = 0;
+		}
+
+		/**
+		 * Adds an empty instruction at the end of the segment.
+		 * @return Index of the added instruction in the segment.
+		 */
+		private int allocate() {
+			this.reserve(this.size + 1);
+			return this.size++;
+		}
+
+		private void reserve(int _size) {
+			if (_size > this.opcodes.length) {
+				int _capacity = Math.max(_size, 2 * this.opcodes.length);
+				this.opcodes = Arrays.copyOf(this.opcodes, _capacity);
+				this.flags = Arrays.copyOf(this.flags, _capacity);
+				this.registers = Arrays.copyOf(this.registers, _capacity);
+				this.offsets = Arrays.copyOf(this.offsets, _capacity);
+				this.sizes = Arrays.copyOf(this.sizes, _capacity);
+			}
+		}
+
+		/**
+		 * Copies all the instructions of a segment at the end of the segment, with their labels.
+		 */
+		private void append(Segment _other) {
+			this.reserve(this.size + _other.size);
+			System.arraycopy(_other.opcodes, 0, this.opcodes, this.size, _other.size);
+			System.arraycopy(_other.flags, 0, this.flags, this.size, _other.size);
+			System.arraycopy(_other.registers, 0, this.registers, this.size, _other.size);
+			System.arraycopy(_other.offsets, 0, this.offsets, this.size, _other.size);
+			System.arraycopy(_other.sizes, 0, this.sizes, this.size, _other.size);
+			this.targets = append(this.targets, _other.targets, this.size);
+			this.comments = append(this.comments, _other.comments, this.size);
+			this.prefixes = append(this.prefixes, _other.prefixes, this.size);
+			this.suffixes = append(this.suffixes, _other.suffixes, this.size);
+			this.size += _other.size;
+		}
+
+		private static Lines append(Lines _table, Lines _other, int _shift) {
+			if (_other == null || _other.size == 0) {
+				return _table;
+			}
+			Lines _result = (_table == null) ? new Lines() : _table;
+			_result.append(_other, _shift);
+			return _result;
+		}
+
+		/**
+		 * Decodes an instruction in the columns, at the end of the segment.
+		 * @return Index of the added instruction in the segment.
+		 */
+		private int add(TAMInstruction _instruction) {
+			int _index;
+			if (_instruction instanceof LibraryInstructionImpl) {
+				LibraryInstructionImpl _source = (LibraryInstructionImpl) _instruction;
+				_index = this.allocate();
+				this.opcodes[_index] = (byte) TAMInstructionKind.SUBR.ordinal();
+				this.flags[_index] = IS_LIBRARY;
+				this.offsets[_index] = _source.getPrimitive().ordinal();
+				this.annotate(_index, _source);
+			} else if (_instruction instanceof TAMInstructionImpl) {
+				TAMInstructionImpl _source = (TAMInstructionImpl) _instruction;
+				_index = this.allocate();
+				byte _flags = 0;
+				this.opcodes[_index] = (byte) _source.getKind().ordinal();
+				if (_source.register.isPresent()) {
+					_flags |= HAS_REGISTER;
+					this.registers[_index] = (byte) _source.register.get().ordinal();
+				}
+				if (_source.offset.isPresent()) {
+					_flags |= HAS_OFFSET;
+					this.offsets[_index] = _source.offset.get();
+				}
+				if (_source.size.isPresent()) {
+					_flags |= HAS_SIZE;
+					this.sizes[_index] = _source.size.get();
+				} else if (_source.getFrame().isPresent()) {
+					_flags |= HAS_FRAME;
+					this.sizes[_index] = _source.getFrame().get().ordinal();
+				}
+				if (_source.target.isPresent()) {
+					_flags |= HAS_TARGET;
+					if (this.targets == null) {
+						this.targets = new Lines();
+					}
+					this.targets.add(_index, _source.target.get());
+				}
+				this.flags[_index] = _flags;
+				this.annotate(_index, _source);
+			} else {
+				throw new IllegalArgumentException( "Unexpected TAM instruction implementation: " + _instruction.getClass());
+			}
+			return _index;
+		}
+
+		/**
+		 * Copies an instruction of a segment at the end of the segment, without its prefix labels.
+		 * @return Index of the copied instruction in the segment.
+		 */
+		private int copy(Segment _source, int _index) {
+			int _copy = this.allocate();
+			this.opcodes[_copy] = _source.opcodes[_index];
+			this.flags[_copy] = _source.flags[_index];
+			this.registers[_copy] = _source.registers[_index];
+			this.offsets[_copy] = _source.offsets[_index];
+			this.sizes[_copy] = _source.sizes[_index];
+			if ((_source.flags[_index] & HAS_TARGET) != 0) {
+				if (this.targets == null) {
+					this.targets = new Lines();
+				}
+				this.targets.add(_copy, _source.targets.getFirst(_index));
+			}
+			for (String _comment : lines(_source.comments, _index)) {
+				this.addComment(_copy, _comment);
+			}
+			for (String _label : lines(_source.suffixes, _index)) {
+				this.addSuffix(_copy, _label);
+			}
+			return _copy;
+		}
+
+		/**
+		 * Removes the last instructions of the segment.
+		 * @param _size Number of instructions that are kept.
+		 */
+		private void truncate(int _size) {
+			truncate(this.targets, _size);
+			truncate(this.comments, _size);
+			truncate(this.prefixes, _size);
+			truncate(this.suffixes, _size);
+			this.size = _size;
+		}
+
+		private static void truncate(Lines _table, int _size) {
+			if (_table != null) {
+				_table.truncate(_size);
+			}
+		}
+
+		private static List<String> lines(Lines _table, int _index) {
+			return (_table == null) ? Collections.<String>emptyList() : _table.get(_index);
+		}
+
+		private void addComment(int _index, String _comment) {
+			if (this.comments == null) {
+				this.comments = new Lines();
+			}
+			this.comments.add(_index, _comment);
+		}
+
+		private void addPrefix(int _index, String _label) {
+			if (this.prefixes == null) {
+				this.prefixes = new Lines();
+			}
+			this.prefixes.add(_index, _label);
+		}
+
+		private void addSuffix(int _index, String _label) {
+			if (this.suffixes == null) {
+				this.suffixes = new Lines();
+			}
+			this.suffixes.add(_index, _label);
+		}
+
+		/**
+		 * Copies the comments and labels of an instruction object.
+		 */
+		private void annotate(int _index, TAMInstructionImpl _source) {
+			if (_source.comments != null) {
+				for (String _comment : _source.comments) {
+					this.addComment(_index, _comment);
+				}
+			}
+			if (_source.prefixes != null) {
+				for (String _label : _source.prefixes) {
+					this.addPrefix(_index, _label);
+				}
+			}
+			if (_source.suffixes != null) {
+				for (String _label : _source.suffixes) {
+					this.addSuffix(_index, _label);
+				}
+			}
+		}
+
+		private void writeTo(int _index, Appendable _output) throws IOException {
+			writeLines(this.comments, _index, ";", _output);
+			writeLines(this.prefixes, _index, "", _output);
+			byte _flags = this.flags[_index];
+			if ((_flags & IS_LIBRARY) != 0) {
+				_output.append("SUBR ").append(PRIMITIVES[this.offsets[_index]].name());
+			} else {
+				_output.append(KINDS[this.opcodes[_index]].name());
+				if ((_flags & HAS_SIZE) != 0) {
+					_output.append(" (").append(String.valueOf(this.sizes[_index])).append(')');
+				} else if ((_flags & HAS_FRAME) != 0) {
+					_output.append(" (").append(REGISTERS[this.sizes[_index]].name()).append(')');
+				}
+				if ((_flags & HAS_OFFSET) != 0) {
+					_output.append(' ').append(String.valueOf(this.offsets[_index]));
+				}
+				if ((_flags & HAS_REGISTER) != 0) {
+					_output.append('[').append(REGISTERS[this.registers[_index]].name()).append(']');
+				}
+				if ((_flags & HAS_TARGET) != 0) {
+					_output.append(' ').append(this.targets.getFirst(_index));
+				}
+			}
+			_output.append('\n');
+			writeLines(this.suffixes, _index, "", _output);
+		}
+
+		private void encode(int _index, DataOutput _output) throws IOException {
+			byte _flags = this.flags[_index];
+			_output.writeByte(_flags);
+			_output.writeByte(this.opcodes[_index]);
+			_output.writeByte(this.registers[_index]);
+			_output.writeInt(this.sizes[_index]);
+			_output.writeInt(this.offsets[_index]);
+			if ((_flags & HAS_TARGET) != 0) {
+				_output.writeUTF(this.targets.getFirst(_index));
+			}
+			encodeLines(this.comments, _index, _output);
+			encodeLines(this.prefixes, _index, _output);
+			encodeLines(this.suffixes, _index, _output);
+		}
+
+		private static void encodeLines(Lines _table, int _index, DataOutput _output) throws IOException {
+			List<String> _lines = lines(_table, _index);
+			_output.writeInt(_lines.size());
+			for (String _line : _lines) {
+				_output.writeUTF(_line);
+			}
+		}
+
+		private static void writeLines(Lines _table, int _index, String _start, Appendable _output)
+				throws IOException {
+			for (String _line : lines(_table, _index)) {
+				_output.append(_start).append(_line).append('\n');
+			}
+		}
+
+	}
+
+	/**
+	 * Single segment where a fragment is rewritten by a peephole optimizer, the last instructions
+	 * are the window of the rules. Labels are only defined after an instruction, except before the
+	 * first one : a label defined between two instructions of the window is a suffix label.
+	 */
+	static final class Window implements PeepholeWindow {
+
+		private final Segment output;
+
+		/**
+		 * Labels defined before the next copied instruction, when the output is empty.
+		 */
+		private final List<String> labels;
+
+		/**
+		 * Index of the first instruction of the window in the output.
+		 */
+		private int start;
+
+		private Window() {
+			this.output = new Segment();
+			this.labels = new ArrayList<String>();
+			this.start = 0;
+		}
+
+		/**
+		 * Select the last instructions of the output as the window.
+		 * @param _length Number of instructions in the window.
+		 * @return true if there are enough instructions and no label is defined between them.
+		 */
+		boolean select(int _length) {
+			if (_length > this.output.size) {
+				return false;
+			}
+			int _start = this.output.size - _length;
+			for (int _index = _start; _index < this.output.size - 1; _index++) {
+				if (!Segment.lines(this.output.suffixes, _index).isEmpty()) {
+					return false;
+				}
+			}
+			this.start = _start;
+			return true;
+		}
+
+		/**
+		 * Define labels at the end of the output, the window then ends before them.
+		 */
+		private void define(List<String> _labels) {
+			if (this.output.size == 0) {
+				this.labels.addAll(_labels);
+			} else {
+				for (String _label : _labels) {
+					this.output.addSuffix(this.output.size - 1, _label);
+				}
+			}
+		}
+
+		/**
+		 * Copy an instruction at the end of the output, its prefix labels are defined before it.
+		 */
+		private void copy(Segment _source, int _index, PeepholeOptimizer _optimizer) {
+			List<String> _prefixes = Segment.lines(_source.prefixes, _index);
+			if (!_prefixes.isEmpty()) {
+				this.define(_prefixes);
+				if (this.output.size > 0) {
+					// The instruction before the labels may be rewritten with them, JUMP_NEXT
+					this.optimize(_optimizer);
+				}
+			}
+			int _copy = this.output.copy(_source, _index);
+			for (String _label : this.labels) {
+				this.output.addPrefix(_copy, _label);
+			}
+			this.labels.clear();
+		}
+
+		/**
+		 * Apply the rules until none matches the last instructions.
+		 */
+		private void optimize(PeepholeOptimizer _optimizer) {
+			PeepholeRule _rule;
+			while ((_rule = _optimizer.match(this)) != null) {
+				this.replace(_rule.getLength(), _rule.rewrite(this, _optimizer.getFactory()));
+			}
+		}
+
+		/**
+		 * Replace the window, its comments are moved on the new instruction and its labels are kept
+		 * at the same place.
+		 * @param _replacement New instruction, null if the window is removed with its comments.
+		 */
+		private void replace(int _length, TAMInstruction _replacement) {
+			int _start = this.output.size - _length;
+			List<String> _comments = new ArrayList<String>();
+			for (int _index = _start; _index < this.output.size; _index++) {
+				_comments.addAll(Segment.lines(this.output.comments, _index));
+			}
+			List<String> _before = new ArrayList<String>(Segment.lines(this.output.prefixes, _start));
+			List<String> _after = new ArrayList<String>(Segment.lines(this.output.suffixes, this.output.size - 1));
+			this.output.truncate(_start);
+			if (_replacement == null) {
+				_before.addAll(_after);
+				this.define(_before);
+			} else {
+				int _index = this.output.add(_replacement);
+				for (String _comment : _comments) {
+					this.output.addComment(_index, _comment);
+				}
+				for (String _label : _before) {
+					this.output.addPrefix(_index, _label);
+				}
+				for (String _label : _after) {
+					this.output.addSuffix(_index, _label);
+				}
+			}
+		}
+
+		/* (non-Javadoc)
+		 * @see fr.n7.stl.tam.ast.impl.PeepholeWindow#getKind(int)
+		 */
+		@Override
+		public TAMInstructionKind getKind(int _index) {
+			return KINDS[this.output.opcodes[this.start + _index]];
+		}
+
+		/* (non-Javadoc)
+		 * @see fr.n7.stl.tam.ast.impl.PeepholeWindow#getPrimitive(int)
+		 */
+		@Override
+		public Library getPrimitive(int _index) {
+			int _position = this.start + _index;
+			return ((this.output.flags[_position] & IS_LIBRARY) != 0) ? PRIMITIVES[this.output.offsets[_position]] : null;
+		}
+
+		/* (non-Javadoc)
+		 * @see fr.n7.stl.tam.ast.impl.PeepholeWindow#getRegister(int)
+		 */
+		@Override
+		public Register getRegister(int _index) {
+			int _position = this.start + _index;
+			return ((this.output.flags[_position] & HAS_REGISTER) != 0) ? REGISTERS[this.output.registers[_position]] : null;
+		}
+
+		/* (non-Javadoc)
+		 * @see fr.n7.stl.tam.ast.impl.PeepholeWindow#getOffset(int)
+		 */
+		@Override
+		public int getOffset(int _index) {
+			int _position = this.start + _index;
+			return ((this.output.flags[_position] & HAS_OFFSET) != 0) ? this.output.offsets[_position] : 0;
+		}
+
+		/* (non-Javadoc)
+		 * @see fr.n7.stl.tam.ast.impl.PeepholeWindow#getSize(int)
+		 */
+		@Override
+		public int getSize(int _index) {
+			int _position = this.start + _index;
+			return ((this.output.flags[_position] & HAS_SIZE) != 0) ? this.output.sizes[_position] : 0;
+		}
+
+		/* (non-Javadoc)
+		 * @see fr.n7.stl.tam.ast.impl.PeepholeWindow#getTarget(int)
+		 */
+		@Override
+		public String getTarget(int _index) {
+			int _position = this.start + _index;
+			return ((this.output.flags[_position] & HAS_TARGET) != 0) ? this.output.targets.getFirst(_position) : null;
+		}
+
+		/* (non-Javadoc)
+		 * @see fr.n7.stl.tam.ast.impl.PeepholeWindow#isFollowedBy(int, java.lang.String)
+		 */
+		@Override
+		public boolean isFollowedBy(int _index, String _label) {
+			return Segment.lines(this.output.suffixes, this.start + _index).contains(_label);
+		}
+
+	}
+
+	/**
+	 * First segment of the chain, null if the fragment is empty.
+	 */
+	private Segment first;
+
+	/**
+	 * Last segment of the chain, null if the fragment is empty.
+	 */
+	private Segment last;
+
+	/**
+	 * Number of instructions in the whole chain.
+	 */
+	private int size;
+
+	/**
+	 * Create an empty fragment.
+	 */
+	public PackedFragmentImpl() {
+		this.first = null;
+		this.last = null;
+		this.size = 0;
+	}
+
+	/* (non-Javadoc)
+	 * The instruction is decoded in the columns of the last segment.
+	 * @see fr.n7.stl.tam.ast.Fragment#add(fr.n7.stl.tam.ast.TAMInstruction)
+	 */
+	@Override
+	public void add(TAMInstruction _instruction) {
+		if (this.last == null) {
+			this.first = new Segment();
+			this.last = this.first;
+		}
+		this.last.add(_instruction);
+		this.size++;
+	}
+
+	/* (non-Javadoc)
+	 * The segments of the provided fragment are moved at the end of this fragment, or copied in
+	 * its last segment if there are few instructions, which leaves the provided fragment empty.
+	 * @see fr.n7.stl.tam.ast.Fragment#append(fr.n7.stl.tam.ast.Fragment)
+	 */
+	@Override
+	public void append(Fragment _fragment) {
+		if (_fragment == this) {
+			throw new IllegalArgumentException( "A fragment cannot be appended to itself.");
+		}
+		PackedFragmentImpl _other = (PackedFragmentImpl)_fragment;
+		if (_other.first != null) {
+			if (this.last == null) {
+				this.first = _other.first;
+				this.last = _other.last;
+			} else if (_other.size <= MERGE_LIMIT) {
+				for (Segment _segment = _other.first; _segment != null; _segment = _segment.next) {
+					this.last.append(_segment);
+				}
+			} else {
+				this.last.next = _other.first;
+				this.last = _other.last;
+			}
+			this.size += _other.size;
+			_other.first = null;
+			_other.last = null;
+			_other.size = 0;
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see fr.n7.stl.tam.ast.Fragment#writeTo(java.lang.Appendable)
+	 */
+	@Override
+	public void writeTo(Appendable _output) throws IOException {
+		for (Segment _segment = this.first; _segment != null; _segment = _segment.next) {
+			for (int _index = 0; _index < _segment.size; _index++) {
+				_segment.writeTo(_index, _output);
+			}
+		}
+	}
+
+	/**
+	 * Assemble the instructions of the fragment in an object program: prefix labels are defined
+	 * at the address of their instruction, suffix labels at the address of the next one.
+	 * Comments are not part of the object program.
+	 * @param _program Object program that receives the labels and the instructions.
+	 */
+	void assemble(ObjectProgram _program) {
+		int _address = 0;
+		for (Segment _segment = this.first; _segment != null; _segment = _segment.next) {
+			for (int _index = 0; _index < _segment.size; _index++) {
+				define(_segment.prefixes, _index, _address, _program);
+				byte _flags = _segment.flags[_index];
+				if ((_flags & IS_LIBRARY) != 0) {
+					_program.emit(PRIMITIVES[_segment.offsets[_index]]);
+				} else {
+					_program.emit(
+							KINDS[_segment.opcodes[_index]],
+							((_flags & HAS_REGISTER) != 0) ? REGISTERS[_segment.registers[_index]] : null,
+							((_flags & HAS_FRAME) != 0) ? REGISTERS[_segment.sizes[_index]] : null,
+							((_flags & HAS_SIZE) != 0) ? _segment.sizes[_index] : 0,
+							((_flags & HAS_OFFSET) != 0) ? _segment.offsets[_index] : 0,
+							((_flags & HAS_TARGET) != 0) ? _segment.targets.getFirst(_index) : null);
+				}
+				_address++;
+				define(_segment.suffixes, _index, _address, _program);
+			}
+		}
+	}
+
+	private static void define(Lines _table, int _index, int _address, ObjectProgram _program) {
+		for (String _label : Segment.lines(_table, _index)) {
+			_program.define(_label, _address);
+		}
+	}
+
+	/**
+	 * Copy the instructions of the fragment in a new fragment, rewritten by the rules of a peephole
+	 * optimizer after each copy. The prefix labels are moved after the previous instruction, at the
+	 * same address, so that the label that follows an instruction is known when it is rewritten.
+	 * @param _optimizer Optimizer that selects the rules.
+	 * @return The rewritten fragment, this fragment itself if all its instructions are removed.
+	 */
+	PackedFragmentImpl rewrite(PeepholeOptimizer _optimizer) {
+		Window _window = new Window();
+		for (Segment _segment = this.first; _segment != null; _segment = _segment.next) {
+			for (int _index = 0; _index < _segment.size; _index++) {
+				_window.copy(_segment, _index, _optimizer);
+				_window.optimize(_optimizer);
+			}
+		}
+		if (_window.output.size == 0) {
+			// Nothing to define the remaining labels on
+			return this;
+		}
+		PackedFragmentImpl _result = new PackedFragmentImpl();
+		_result.first = _window.output;
+		_result.last = _window.output;
+		_result.size = _window.output.size;
+		return _result;
+	}
+
+	/**
+	 * Write the instructions of the fragment, with their comments and labels, in a binary form
+	 * read by decode.
+	 * @param _output Destination of the encoded fragment.
+	 * @throws IOException if the output cannot be written.
+	 */
+	public void encode(DataOutput _output) throws IOException {
+		_output.writeInt(this.size);
+		for (Segment _segment = this.first; _segment != null; _segment = _segment.next) {
+			for (int _index = 0; _index < _segment.size; _index++) {
+				_segment.encode(_index, _output);
+			}
+		}
+	}
+
+	/**
+	 * Read a fragment written by encode.
+	 * @param _input Source of the encoded fragment.
+	 * @param _factory Factory that builds the fragment, whatever the kind of its fragments.
+	 * @return The decoded fragment.
+	 * @throws IOException if the input cannot be read or is not an encoded fragment.
+	 */
+	public static Fragment decode(DataInput _input, TAMFactory _factory) throws IOException {
+		Fragment _fragment = _factory.createFragment();
+		int _size = _input.readInt();
+		for (int _index = 0; _index < _size; _index++) {
+			byte _flags = _input.readByte();
+			int _opcode = _input.readByte();
+			int _register = _input.readByte();
+			int _sizeValue = _input.readInt();
+			int _offset = _input.readInt();
+			TAMInstructionImpl _instruction;
+			if ((_flags & IS_LIBRARY) != 0) {
+				_instruction = new LibraryInstructionImpl(PRIMITIVES[_offset]);
+			} else {
+				_instruction = new TAMInstructionImpl(KINDS[_opcode], Optional.empty(),
+						((_flags & HAS_REGISTER) != 0) ? Optional.of(REGISTERS[_register]) : Optional.empty(),
+						((_flags & HAS_OFFSET) != 0) ? Optional.of(_offset) : Optional.empty(),
+						((_flags & HAS_TARGET) != 0) ? Optional.of(_input.readUTF()) : Optional.empty(),
+						((_flags & HAS_SIZE) != 0) ? Optional.of(_sizeValue) : Optional.empty(),
+						((_flags & HAS_FRAME) != 0) ? Optional.of(REGISTERS[_sizeValue]) : Optional.empty());
+			}
+			for (String _comment : decodeLines(_input)) {
+				_instruction.addComment(_comment);
+			}
+			for (String _label : decodeLines(_input)) {
+				_instruction.addPrefix(_label);
+			}
+			for (String _label : decodeLines(_input)) {
+				_instruction.addSuffix(_label);
+			}
+			_fragment.add(_instruction);
+		}
+		return _fragment;
+	}
+
+	private static List<String> decodeLines(DataInput _input) throws IOException {
+		int _count = _input.readInt();
+		if (_count == 0) {
+			return Collections.emptyList();
+		}
+		List<String> _lines = new ArrayList<String>(_count);
+		for (int _index = 0; _index < _count; _index++) {
+			_lines.add(_input.readUTF());
+		}
+		return _lines;
+	}
+
+	/**
+	 * @return Number of instructions in the fragment.
+	 */
+	public int getSize() {
+		return this.size;
+	}
+
+	/**
+	 * @return Number of labels defined in the fragment, as prefix or suffix of an instruction.
+	 */
+	public int getLabelCount() {
+		int _count = 0;
+		for (Segment _segment = this.first; _segment != null; _segment = _segment.next) {
+			_count += count(_segment.prefixes) + count(_segment.suffixes);
+		}
+		return _count;
+	}
+
+	private static int count(Lines _table) {
+		return (_table == null) ? 0 : _table.size;
+	}
+
+	/**
+	 * Provide a packed version of a fragment.
+	 * @param _fragment Fragment built by one of the TAM factory implementations.
+	 * @return The fragment itself if it is already packed, a packed copy otherwise.
+	 */
+	public static PackedFragmentImpl pack(Fragment _fragment) {
+		if (_fragment instanceof PackedFragmentImpl) {
+			return (PackedFragmentImpl) _fragment;
+		}
+		List<TAMInstruction> _instructions;
+		if (_fragment instanceof FragmentImpl) {
+			_instructions = ((FragmentImpl) _fragment).getInstructions();
+		} else if (_fragment instanceof ChunkedFragmentImpl) {
+			_instructions = ((ChunkedFragmentImpl) _fragment).getInstructions();
+		} else {
+			throw new IllegalArgumentException( "Unexpected fragment implementation: " + _fragment.getClass());
+		}
+		PackedFragmentImpl _result = new PackedFragmentImpl();
+		for (TAMInstruction _instruction : _instructions) {
+			_result.add(_instruction);
+		}
+		return _result;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder _result = new StringBuilder();
+		try {
+			this.writeTo(_result);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return _result.toString();
+	}
+
+	/* (non-Javadoc)
+	 * @see fr.n7.stl.tam.ast.Fragment#addComment(java.lang.String)
+	 */
+	@Override
+	public void addComment(String _comment) {
+		if (this.size > 0) {
+			this.first.addComment(0, _comment);
+		} else {
+			throw new IllegalArgumentException( "Fragment size is 0. No comment can be added.");
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see fr.n7.stl.tam.ast.Fragment#addPrefix(java.lang.String)
+	 */
+	@Override
+	public void addPrefix(String _label) {
+		if (this.size > 0) {
+			this.first.addPrefix(0, _label);
+		} else {
+			throw new IllegalArgumentException( "Fragment size is 0. No prefix label can be added.");
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see fr.n7.stl.tam.ast.Fragment#addSuffix(java.lang.String)
+	 */
+	@Override
+	public void addSuffix(String _label) {
+		if (this.size > 0) {
+			this.last.addSuffix(this.last.size - 1, _label);
+		} else {
+			throw new IllegalArgumentException( "Fragment size is 0. No suffix label can be added.");
+		}
+	}
+
+}
@@ -0,0 +1,106 @@
+/**
+ *
+ */
+package fr.n7.stl.tam.ast.impl;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+import fr.n7.stl.tam.ast.Fragment;
+import fr.n7.stl.tam.ast.TAMFactory;
+
+/**
+ * Peephole optimizer of TAM fragments. The instructions are copied one by one, after each copy the
+ * rules of the table are tried in order on the last copied instructions, the window of each rule.
+ * A rewritten window is tried again, so that a rewrite can enable another one.
+ *
+ * The rewrites are label-aware : a window is not rewritten if a label is defined between two of
+ * its instructions, a jump could reach the middle of the window. The labels defined before and
+ * after the window are kept at the same place in the rewritten code.
+ *
+ */
+public class PeepholeOptimizer {
+
+	/**
+	 * Rules applied by the optimizer, in the order of PeepholeRule.
+	 */
+	private final PeepholeRule[] rules;
+
+	/**
+	 * Number of rewrites done by each rule, indexed by its ordinal.
+	 */
+	private final int[] rewrites;
+
+	/**
+	 * Factory of the instructions that replace the windows.
+	 */
+	private final TAMFactory factory;
+
+	/**
+	 * Create an optimizer that applies all the rules.
+	 */
+	public PeepholeOptimizer() {
+		this(EnumSet.allOf(PeepholeRule.class));
+	}
+
+	/**
+	 * @param _rules Rules applied by the optimizer, none if the set is empty.
+	 */
+	public PeepholeOptimizer(Set<PeepholeRule> _rules) {
+		EnumSet<PeepholeRule> _table = EnumSet.noneOf(PeepholeRule.class);
+		_table.addAll(_rules);
+		this.rules = _table.toArray(new PeepholeRule[_table.size()]);
+		this.rewrites = new int[PeepholeRule.values().length];
+		this.factory = new TAMFactoryImpl();
+	}
+
+	/**
+	 * Rewrite the instructions of a fragment.
+	 * @param _fragment Fragment built by one of the TAM factory implementations, it is not modified.
+	 * @return The rewritten fragment, the fragment itself if no rule is applied.
+	 */
+	public Fragment optimize(Fragment _fragment) {
+		if (this.rules.length == 0) {
+			return _fragment;
+		}
+		return PackedFragmentImpl.pack(_fragment).rewrite(this);
+	}
+
+	/**
+	 * Find the rule that rewrites the last instructions of a fragment, the rewrite is counted.
+	 * @param _window Last instructions of the fragment.
+	 * @return The first rule that matches its window, null if none matches.
+	 */
+	PeepholeRule match(PackedFragmentImpl.Window _window) {
+		for (PeepholeRule _rule : this.rules) {
+			if (_window.select(_rule.getLength()) && _rule.matches(_window)) {
+				this.rewrites[_rule.ordinal()]++;
+				return _rule;
+			}
+		}
+		return null;
+	}
+
+	TAMFactory getFactory() {
+		return this.factory;
+	}
+
+	/**
+	 * @return Number of rewrites done by the rule since the creation of the optimizer.
+	 */
+	public int getRewrites(PeepholeRule _rule) {
+		return this.rewrites[_rule.ordinal()];
+	}
+
+	/**
+	 * @return Number of rewrites done by all the rules since the creation of the optimizer.
+	 */
+	public int getRewrites() {
+		int _total = 0;
+		for (int _count : this.rewrites) {
+			_total += _count;
+		}
+		return _total;
+	}
+
+}
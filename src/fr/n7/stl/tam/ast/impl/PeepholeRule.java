@@ -0,0 +1,185 @@
+/**
+ *
+ */
+package fr.n7.stl.tam.ast.impl;
+
+import fr.n7.stl.tam.ast.Library;
+import fr.n7.stl.tam.ast.Register;
+import fr.n7.stl.tam.ast.TAMFactory;
+import fr.n7.stl.tam.ast.TAMInstruction;
+
+/**
+ * Rewrite rules of the peephole optimizer. Each rule matches a fixed number of consecutive
+ * instructions and replaces them by one instruction or removes them, with the same effect on the
+ * registers and on the memory below the top of the stack.
+ *
+ * The addresses relative to ST are not rewritten : ST changes between the instructions.
+ *
+ */
+public enum PeepholeRule {
+
+	/**
+	 * LOADL 0 then SUBR IAdd or ISub : the value is left unchanged.
+	 */
+	ADD_ZERO("addZero", 2) {
+		@Override
+		boolean matches(PeepholeWindow _window) {
+			return isLoadL(_window, 0, 0)
+					&& (_window.getPrimitive(1) == Library.IAdd || _window.getPrimitive(1) == Library.ISub);
+		}
+	},
+
+	/**
+	 * LOADL 1 then SUBR IMul or IDiv : the value is left unchanged.
+	 */
+	MULTIPLY_ONE("multiplyOne", 2) {
+		@Override
+		boolean matches(PeepholeWindow _window) {
+			return isLoadL(_window, 0, 1)
+					&& (_window.getPrimitive(1) == Library.IMul || _window.getPrimitive(1) == Library.IDiv);
+		}
+	},
+
+	/**
+	 * JUMP to the label that follows it.
+	 */
+	JUMP_NEXT("jumpNext", 1) {
+		@Override
+		boolean matches(PeepholeWindow _window) {
+			return _window.getKind(0) == TAMInstructionKind.JUMP && _window.getTarget(0) != null
+					&& _window.isFollowedBy(0, _window.getTarget(0));
+		}
+	},
+
+	/**
+	 * PUSH 0 : no word is reserved.
+	 */
+	PUSH_ZERO("pushZero", 1) {
+		@Override
+		boolean matches(PeepholeWindow _window) {
+			return _window.getKind(0) == TAMInstructionKind.PUSH && _window.getOffset(0) == 0;
+		}
+	},
+
+	/**
+	 * POP (n) 0 : no word is removed under the top of the stack.
+	 */
+	POP_ZERO("popZero", 1) {
+		@Override
+		boolean matches(PeepholeWindow _window) {
+			return _window.getKind(0) == TAMInstructionKind.POP && _window.getOffset(0) == 0;
+		}
+	},
+
+	/**
+	 * LOAD (n) d[r] then STORE (n) d[r] : the loaded value is stored back where it was read.
+	 *
+	 * The opposite sequence, a value stored then loaded again, is kept : duplicating the value with
+	 * LOAD (n) -n[ST] before the store would only replace the LOAD, one instruction for one. The
+	 * addresses relative to ST are not matched (see isAddress) as they move with the stack.
+	 */
+	LOAD_STORE("loadStore", 2) {
+		@Override
+		boolean matches(PeepholeWindow _window) {
+			return _window.getKind(0) == TAMInstructionKind.LOAD && _window.getKind(1) == TAMInstructionKind.STORE
+					&& isAddress(_window, 0) && _window.getRegister(0) == _window.getRegister(1)
+					&& _window.getOffset(0) == _window.getOffset(1) && _window.getSize(0) == _window.getSize(1);
+		}
+	},
+
+	/**
+	 * LOADA d[r] then LOADI (n) : loads the value at the address, as LOAD (n) d[r].
+	 */
+	INDIRECT_LOAD("indirectLoad", 2) {
+		@Override
+		boolean matches(PeepholeWindow _window) {
+			return _window.getKind(0) == TAMInstructionKind.LOADA && isAddress(_window, 0)
+					&& _window.getKind(1) == TAMInstructionKind.LOADI;
+		}
+
+		@Override
+		TAMInstruction rewrite(PeepholeWindow _window, TAMFactory _factory) {
+			return _factory.createLoad(_window.getRegister(0), _window.getOffset(0), _window.getSize(1));
+		}
+	},
+
+	/**
+	 * LOADA d[r] then STOREI (n) : stores the value at the address, as STORE (n) d[r].
+	 */
+	INDIRECT_STORE("indirectStore", 2) {
+		@Override
+		boolean matches(PeepholeWindow _window) {
+			return _window.getKind(0) == TAMInstructionKind.LOADA && isAddress(_window, 0)
+					&& _window.getKind(1) == TAMInstructionKind.STOREI;
+		}
+
+		@Override
+		TAMInstruction rewrite(PeepholeWindow _window, TAMFactory _factory) {
+			return _factory.createStore(_window.getRegister(0), _window.getOffset(0), _window.getSize(1));
+		}
+	};
+
+	private final String key;
+
+	private final int length;
+
+	private PeepholeRule(String _key, int _length) {
+		this.key = _key;
+		this.length = _length;
+	}
+
+	/**
+	 * @return Name of the rule in the options of the compiler.
+	 */
+	public String getKey() {
+		return this.key;
+	}
+
+	/**
+	 * @return Number of instructions matched by the rule.
+	 */
+	public int getLength() {
+		return this.length;
+	}
+
+	/**
+	 * @param _window The last getLength() instructions of the fragment.
+	 * @return true if the rule rewrites the instructions of the window.
+	 */
+	abstract boolean matches(PeepholeWindow _window);
+
+	/**
+	 * @param _window The instructions matched by the rule.
+	 * @param _factory Factory of the new instruction.
+	 * @return The instruction that replaces the window, null if the window is removed.
+	 */
+	TAMInstruction rewrite(PeepholeWindow _window, TAMFactory _factory) {
+		return null;
+	}
+
+	/**
+	 * @return The rule whose key is provided, null if there is none.
+	 */
+	public static PeepholeRule forKey(String _key) {
+		for (PeepholeRule _rule : values()) {
+			if (_rule.key.equals(_key)) {
+				return _rule;
+			}
+		}
+		return null;
+	}
+
+	private static boolean isLoadL(PeepholeWindow _window, int _index, int _value) {
+		return _window.getKind(_index) == TAMInstructionKind.LOADL && _window.getTarget(_index) == null
+				&& _window.getOffset(_index) == _value;
+	}
+
+	/**
+	 * @return true if the instruction accesses a fixed address d[r], that does not move with ST.
+	 */
+	private static boolean isAddress(PeepholeWindow _window, int _index) {
+		Register _register = _window.getRegister(_index);
+		return _register != null && _register != Register.ST && _window.getTarget(_index) == null;
+	}
+
+}
@@ -0,0 +1,53 @@
+/**
+ *
+ */
+package fr.n7.stl.tam.ast.impl;
+
+import fr.n7.stl.tam.ast.Library;
+import fr.n7.stl.tam.ast.Register;
+
+/**
+ * Last instructions of a fragment rewritten by a peephole optimizer, as seen by a rule. The
+ * instructions are numbered from 0, the first instruction of the window. No label is defined
+ * between two instructions of the window : none of them is the target of a jump, except the first.
+ *
+ */
+interface PeepholeWindow {
+
+	/**
+	 * @return Kind of the instruction, SUBR for a Library primitive.
+	 */
+	TAMInstructionKind getKind(int _index);
+
+	/**
+	 * @return The called primitive, null if the instruction is not a Library primitive.
+	 */
+	Library getPrimitive(int _index);
+
+	/**
+	 * @return Register of the address of the instruction, null if it has none.
+	 */
+	Register getRegister(int _index);
+
+	/**
+	 * @return Offset of the instruction, 0 if it has none.
+	 */
+	int getOffset(int _index);
+
+	/**
+	 * @return Size of the instruction, 0 if it has none.
+	 */
+	int getSize(int _index);
+
+	/**
+	 * @return Target label of the instruction, null if it has none.
+	 */
+	String getTarget(int _index);
+
+	/**
+	 * @param _label Label searched after the instruction.
+	 * @return true if the label is defined at the address that follows the instruction.
+	 */
+	boolean isFollowedBy(int _index, String _label);
+
+}
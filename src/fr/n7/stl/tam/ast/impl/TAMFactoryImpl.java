@@ -7,6 +7,7 @@ import java.util.List;
 import java.util.Optional;
 
 import fr.n7.stl.tam.ast.Fragment;
+import fr.n7.stl.tam.ast.Library;
 import fr.n7.stl.tam.ast.Register;
 import fr.n7.stl.tam.ast.TAMFactory;
 import fr.n7.stl.tam.ast.TAMInstruction;
@@ -19,14 +20,56 @@ import fr.n7.stl.tam.ast.TAMInstruction;
  */
 public class TAMFactoryImpl implements TAMFactory {
 	
-	private static int labelNumber = 0;
+	/**
+	 * Last label number allocated by this factory. Each compilation uses its own factory, and
+	 * each function its own factory (see createFunctionFactory), hence their own label numbers.
+	 */
+	private int labelNumber;
+
+	/**
+	 * Implementation of the fragments built by the factory.
+	 */
+	private FragmentKind fragmentKind;
+
+	/**
+	 * Prefix of the labels, empty for the main block and made of the name of the function followed
+	 * by a dot for the factory of a function, such as f. or f.g. for a function g declared in f.
+	 */
+	private String labelPrefix;
+
+	/**
+	 * Create a factory whose fragments store the instructions as primitive values and
+	 * splice appended fragments in constant time.
+	 */
+	public TAMFactoryImpl() {
+		this(FragmentKind.PACKED);
+	}
+
+	/**
+	 * Create a factory that builds fragments with the provided implementation.
+	 * @param _fragmentKind Implementation of the fragments built by the factory.
+	 */
+	public TAMFactoryImpl(FragmentKind _fragmentKind) {
+		this(_fragmentKind, "");
+	}
+
+	private TAMFactoryImpl(FragmentKind _fragmentKind, String _labelPrefix) {
+		this.fragmentKind = _fragmentKind;
+		this.labelPrefix = _labelPrefix;
+		this.labelNumber = 0;
+	}
 
 	/* (non-Javadoc)
 	 * @see fr.n7.stl.tam.ast.TAMFactory#createFragment()
 	 */
 	@Override
 	public Fragment createFragment() {
-		return new FragmentImpl();
+		switch (this.fragmentKind) {
+		case LINKED: return new FragmentImpl();
+		case CHUNKED: return new ChunkedFragmentImpl();
+		case PACKED: return new PackedFragmentImpl();
+		default: throw new IllegalArgumentException( "Unexpected fragment kind: " + this.fragmentKind);
+		}
 	}
 
 	/* (non-Javadoc)
@@ -314,22 +357,49 @@ public class TAMFactoryImpl implements TAMFactory {
 				Optional.empty());
 	}
 
+	/* (non-Javadoc)
+	 * @see fr.n7.stl.tam.ast.TAMFactory#createSubr(fr.n7.stl.tam.ast.Library)
+	 */
+	@Override
+	public TAMInstruction createSubr(Library _primitive) {
+		return new LibraryInstructionImpl(_primitive);
+	}
+
 	/* (non-Javadoc)
 	 * @see fr.n7.stl.tam.ast.TAMFactory#createFragment(java.util.List)
 	 */
 	@Override
 	public Fragment createFragment(List<TAMInstruction> _instructions) {
-		Fragment _local = new FragmentImpl();
+		Fragment _local = this.createFragment();
 		for (TAMInstruction _instruction : _instructions) {
 			_local.add(_instruction);
 		}
 		return _local;
 	}
 
+	/* (non-Javadoc)
+	 * @see fr.n7.stl.tam.ast.TAMFactory#createLabelNumber()
+	 */
 	@Override
 	public int createLabelNumber() {
-		labelNumber++;
-		return labelNumber;
+		this.labelNumber++;
+		return this.labelNumber;
+	}
+
+	/* (non-Javadoc)
+	 * @see fr.n7.stl.tam.ast.TAMFactory#createLabel(java.lang.String)
+	 */
+	@Override
+	public String createLabel(String _kind) {
+		return this.labelPrefix + _kind + "." + this.createLabelNumber();
+	}
+
+	/* (non-Javadoc)
+	 * @see fr.n7.stl.tam.ast.TAMFactory#createFunctionFactory(java.lang.String)
+	 */
+	@Override
+	public TAMFactory createFunctionFactory(String _function) {
+		return new TAMFactoryImpl(this.fragmentKind, this.labelPrefix + _function + ".");
 	}
 
 }
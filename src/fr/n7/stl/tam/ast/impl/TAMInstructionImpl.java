@@ -3,6 +3,8 @@
  */
 package fr.n7.stl.tam.ast.impl;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Optional;
@@ -25,18 +27,21 @@ class TAMInstructionImpl implements TAMInstruction {
 	/**
 	 * Each TAM instruction can have prefix comments used for relating this instruction 
 	 * to the block source code.
+	 * Most instructions have none, the list is only created for the first comment.
 	 */
 	protected List<String> comments;
 	
 	/**
 	 * Each TAM instruction can have prefix labels used for computing locations to that instruction 
 	 * for JUMP and CALL instructions.
+	 * Most instructions have none, the list is only created for the first label.
 	 */
 	protected List<String> prefixes;
 	
 	/**
 	 * Each TAM instruction can have suffix labels used for computing locations following that instruction 
 	 * for JUMP and CALL instructions.
+	 * Most instructions have none, the list is only created for the first label.
 	 */
 	protected List<String> suffixes;
 	
@@ -87,11 +92,11 @@ class TAMInstructionImpl implements TAMInstruction {
 			Optional<Register> _register, Optional<Integer> _offset, 
 			Optional<String> _target, Optional<Integer> _size, Optional<Register> _frame) {
 		this.kind = _kind;
-		this.comments = new LinkedList<String>();
-		this.prefixes = new LinkedList<String>();
-		this.suffixes = new LinkedList<String>();
+		this.comments = null;
+		this.prefixes = null;
+		this.suffixes = null;
 		if (_label.isPresent()) {
-			this.prefixes.add(_label.get());
+			this.addPrefix(_label.get());
 		}
 		this.register = _register;
 		this.offset = _offset;
@@ -105,6 +110,9 @@ class TAMInstructionImpl implements TAMInstruction {
 	 */
 	@Override
 	public void addPrefix(String _label) {
+		if (this.prefixes == null) {
+			this.prefixes = new LinkedList<String>();
+		}
 		this.prefixes.add(_label);
 	}
 	
@@ -113,6 +121,9 @@ class TAMInstructionImpl implements TAMInstruction {
 	 */
 	@Override
 	public void addSuffix(String _label) {
+		if (this.suffixes == null) {
+			this.suffixes = new LinkedList<String>();
+		}
 		this.suffixes.add(_label);
 	}
 	
@@ -121,27 +132,81 @@ class TAMInstructionImpl implements TAMInstruction {
 	 */
 	@Override
 	public void addComment(String _comment) {
+		if (this.comments == null) {
+			this.comments = new LinkedList<String>();
+		}
 		this.comments.add(_comment);		
 	}
 	
-	public String toString() {
-		String _result = "";
-		for (String _comment : this.comments) {
-			_result += ";" + _comment + "\n";
+	/* (non-Javadoc)
+	 * @see fr.n7.stl.tam.ast.TAMInstruction#writeTo(java.lang.Appendable)
+	 */
+	@Override
+	public void writeTo(Appendable _output) throws IOException {
+		if (this.comments != null) {
+			for (String _comment : this.comments) {
+				_output.append(';').append(_comment).append('\n');
+			}
+		}
+		if (this.prefixes != null) {
+			for (String _label : this.prefixes) {
+				_output.append(_label).append('\n');
+			}
+		}
+		this.writeInstruction(_output);
+		_output.append('\n');
+		if (this.suffixes != null) {
+			for (String _label : this.suffixes) {
+				_output.append(_label).append('\n');
+			}
+		}
+	}
+
+	/**
+	 * Writes the instruction itself, without its comments and labels.
+	 * @param _output Where the instruction is written.
+	 * @throws IOException if the output cannot be written.
+	 */
+	protected void writeInstruction(Appendable _output) throws IOException {
+		_output.append(this.kind.name());
+		if (this.size.isPresent()) {
+			_output.append(" (").append(String.valueOf(this.size.get())).append(')');
+		} else if (this.frame.isPresent()) {
+			_output.append(" (").append(this.frame.get().name()).append(')');
 		}
-		for (String _label : this.prefixes) {
-			_result += _label + "\n";
+		if (this.offset.isPresent()) {
+			_output.append(' ').append(String.valueOf(this.offset.get()));
 		}
-		_result += this.kind;
-		_result += ((this.size.isPresent())?(" (" + this.size.get() + ")"):((this.frame.isPresent())?(" (" + this.frame.get() +")"):""));
-		_result += ((this.offset.isPresent())?(" " + this.offset.get()):"");
-		_result += ((this.register.isPresent())?("[" + this.register.get() + "]"):"");
-		_result += ((this.target.isPresent())?(" " + this.target.get()):"");
-		_result += "\n";
-		for (String _label : this.suffixes) {
-			_result += _label + "\n";
+		if (this.register.isPresent()) {
+			_output.append('[').append(this.register.get().name()).append(']');
+		}
+		if (this.target.isPresent()) {
+			_output.append(' ').append(this.target.get());
+		}
+	}
+
+	/**
+	 * @return The kind of the TAM instruction.
+	 */
+	TAMInstructionKind getKind() {
+		return this.kind;
+	}
+
+	/**
+	 * @return The optional frame of the caller function for CALL and CALLI instructions.
+	 */
+	Optional<Register> getFrame() {
+		return this.frame;
+	}
+
+	public String toString() {
+		StringBuilder _result = new StringBuilder();
+		try {
+			this.writeTo(_result);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
 		}
-		return _result;
+		return _result.toString();
 	}
 
 }
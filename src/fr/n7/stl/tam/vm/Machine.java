@@ -0,0 +1,874 @@
+/**
+ *
+ */
+package fr.n7.stl.tam.vm;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import fr.n7.stl.tam.ast.Fragment;
+import fr.n7.stl.tam.ast.impl.ObjectProgram;
+
+/**
+ * TAM virtual machine executing object programs in the compiler process.
+ *
+ * The stack and the heap share a flat memory of integers: the stack grows from SB (address 0)
+ * and the heap grows down from HB (the size of the memory). Each heap chunk is preceded by a
+ * word that contains its size, freed chunks are linked in a free list stored in the chunks.
+ * A String value is the address of a one word heap chunk (its slot) that contains the address
+ * of a heap chunk with the length followed by the characters.
+ *
+ * The semantics of the instructions and primitives follow the TAM machine of the TAM tools.
+ * The dispatch loop does not allocate objects, except when reading inputs. The *Out primitives
+ * write in a buffer, which is written in the output when it is full, before an input is read, at
+ * HALT and when the execution fails.
+ *
+ */
+public class Machine {
+
+	/**
+	 * Default number of words in the memory.
+	 */
+	public static final int DEFAULT_MEMORY_SIZE = 1 << 20;
+
+	/**
+	 * Number of characters of the output buffer that are written in the output at once.
+	 */
+	private static final int OUTPUT_BUFFER_SIZE = 8192;
+
+	/**
+	 * Largest absolute value of an Integer in the TAM machine.
+	 */
+	private static final int MAXINT = 1 << 24;
+
+	/**
+	 * Opcodes of the instructions.
+	 */
+	private static final int LOAD = 0;
+	private static final int LOADA = 1;
+	private static final int LOADI = 2;
+	private static final int LOADL = 3;
+	private static final int STORE = 4;
+	private static final int STOREI = 5;
+	private static final int CALL = 6;
+	private static final int CALLI = 7;
+	private static final int RETURN = 8;
+	private static final int SUBR = 9;
+	private static final int PUSH = 10;
+	private static final int POP = 11;
+	private static final int JUMP = 12;
+	private static final int JUMPI = 13;
+	private static final int JUMPIF = 14;
+	private static final int HALT = 15;
+
+	/**
+	 * Codes of the registers.
+	 */
+	private static final int CB = 0;
+	private static final int CT = 1;
+	private static final int SB = 4;
+	private static final int ST = 5;
+	private static final int HB = 6;
+	private static final int HT = 7;
+	private static final int LB = 8;
+	private static final int L1 = 9;
+	private static final int L6 = 14;
+	private static final int CP = 15;
+
+	/**
+	 * Codes of the primitives (d field of SUBR).
+	 */
+	private static final int BNEG = 0;
+	private static final int BOR = 1;
+	private static final int BAND = 2;
+	private static final int BOUT = 3;
+	private static final int BIN = 4;
+	private static final int B2C = 5;
+	private static final int B2I = 6;
+	private static final int B2S = 7;
+	private static final int COUT = 8;
+	private static final int CIN = 9;
+	private static final int C2B = 10;
+	private static final int C2I = 11;
+	private static final int C2S = 12;
+	private static final int INEG = 13;
+	private static final int IADD = 14;
+	private static final int ISUB = 15;
+	private static final int IMUL = 16;
+	private static final int IDIV = 17;
+	private static final int IMOD = 18;
+	private static final int IEQ = 19;
+	private static final int INEQ = 20;
+	private static final int ILSS = 21;
+	private static final int ILEQ = 22;
+	private static final int IGTR = 23;
+	private static final int IGEQ = 24;
+	private static final int IOUT = 25;
+	private static final int IIN = 26;
+	private static final int I2B = 27;
+	private static final int I2C = 28;
+	private static final int I2S = 29;
+	private static final int MVOID = 30;
+	private static final int MALLOC = 31;
+	private static final int MFREE = 32;
+	private static final int MCOMPARE = 33;
+	private static final int MCOPY = 34;
+	private static final int SALLOC = 35;
+	private static final int SFREE = 36;
+	private static final int SCOPY = 37;
+	private static final int SCONCAT = 38;
+	private static final int SOUT = 39;
+	private static final int SIN = 40;
+	private static final int S2B = 41;
+	private static final int S2C = 42;
+	private static final int S2I = 43;
+
+	/**
+	 * Representation of the Boolean values.
+	 */
+	private static final int FALSE = 0;
+	private static final int TRUE = 1;
+
+	/**
+	 * Void address (no heap chunk).
+	 */
+	private static final int NONE = -1;
+
+	private final int[] memory;
+
+	private int[] code;
+
+	private int ct;
+
+	private int cp;
+
+	private int st;
+
+	private int lb;
+
+	private int ht;
+
+	/**
+	 * Address of the first freed heap chunk, NONE if there is none.
+	 */
+	private int free;
+
+	private final Appendable output;
+
+	/**
+	 * Characters written by the *Out primitives that are not yet in the output.
+	 */
+	private final StringBuilder buffer;
+
+	private final BufferedReader input;
+
+	/**
+	 * Buffer used to write the digits of an Integer.
+	 */
+	private final char[] digits;
+
+	/**
+	 * Creates a machine with the default memory size.
+	 * @param _output Where the *Out primitives write.
+	 * @param _input Where the *In primitives read.
+	 */
+	public Machine(Appendable _output, BufferedReader _input) {
+		this(_output, _input, DEFAULT_MEMORY_SIZE);
+	}
+
+	/**
+	 * Creates a machine.
+	 * @param _output Where the *Out primitives write.
+	 * @param _input Where the *In primitives read.
+	 * @param _size Number of words in the memory.
+	 */
+	public Machine(Appendable _output, BufferedReader _input, int _size) {
+		this.memory = new int[_size];
+		this.code = new int[0];
+		this.output = _output;
+		this.buffer = new StringBuilder(OUTPUT_BUFFER_SIZE);
+		this.input = _input;
+		this.digits = new char[11];
+		this.reset();
+	}
+
+	/**
+	 * Assembles a fragment and executes it.
+	 * @param _fragment Code of the program ending with HALT.
+	 * @throws MachineError if the execution fails.
+	 */
+	public void execute(Fragment _fragment) {
+		this.load(ObjectProgram.assemble(_fragment));
+		this.run();
+	}
+
+	/**
+	 * Loads an object program and resets the registers.
+	 * @param _program Object program to execute.
+	 */
+	public void load(ObjectProgram _program) {
+		this.code = _program.getCode();
+		this.reset();
+	}
+
+	/**
+	 * Loads an object program written in the TAMX format and resets the registers.
+	 * @param _file TAMX file, written by the compiler with or without its symbol table.
+	 * @throws IOException if the file cannot be read or is not a TAMX object program.
+	 */
+	public void load(Path _file) throws IOException {
+		try (InputStream _input = new BufferedInputStream(Files.newInputStream(_file))) {
+			this.load(ObjectProgram.readFrom(_input));
+		}
+	}
+
+	/**
+	 * Loads encoded instructions and resets the registers.
+	 * @param _code Instructions encoded as in the TAMX format.
+	 */
+	public void load(int[] _code) {
+		this.code = _code.clone();
+		this.reset();
+	}
+
+	private void reset() {
+		this.ct = this.code.length;
+		this.cp = 0;
+		this.st = 0;
+		this.lb = 0;
+		this.ht = this.memory.length;
+		this.free = NONE;
+	}
+
+	/**
+	 * Executes the loaded program from the current code pointer until HALT.
+	 * The registers are kept in local variables during the dispatch and stored back in the
+	 * fields before calling a primitive. Single word transfers do not go through System.arraycopy
+	 * whose call overhead dominates for such small copies.
+	 * @throws MachineError if the execution fails.
+	 */
+	public void run() {
+		final int[] _memory = this.memory;
+		final int[] _code = this.code;
+		final int _ct = this.ct;
+		int _cp = this.cp;
+		int _st = this.st;
+		int _lb = this.lb;
+		try {
+			while (true) {
+				if (_cp < 0 || _cp >= _ct) {
+					this.cp = _cp;
+					throw this.failure("Invalid code address");
+				}
+				int _word = _code[_cp];
+				int _r = (_word >>> 24) & 0xF;
+				int _n = (_word >>> 16) & 0xFF;
+				int _d = (short) _word;
+				switch (_word >>> 28) {
+				case LOAD: {
+					int _address = _d + this.content(_r, _st, _lb, _cp);
+					if (this.ht - _st < _n) {
+						this.cp = _cp;
+						throw this.failure("Data store full");
+					}
+					if (_n == 1) {
+						_memory[_st] = _memory[_address];
+					} else {
+						System.arraycopy(_memory, _address, _memory, _st, _n);
+					}
+					_st += _n;
+					_cp++;
+					break;
+				}
+				case LOADA:
+					if (this.ht == _st) {
+						this.cp = _cp;
+						throw this.failure("Data store full");
+					}
+					_memory[_st] = _d + this.content(_r, _st, _lb, _cp);
+					_st++;
+					_cp++;
+					break;
+				case LOADI: {
+					int _address = _memory[--_st];
+					if (this.ht - _st < _n) {
+						this.cp = _cp;
+						throw this.failure("Data store full");
+					}
+					if (_n == 1) {
+						_memory[_st] = _memory[_address];
+					} else {
+						System.arraycopy(_memory, _address, _memory, _st, _n);
+					}
+					_st += _n;
+					_cp++;
+					break;
+				}
+				case LOADL:
+					if (this.ht == _st) {
+						this.cp = _cp;
+						throw this.failure("Data store full");
+					}
+					_memory[_st++] = _d;
+					_cp++;
+					break;
+				case STORE: {
+					int _address = _d + this.content(_r, _st, _lb, _cp);
+					_st -= _n;
+					if (_n == 1) {
+						_memory[_address] = _memory[_st];
+					} else {
+						System.arraycopy(_memory, _st, _memory, _address, _n);
+					}
+					_cp++;
+					break;
+				}
+				case STOREI: {
+					int _address = _memory[--_st];
+					_st -= _n;
+					if (_n == 1) {
+						_memory[_address] = _memory[_st];
+					} else {
+						System.arraycopy(_memory, _st, _memory, _address, _n);
+					}
+					_cp++;
+					break;
+				}
+				case CALL: {
+					int _address = _d + this.content(_r, _st, _lb, _cp);
+					if (this.ht - _st < 3) {
+						this.cp = _cp;
+						throw this.failure("Data store full");
+					}
+					_memory[_st] = this.content(_n, _st, _lb, _cp);
+					_memory[_st + 1] = _lb;
+					_memory[_st + 2] = _cp + 1;
+					_lb = _st;
+					_st += 3;
+					_cp = _address;
+					break;
+				}
+				case CALLI: {
+					// The closure (static link and code address) is on the stack top
+					_st -= 2;
+					int _address = _memory[_st + 1];
+					if (this.ht - _st < 3) {
+						this.cp = _cp;
+						throw this.failure("Data store full");
+					}
+					_memory[_st + 1] = _lb;
+					_memory[_st + 2] = _cp + 1;
+					_lb = _st;
+					_st += 3;
+					_cp = _address;
+					break;
+				}
+				case RETURN: {
+					int _base = _lb - _d;
+					_cp = _memory[_lb + 2];
+					_lb = _memory[_lb + 1];
+					_st -= _n;
+					System.arraycopy(_memory, _st, _memory, _base, _n);
+					_st = _base + _n;
+					break;
+				}
+				case SUBR:
+					this.cp = _cp;
+					this.st = _st;
+					this.lb = _lb;
+					this.primitive(_d);
+					_st = this.st;
+					_cp++;
+					break;
+				case PUSH:
+					if (this.ht - _st < _d) {
+						this.cp = _cp;
+						throw this.failure("Data store full");
+					}
+					_st += _d;
+					_cp++;
+					break;
+				case POP: {
+					int _base = _st - _n - _d;
+					_st -= _n;
+					System.arraycopy(_memory, _st, _memory, _base, _n);
+					_st = _base + _n;
+					_cp++;
+					break;
+				}
+				case JUMP:
+					_cp = _d + this.content(_r, _st, _lb, _cp);
+					break;
+				case JUMPI:
+					_cp = _memory[--_st];
+					break;
+				case JUMPIF:
+					if (_memory[--_st] == _n) {
+						_cp = _d + this.content(_r, _st, _lb, _cp);
+					} else {
+						_cp++;
+					}
+					break;
+				case HALT:
+					this.cp = _cp;
+					this.st = _st;
+					this.lb = _lb;
+					this.flush();
+					return;
+				default:
+					this.cp = _cp;
+					throw this.failure("Invalid instruction");
+				}
+			}
+		} catch (IndexOutOfBoundsException e) {
+			throw this.interrupted(new MachineError("Memory access failure at " + _cp, e));
+		} catch (IOException e) {
+			throw this.interrupted(new MachineError("Input/Output failure at " + _cp, e));
+		} catch (MachineError e) {
+			throw this.interrupted(e);
+		}
+	}
+
+	/**
+	 * Value of a register, the L1 to L6 pseudo registers follow the static links.
+	 */
+	private int content(int _register, int _st, int _lb, int _cp) {
+		switch (_register) {
+		case CB:
+		case SB:
+			return 0;
+		case CT:
+			return this.ct;
+		case ST:
+			return _st;
+		case HB:
+			return this.memory.length;
+		case HT:
+			return this.ht;
+		case LB:
+			return _lb;
+		case CP:
+			return _cp;
+		default:
+			if (_register >= L1 && _register <= L6) {
+				int _frame = _lb;
+				for (int _level = L1; _level <= _register; _level++) {
+					_frame = this.memory[_frame];
+				}
+				return _frame;
+			}
+			this.cp = _cp;
+			throw this.failure("Invalid register");
+		}
+	}
+
+	private void primitive(int _code) throws IOException {
+		final int[] _memory = this.memory;
+		switch (_code) {
+		case BNEG:
+			_memory[this.st - 1] = (_memory[this.st - 1] == TRUE) ? FALSE : TRUE;
+			break;
+		case BOR:
+			this.st--;
+			_memory[this.st - 1] = (_memory[this.st - 1] == TRUE || _memory[this.st] == TRUE) ? TRUE : FALSE;
+			break;
+		case BAND:
+			this.st--;
+			_memory[this.st - 1] = (_memory[this.st - 1] == TRUE && _memory[this.st] == TRUE) ? TRUE : FALSE;
+			break;
+		case BOUT:
+			this.buffer.append((_memory[--this.st] == TRUE) ? "true" : "false");
+			this.written();
+			break;
+		case BIN:
+			this.push(Boolean.parseBoolean(this.readLine()) ? TRUE : FALSE);
+			break;
+		case B2C:
+			_memory[this.st - 1] = (_memory[this.st - 1] == FALSE) ? '0' : '1';
+			break;
+		case B2I:
+		case C2I:
+		case I2C:
+			break;
+		case B2S:
+			_memory[this.st - 1] = this.newString((_memory[this.st - 1] == TRUE) ? "true" : "false");
+			break;
+		case COUT:
+			this.buffer.append((char) _memory[--this.st]);
+			this.written();
+			break;
+		case CIN:
+			this.flush();
+			this.push(this.input.read());
+			break;
+		case C2B:
+			_memory[this.st - 1] = (_memory[this.st - 1] == '0') ? FALSE : TRUE;
+			break;
+		case C2S: {
+			int _string = this.newString(1);
+			_memory[_memory[_string] + 1] = _memory[this.st - 1];
+			_memory[this.st - 1] = _string;
+			break;
+		}
+		case INEG:
+			_memory[this.st - 1] = this.checked(-(long) _memory[this.st - 1]);
+			break;
+		case IADD:
+			this.st--;
+			_memory[this.st - 1] = this.checked((long) _memory[this.st - 1] + _memory[this.st]);
+			break;
+		case ISUB:
+			this.st--;
+			_memory[this.st - 1] = this.checked((long) _memory[this.st - 1] - _memory[this.st]);
+			break;
+		case IMUL:
+			this.st--;
+			_memory[this.st - 1] = this.checked((long) _memory[this.st - 1] * _memory[this.st]);
+			break;
+		case IDIV:
+			this.st--;
+			if (_memory[this.st] == 0) {
+				throw this.failure("Division by zero");
+			}
+			_memory[this.st - 1] = _memory[this.st - 1] / _memory[this.st];
+			break;
+		case IMOD:
+			this.st--;
+			if (_memory[this.st] == 0) {
+				throw this.failure("Division by zero");
+			}
+			_memory[this.st - 1] = _memory[this.st - 1] % _memory[this.st];
+			break;
+		case IEQ:
+			this.st--;
+			_memory[this.st - 1] = (_memory[this.st - 1] == _memory[this.st]) ? TRUE : FALSE;
+			break;
+		case INEQ:
+			this.st--;
+			_memory[this.st - 1] = (_memory[this.st - 1] != _memory[this.st]) ? TRUE : FALSE;
+			break;
+		case ILSS:
+			this.st--;
+			_memory[this.st - 1] = (_memory[this.st - 1] < _memory[this.st]) ? TRUE : FALSE;
+			break;
+		case ILEQ:
+			this.st--;
+			_memory[this.st - 1] = (_memory[this.st - 1] <= _memory[this.st]) ? TRUE : FALSE;
+			break;
+		case IGTR:
+			this.st--;
+			_memory[this.st - 1] = (_memory[this.st - 1] > _memory[this.st]) ? TRUE : FALSE;
+			break;
+		case IGEQ:
+			this.st--;
+			_memory[this.st - 1] = (_memory[this.st - 1] >= _memory[this.st]) ? TRUE : FALSE;
+			break;
+		case IOUT: {
+			int _start = this.format(_memory[--this.st]);
+			this.buffer.append(this.digits, _start, this.digits.length - _start);
+			this.written();
+			break;
+		}
+		case IIN:
+			try {
+				this.push(Integer.parseInt(this.readLine().trim()));
+			} catch (NumberFormatException e) {
+				throw this.failure("Invalid Integer input");
+			}
+			break;
+		case I2B:
+			_memory[this.st - 1] = (_memory[this.st - 1] == 0) ? FALSE : TRUE;
+			break;
+		case I2S: {
+			int _start = this.format(_memory[this.st - 1]);
+			int _string = this.newString(this.digits.length - _start);
+			int _content = _memory[_string] + 1;
+			for (int _index = _start; _index < this.digits.length; _index++) {
+				_memory[_content++] = this.digits[_index];
+			}
+			_memory[this.st - 1] = _string;
+			break;
+		}
+		case MVOID:
+			this.push(0);
+			break;
+		case MALLOC:
+			_memory[this.st - 1] = this.allocate(_memory[this.st - 1]);
+			break;
+		case MFREE:
+			this.release(_memory[--this.st]);
+			break;
+		case MCOMPARE: {
+			// Same operands as MCopy: size, first chunk, second chunk.
+			int _size = _memory[this.st - 3];
+			int _first = _memory[this.st - 2];
+			int _second = _memory[this.st - 1];
+			int _result = TRUE;
+			for (int _index = 0; _index < _size && _result == TRUE; _index++) {
+				if (_memory[_first + _index] != _memory[_second + _index]) {
+					_result = FALSE;
+				}
+			}
+			this.st -= 2;
+			_memory[this.st - 1] = _result;
+			break;
+		}
+		case MCOPY:
+			// The chunk on the stack top is copied in the chunk below it.
+			System.arraycopy(_memory, _memory[this.st - 1], _memory, _memory[this.st - 2], _memory[this.st - 3]);
+			this.st -= 3;
+			break;
+		case SALLOC:
+			this.push(this.newString(0));
+			break;
+		case SFREE: {
+			int _string = _memory[--this.st];
+			this.release(_memory[_string]);
+			this.release(_string);
+			break;
+		}
+		case SCOPY: {
+			this.st -= 2;
+			int _source = _memory[_memory[this.st]];
+			int _target = _memory[this.st + 1];
+			int _length = _memory[_source];
+			int _content = this.allocate(_length + 1);
+			System.arraycopy(_memory, _source, _memory, _content, _length + 1);
+			this.release(_memory[_target]);
+			_memory[_target] = _content;
+			break;
+		}
+		case SCONCAT: {
+			this.st--;
+			int _left = _memory[_memory[this.st - 1]];
+			int _right = _memory[_memory[this.st]];
+			int _string = this.newString(_memory[_left] + _memory[_right]);
+			int _content = _memory[_string];
+			System.arraycopy(_memory, _left + 1, _memory, _content + 1, _memory[_left]);
+			System.arraycopy(_memory, _right + 1, _memory, _content + 1 + _memory[_left], _memory[_right]);
+			_memory[this.st - 1] = _string;
+			break;
+		}
+		case SOUT: {
+			int _content = _memory[_memory[--this.st]];
+			int _end = _content + _memory[_content];
+			for (int _index = _content + 1; _index <= _end; _index++) {
+				this.buffer.append((char) _memory[_index]);
+			}
+			this.written();
+			break;
+		}
+		case SIN:
+			this.push(this.newString(this.readLine()));
+			break;
+		case S2B: {
+			int _content = _memory[_memory[this.st - 1]];
+			boolean _false = this.matches(_content, "false") || this.matches(_content, "f") || this.matches(_content, "0");
+			_memory[this.st - 1] = _false ? FALSE : TRUE;
+			break;
+		}
+		case S2C: {
+			int _content = _memory[_memory[this.st - 1]];
+			_memory[this.st - 1] = (_memory[_content] > 0) ? _memory[_content + 1] : 0;
+			break;
+		}
+		case S2I:
+			_memory[this.st - 1] = this.parse(_memory[_memory[this.st - 1]]);
+			break;
+		default:
+			throw this.failure("Invalid primitive");
+		}
+	}
+
+	private void push(int _value) {
+		this.reserve(1);
+		this.memory[this.st++] = _value;
+	}
+
+	/**
+	 * Checks that the stack can grow by some words without overlapping the heap.
+	 */
+	private void reserve(int _size) {
+		if (this.ht - this.st < _size) {
+			throw this.failure("Data store full");
+		}
+	}
+
+	private int checked(long _value) {
+		if (_value < -MAXINT || _value > MAXINT) {
+			throw this.failure("Integer overflow");
+		}
+		return (int) _value;
+	}
+
+	/**
+	 * Allocates a heap chunk, reusing the first freed chunk that is large enough.
+	 * @return Address of the chunk.
+	 */
+	private int allocate(int _size) {
+		if (_size < 0) {
+			throw this.failure("Invalid heap chunk size");
+		}
+		// A freed chunk must be able to store the link to the next freed chunk
+		int _words = Math.max(_size, 1);
+		int _previous = NONE;
+		for (int _chunk = this.free; _chunk != NONE; _chunk = this.memory[_chunk]) {
+			if (this.memory[_chunk - 1] >= _words) {
+				if (_previous == NONE) {
+					this.free = this.memory[_chunk];
+				} else {
+					this.memory[_previous] = this.memory[_chunk];
+				}
+				return _chunk;
+			}
+			_previous = _chunk;
+		}
+		if (this.ht - this.st < _words + 1) {
+			throw this.failure("Data store full");
+		}
+		this.ht -= _words + 1;
+		this.memory[this.ht] = _words;
+		return this.ht + 1;
+	}
+
+	private void release(int _chunk) {
+		if (_chunk <= this.ht || _chunk >= this.memory.length) {
+			throw this.failure("Invalid heap address");
+		}
+		if (_chunk - 1 == this.ht) {
+			this.ht += this.memory[this.ht] + 1;
+		} else {
+			this.memory[_chunk] = this.free;
+			this.free = _chunk;
+		}
+	}
+
+	/**
+	 * Allocates a String slot and its content.
+	 * @return Address of the slot.
+	 */
+	private int newString(int _length) {
+		int _content = this.allocate(_length + 1);
+		this.memory[_content] = _length;
+		int _string = this.allocate(1);
+		this.memory[_string] = _content;
+		return _string;
+	}
+
+	private int newString(String _value) {
+		int _string = this.newString(_value.length());
+		int _content = this.memory[_string] + 1;
+		for (int _index = 0; _index < _value.length(); _index++) {
+			this.memory[_content + _index] = _value.charAt(_index);
+		}
+		return _string;
+	}
+
+	/**
+	 * Compares a String content with a lower case constant, ignoring the case of the content.
+	 */
+	private boolean matches(int _content, String _value) {
+		if (this.memory[_content] != _value.length()) {
+			return false;
+		}
+		for (int _index = 0; _index < _value.length(); _index++) {
+			if (Character.toLowerCase((char) this.memory[_content + 1 + _index]) != _value.charAt(_index)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private int parse(int _content) {
+		int _length = this.memory[_content];
+		int _index = 1;
+		boolean _negative = false;
+		if (_length > 0 && (this.memory[_content + 1] == '-' || this.memory[_content + 1] == '+')) {
+			_negative = this.memory[_content + 1] == '-';
+			_index++;
+		}
+		if (_index > _length) {
+			throw this.failure("Invalid Integer in String");
+		}
+		long _value = 0;
+		for (; _index <= _length; _index++) {
+			int _digit = this.memory[_content + _index] - '0';
+			if (_digit < 0 || _digit > 9) {
+				throw this.failure("Invalid Integer in String");
+			}
+			_value = this.checked(10 * _value + _digit);
+		}
+		return (int) (_negative ? -_value : _value);
+	}
+
+	/**
+	 * Writes the decimal digits of an Integer at the end of the digits buffer.
+	 * @return Index of the first character in the buffer.
+	 */
+	private int format(int _value) {
+		int _index = this.digits.length;
+		long _rest = Math.abs((long) _value);
+		do {
+			this.digits[--_index] = (char) ('0' + (_rest % 10));
+			_rest /= 10;
+		} while (_rest > 0);
+		if (_value < 0) {
+			this.digits[--_index] = '-';
+		}
+		return _index;
+	}
+
+	private String readLine() throws IOException {
+		this.flush();
+		String _line = this.input.readLine();
+		if (_line == null) {
+			throw this.failure("End of input");
+		}
+		return _line;
+	}
+
+	/**
+	 * Writes the output buffer in the output once it is full.
+	 */
+	private void written() throws IOException {
+		if (this.buffer.length() >= OUTPUT_BUFFER_SIZE) {
+			this.output.append(this.buffer);
+			this.buffer.setLength(0);
+		}
+	}
+
+	/**
+	 * Writes the output buffer in the output and flushes it.
+	 */
+	private void flush() throws IOException {
+		this.output.append(this.buffer);
+		this.buffer.setLength(0);
+		if (this.output instanceof Flushable) {
+			((Flushable) this.output).flush();
+		}
+	}
+
+	/**
+	 * Writes the output of an execution that fails.
+	 * @param _failure Failure of the execution.
+	 * @return The failure, to be thrown.
+	 */
+	private MachineError interrupted(MachineError _failure) {
+		try {
+			this.flush();
+		} catch (IOException e) {
+			_failure.addSuppressed(e);
+		}
+		return _failure;
+	}
+
+	private MachineError failure(String _message) {
+		return new MachineError(_message + " at " + this.cp);
+	}
+
+}
@@ -0,0 +1,29 @@
+/**
+ * 
+ */
+package fr.n7.stl.tam.vm;
+
+/**
+ * Failure of a program executed by the TAM virtual machine.
+ *
+ */
+public class MachineError extends RuntimeException {
+
+	private static final long serialVersionUID = -4308165735221086527L;
+
+	/**
+	 * @param message Description of the failure.
+	 */
+	public MachineError(String message) {
+		super(message);
+	}
+
+	/**
+	 * @param message Description of the failure.
+	 * @param cause Exception raised by the failure.
+	 */
+	public MachineError(String message, Throwable cause) {
+		super(message, cause);
+	}
+
+}
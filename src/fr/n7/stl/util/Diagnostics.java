@@ -0,0 +1,181 @@
+/**
+ * 
+ */
+package fr.n7.stl.util;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Collector of the warnings and errors reported by the semantic analysis of a program. Reporting
+ * an error does not stop the analysis : each pass carries on and all the errors of the program are
+ * reported by one compilation.
+ *
+ * The diagnostics are appended without lock, several threads that analyse parts of the same
+ * program can report in the same collector. A part analysed on its own collector is then added to
+ * the collector of the program, in the order of the program.
+ *
+ */
+public class Diagnostics {
+
+	public enum Severity {
+		WARNING("Warning"),
+		ERROR("Error");
+
+		private final String label;
+
+		private Severity(String _label) {
+			this.label = _label;
+		}
+
+		@Override
+		public String toString() {
+			return this.label;
+		}
+	}
+
+	/**
+	 * Maximal length of the description of the node in a printed diagnostic.
+	 */
+	private static final int CONTEXT_LENGTH = 60;
+
+	/**
+	 * One reported warning or error.
+	 */
+	public static final class Diagnostic {
+
+		private final Severity severity;
+
+		private final String message;
+
+		private final Object node;
+
+		private Diagnostic(Severity _severity, String _message, Object _node) {
+			this.severity = _severity;
+			this.message = _message;
+			this.node = _node;
+		}
+
+		public Severity getSeverity() {
+			return this.severity;
+		}
+
+		public String getMessage() {
+			return this.message;
+		}
+
+		/**
+		 * @return AST node where the diagnostic was reported, null if it was not reported by a node.
+		 */
+		public Object getNode() {
+			return this.node;
+		}
+
+		/**
+		 * @return The first line of the source of the node, comments excepted, null if there is no
+		 * node.
+		 */
+		public String getContext() {
+			if (this.node == null) {
+				return null;
+			}
+			String _source = "";
+			for (String _line : this.node.toString().split("\n")) {
+				_source = _line.trim();
+				if (!_source.isEmpty() && !_source.startsWith("//")) {
+					break;
+				}
+			}
+			if (_source.length() > CONTEXT_LENGTH) {
+				_source = _source.substring(0, CONTEXT_LENGTH) + "...";
+			}
+			return _source;
+		}
+
+		/* (non-Javadoc)
+		 * @see java.lang.Object#toString()
+		 */
+		@Override
+		public String toString() {
+			String _context = this.getContext();
+			return this.severity + " : " + this.message
+					+ ((_context == null || _context.isEmpty()) ? "" : " [in " + _context + "]");
+		}
+
+	}
+
+	private final ConcurrentLinkedQueue<Diagnostic> diagnostics;
+
+	private final AtomicInteger errors;
+
+	private final AtomicInteger warnings;
+
+	public Diagnostics() {
+		this.diagnostics = new ConcurrentLinkedQueue<Diagnostic>();
+		this.errors = new AtomicInteger();
+		this.warnings = new AtomicInteger();
+	}
+
+	/**
+	 * Report an error, the analysis continues.
+	 * @param _node AST node where the error is detected, null if there is none.
+	 * @param _message Description of the error.
+	 */
+	public void error(Object _node, String _message) {
+		this.diagnostics.add(new Diagnostic(Severity.ERROR, _message, _node));
+		this.errors.incrementAndGet();
+	}
+
+	/**
+	 * Report a warning.
+	 * @param _node AST node where the warning is detected, null if there is none.
+	 * @param _message Description of the warning.
+	 */
+	public void warning(Object _node, String _message) {
+		this.diagnostics.add(new Diagnostic(Severity.WARNING, _message, _node));
+		this.warnings.incrementAndGet();
+	}
+
+	/**
+	 * Add the diagnostics of another collector after the ones of this collector.
+	 * @param _other Collector that is no more reported into.
+	 */
+	public void addAll(Diagnostics _other) {
+		this.diagnostics.addAll(_other.diagnostics);
+		this.errors.addAndGet(_other.errors.get());
+		this.warnings.addAndGet(_other.warnings.get());
+	}
+
+	public boolean hasErrors() {
+		return this.errors.get() > 0;
+	}
+
+	public int getErrorCount() {
+		return this.errors.get();
+	}
+
+	public int getWarningCount() {
+		return this.warnings.get();
+	}
+
+	/**
+	 * @return The diagnostics, in the order they were reported.
+	 */
+	public List<Diagnostic> getDiagnostics() {
+		return new ArrayList<Diagnostic>(this.diagnostics);
+	}
+
+	/**
+	 * Print the diagnostics, one per line, in the order they were reported.
+	 * @param _output Stream where the diagnostics are printed.
+	 */
+	public void printTo(PrintStream _output) {
+		for (Diagnostic _diagnostic : this.diagnostics) {
+			_output.println(_diagnostic);
+		}
+	}
+
+}
@@ -4,18 +4,74 @@
 package fr.n7.stl.util;
 
 /**
+ * Reports the semantic warnings and errors. While a program is analysed, they are collected in the
+ * Diagnostics of the program and the analysis continues after an error, otherwise they are printed
+ * on the standard error and an error stops the compilation.
  * @author Marc Pantel
  *
  */
 public class Logger {
 
+	/**
+	 * Collector of the diagnostics reported by the current thread, null if they are printed.
+	 */
+	private static final ThreadLocal<Diagnostics> COLLECTOR = new ThreadLocal<Diagnostics>();
+
 	public static void warning(String _message) {
-		System.err.println("Warning : " + _message);
+		warning(null, _message);
+	}
+
+	/**
+	 * @param _node AST node where the warning is detected.
+	 * @param _message Description of the warning.
+	 */
+	public static void warning(Object _node, String _message) {
+		Diagnostics _diagnostics = COLLECTOR.get();
+		if (_diagnostics == null) {
+			System.err.println("Warning : " + _message);
+		} else {
+			_diagnostics.warning(_node, _message);
+		}
 	}
 
 	public static void error(String _message) {
-		System.err.println("Error : " + _message);
-		throw new BlockSemanticsError();
+		error(null, _message);
+	}
+
+	/**
+	 * @param _node AST node where the error is detected.
+	 * @param _message Description of the error.
+	 * @throws BlockSemanticsError if the diagnostics of the current thread are not collected.
+	 */
+	public static void error(Object _node, String _message) {
+		Diagnostics _diagnostics = COLLECTOR.get();
+		if (_diagnostics == null) {
+			System.err.println("Error : " + _message);
+			throw new BlockSemanticsError(_message);
+		} else {
+			_diagnostics.error(_node, _message);
+		}
+	}
+
+	/**
+	 * Collect the diagnostics reported by the current thread.
+	 * @param _diagnostics Collector of the diagnostics, null to print them again.
+	 */
+	public static void collect(Diagnostics _diagnostics) {
+		if (_diagnostics == null) {
+			COLLECTOR.remove();
+		} else {
+			COLLECTOR.set(_diagnostics);
+		}
+	}
+
+	/**
+	 * @return Number of errors collected for the current thread, 0 if they are not collected : the
+	 * first error is then thrown.
+	 */
+	public static int errors() {
+		Diagnostics _diagnostics = COLLECTOR.get();
+		return (_diagnostics == null) ? 0 : _diagnostics.getErrorCount();
 	}
 
 }